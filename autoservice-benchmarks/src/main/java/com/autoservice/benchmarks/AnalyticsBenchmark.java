@@ -0,0 +1,95 @@
+package com.autoservice.benchmarks;
+
+import com.autoservice.analytics.AnalyticsGroupBy;
+import com.autoservice.analytics.OrderFilter;
+import com.autoservice.analytics.OrderSnapshot;
+import com.autoservice.entity.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аналитика на колоночном снимке: aggregate — группировка всех заказов
+ * (NONE — один итог, MONTH — десятки групп, CLIENT — по группе на клиента);
+ * refresh — правка сотни заказов и публикация нового снимка. Правки идут
+ * по последним RECENT заказам: статусы меняются у открытых, а открытые —
+ * свежие. Только структура в памяти, без БД и Spring.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final long START = OrderSnapshot.epochSecond(LocalDate.of(2023, 1, 1).atStartOfDay());
+    private static final long TWO_YEARS = 730L * 86_400;
+    private static final int RECENT = 50_000;
+
+    @Param({"1000000"})
+    public int orders;
+
+    @Param({"100000"})
+    public int clients;
+
+    @Param({"NONE", "MONTH", "CLIENT"})
+    public AnalyticsGroupBy groupBy;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private ForkJoinPool pool;
+    private OrderSnapshot snapshot;
+    private OrderSnapshot.Editor editor;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        editor = OrderSnapshot.empty().edit();
+        for (int id = 1; id <= orders; id++) {
+            put(id);
+        }
+        snapshot = editor.publish(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int aggregate() {
+        return snapshot.aggregate(OrderFilter.ALL, groupBy, pool).size();
+    }
+
+    @Benchmark
+    public int refresh() {
+        for (int i = 0; i < 100; i++) {
+            put(orders - random.nextInt(Math.min(RECENT, orders)));
+        }
+        snapshot = editor.publish(snapshot.seq() + 1);
+        return snapshot.orders();
+    }
+
+    private void put(int id) {
+        editor.put(id, 1 + random.nextInt(clients), random.nextInt(50),
+                STATUSES[random.nextInt(STATUSES.length)],
+                START + random.nextLong(TWO_YEARS),
+                random.nextInt(8) == 0 ? OrderSnapshot.NO_COST : 100_00 + random.nextInt(5_000_00));
+    }
+}
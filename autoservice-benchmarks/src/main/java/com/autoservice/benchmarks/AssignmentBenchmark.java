@@ -0,0 +1,98 @@
+package com.autoservice.benchmarks;
+
+import com.autoservice.assignment.WorkloadQueues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Назначение исполнителя: WorkloadQueues.assign — самый свободный сотрудник по
+ * навыку и его перестановка во всех очередях. Только структура в памяти, без БД
+ * и Spring. Операция — назначение и снятие того же заказа, чтобы нагрузка
+ * оставалась на уровне orders открытых заказов. assignContended — то же из 8
+ * потоков разом: задержка под конкурентным созданием заказов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class AssignmentBenchmark {
+
+    static final String[] SKILLS = {
+            "engine", "electrics", "body", "tires", "diagnostics", "transmission", "paint", "climate"
+    };
+
+    @State(Scope.Benchmark)
+    public static class Queues {
+
+        @Param({"1000"})
+        public int employees;
+
+        @Param({"100000"})
+        public int orders;
+
+        WorkloadQueues queues;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            queues = new WorkloadQueues();
+            SplittableRandom random = new SplittableRandom(42);
+            // У каждого два навыка из восьми: в очереди навыка ~250 сотрудников
+            for (int id = 1; id <= employees; id++) {
+                queues.register(id, List.of(pick(random), pick(random)), 0, 0);
+            }
+            for (int i = 0; i < orders; i++) {
+                queues.assign(pick(random), hours(random));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Orders {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public int assign(Queues q, Orders o) {
+        return assignAndRelease(q.queues, o.random);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int assignContended(Queues q, Orders o) {
+        return assignAndRelease(q.queues, o.random);
+    }
+
+    private static int assignAndRelease(WorkloadQueues queues, SplittableRandom random) {
+        // Каждый восьмой заказ — без требования к навыку (общая очередь)
+        String skill = random.nextInt(8) == 0 ? WorkloadQueues.ANY : pick(random);
+        long hours = hours(random);
+        int employeeId = queues.assign(skill, hours).orElseThrow();
+        queues.release(employeeId, hours);
+        return employeeId;
+    }
+
+    static String pick(SplittableRandom random) {
+        return SKILLS[random.nextInt(SKILLS.length)];
+    }
+
+    // От получаса до четырёх с половиной часов, в сотых долях часа
+    static long hours(SplittableRandom random) {
+        return 50 + random.nextInt(400);
+    }
+}
@@ -0,0 +1,64 @@
+package com.autoservice.benchmarks;
+
+import com.autoservice.Autoservice;
+import com.autoservice.service.ClientService;
+import com.autoservice.service.OrderIntakeService;
+import com.autoservice.service.OrderService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Поднятое приложение поверх встроенной БД с rows клиентами.
+ * Один экземпляр на форк: база, контекст и индексы живут весь прогон параметра.
+ */
+@State(Scope.Benchmark)
+public class AutoserviceState {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    public ClientService clients;
+    public OrderService orders;
+    public OrderIntakeService intake;
+
+    private BenchmarkDatabase db;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        db = BenchmarkDatabase.start();
+        db.seedClients(rows);
+
+        // Аргументами, а не properties(): те идут как умолчания и проигрывают application.yml
+        context = new SpringApplicationBuilder(Autoservice.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + db.jdbcUrl(),
+                        "--spring.datasource.username=" + BenchmarkDatabase.USER,
+                        "--spring.datasource.password=" + BenchmarkDatabase.PASSWORD,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--autoservice.cli.enabled=false");
+
+        clients = context.getBean(ClientService.class);
+        orders = context.getBean(OrderService.class);
+        intake = context.getBean(OrderIntakeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (db != null) {
+            db.close();
+        }
+    }
+}
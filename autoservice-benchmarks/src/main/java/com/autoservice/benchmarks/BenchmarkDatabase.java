@@ -0,0 +1,92 @@
+package com.autoservice.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * PostgreSQL внутри процесса бенчмарка: поднимается на случайном порту,
+ * получает схему из db/schema.sql приложения и заполняется синтетическими клиентами.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    static final String DATABASE = "autoservice_bench";
+    static final String USER = "autoservice_user";
+    static final String PASSWORD = "dev_password";
+
+    // Фамилии и имена для ФИО; поиск в бенчмарке идёт по этим же фрагментам
+    static final String[] LAST_NAMES = {
+            "Иванов", "Петров", "Сидоров", "Смирнов", "Кузнецов", "Попов", "Соколов", "Лебедев",
+            "Козлов", "Новиков", "Морозов", "Волков", "Алексеев", "Фёдоров", "Егоров", "Павлов"
+    };
+    static final String[] FIRST_NAMES = {
+            "Алексей", "Дмитрий", "Сергей", "Андрей", "Михаил", "Иван", "Артём", "Никита",
+            "Олег", "Павел", "Роман", "Юрий", "Виктор", "Глеб", "Егор", "Антон"
+    };
+
+    private static final String SEED_CLIENTS = """
+            INSERT INTO clients (id, full_name, phone, phone_digits, email, notes)
+            SELECT g,
+                   (?::text[])[1 + g % 16] || ' ' || (?::text[])[1 + (g / 16) % 16] || ' ' || g,
+                   '+7 9' || lpad((g % 1000000000)::text, 9, '0'),
+                   '79' || lpad((g % 1000000000)::text, 9, '0'),
+                   'client' || g || '@example.com',
+                   NULL
+            FROM generate_series(1, ?) AS g
+            """;
+
+    private final EmbeddedPostgres postgres;
+
+    private BenchmarkDatabase(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+
+    static BenchmarkDatabase start() throws IOException, SQLException {
+        BenchmarkDatabase db = new BenchmarkDatabase(EmbeddedPostgres.builder().start());
+        try (Connection c = db.postgres.getPostgresDatabase().getConnection();
+             Statement st = c.createStatement()) {
+            st.execute("CREATE ROLE " + USER + " LOGIN SUPERUSER PASSWORD '" + PASSWORD + "'");
+            st.execute("CREATE DATABASE " + DATABASE + " OWNER " + USER);
+        }
+        String schema = new ClassPathResource("db/schema.sql").getContentAsString(StandardCharsets.UTF_8);
+        try (Connection c = db.connect(); Statement st = c.createStatement()) {
+            st.execute(schema);
+        }
+        return db;
+    }
+
+    String jdbcUrl() {
+        return "jdbc:postgresql://localhost:" + postgres.getPort() + "/" + DATABASE + "?reWriteBatchedInserts=true";
+    }
+
+    /** Заливает rows клиентов одним INSERT ... SELECT и сдвигает последовательность за них. */
+    void seedClients(int rows) throws SQLException {
+        try (Connection c = connect()) {
+            try (PreparedStatement ps = c.prepareStatement(SEED_CLIENTS)) {
+                ps.setArray(1, c.createArrayOf("text", LAST_NAMES));
+                ps.setArray(2, c.createArrayOf("text", FIRST_NAMES));
+                ps.setInt(3, rows);
+                ps.executeUpdate();
+            }
+            try (Statement st = c.createStatement()) {
+                st.execute("SELECT setval('clients_id_seq', " + rows + ")");
+                st.execute("ANALYZE");
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return postgres.getDatabase(USER, DATABASE).getConnection();
+    }
+
+    @Override
+    public void close() throws IOException {
+        postgres.close();
+    }
+}
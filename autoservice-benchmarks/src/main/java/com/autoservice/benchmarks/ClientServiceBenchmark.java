@@ -0,0 +1,65 @@
+package com.autoservice.benchmarks;
+
+import com.autoservice.entity.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClientService: полная выгрузка и поиск по индексу в памяти.
+ * Запросы крутятся по кругу, чтобы не мерить один и тот же закэшированный ответ.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class ClientServiceBenchmark {
+
+    // Подстроки ФИО: фамилия, имя, кусок и строка, которой точно нет
+    private static final String[] NAME_QUERIES = {
+            "Иванов", "Сергей", "ков Ан", "Фёдоров Глеб", "Лебедев Олег 1", "Несуществующий"
+    };
+    // Фрагменты телефона разной длины, включая полный номер с восьмёркой
+    private static final String[] PHONE_QUERIES = {
+            "0001", "123", "900000042", "8 900 000-00-77", "777", "4321"
+    };
+
+    @State(Scope.Thread)
+    public static class Queries {
+        private int next;
+
+        String name() {
+            return NAME_QUERIES[next++ % NAME_QUERIES.length];
+        }
+
+        String phone() {
+            return PHONE_QUERIES[next++ % PHONE_QUERIES.length];
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Client> getAllClients(AutoserviceState app) {
+        return app.clients.getAllClients();
+    }
+
+    @Benchmark
+    public List<Client> searchByName(AutoserviceState app, Queries q) {
+        return app.clients.searchByName(q.name());
+    }
+
+    @Benchmark
+    public List<Client> searchByPhone(AutoserviceState app, Queries q) {
+        return app.clients.searchByPhone(q.phone());
+    }
+}
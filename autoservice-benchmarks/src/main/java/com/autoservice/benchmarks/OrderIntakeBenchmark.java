@@ -0,0 +1,54 @@
+package com.autoservice.benchmarks;
+
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приём заказов под конкурентной нагрузкой: синхронный createSimpleOrder
+ * (транзакция на заказ) против очереди с групповым коммитом. Пропускная способность
+ * в заказах в секунду на все потоки. От размера справочника почти не зависит,
+ * для быстрого сравнения хватит -p rows=100000.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class OrderIntakeBenchmark {
+
+    private static final BigDecimal COST = new BigDecimal("1500.00");
+
+    @State(Scope.Thread)
+    public static class Clients {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int pick(int rows) {
+            return 1 + random.nextInt(rows);
+        }
+    }
+
+    @Benchmark
+    public Order createSimpleOrder(AutoserviceState app, Clients c) {
+        return app.orders.createSimpleOrder(c.pick(app.rows), OrderStatus.CREATED, COST);
+    }
+
+    @Benchmark
+    public Order intake(AutoserviceState app, Clients c) {
+        return app.intake.submit(c.pick(app.rows), OrderStatus.CREATED, COST).join();
+    }
+}
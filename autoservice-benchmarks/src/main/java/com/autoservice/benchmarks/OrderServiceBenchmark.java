@@ -0,0 +1,45 @@
+package com.autoservice.benchmarks;
+
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService.createSimpleOrder: проверка клиента, вставка заказа и роллапов в одной транзакции.
+ * Клиенты берутся случайно из всего набора, чтобы кэш клиентов работал как в жизни.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class OrderServiceBenchmark {
+
+    private static final BigDecimal COST = new BigDecimal("1500.00");
+
+    @State(Scope.Thread)
+    public static class Clients {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        int pick(int rows) {
+            return 1 + random.nextInt(rows);
+        }
+    }
+
+    @Benchmark
+    public Order createSimpleOrder(AutoserviceState app, Clients c) {
+        return app.orders.createSimpleOrder(c.pick(app.rows), OrderStatus.CREATED, COST);
+    }
+}
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Готовит консоль (--cli) к быстрому старту: распаковывает exec-jar в обычный
+# classpath и записывает CDS-архив классов, загружаемых при старте.
+# Пробный запуск печатает меню, поднимает контекст и выходит (spring.context.exit=onRefresh),
+# не дожидаясь ввода. Ему нужна БД — параметры подключения передаются как обычно:
+#
+#   scripts/cli-cds.sh --spring.datasource.url=jdbc:postgresql://db:5432/autoservice_dev
+#
+# Дальше консоль запускается через scripts/cli.sh. Архив привязан к версии JDK
+# и к jar'ам: после mvn package скрипт нужно запустить заново.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-target/autoservice-0.0.1-SNAPSHOT-exec.jar}
+OUT=target/cli
+
+rm -rf "$OUT"
+mkdir -p "$OUT/lib"
+unzip -q "$JAR" 'BOOT-INF/*' -d "$OUT/unpacked"
+
+# CDS не работает с каталогами в classpath — свои классы тоже кладём в jar
+jar --create --file "$OUT/lib/autoservice.jar" -C "$OUT/unpacked/BOOT-INF/classes" .
+CP="$OUT/lib/autoservice.jar"
+# classpath.idx: порядок библиотек как в exec-jar, строки вида - "BOOT-INF/lib/x.jar"
+for lib in $(sed -n 's/^- "\(.*\)"$/\1/p' "$OUT/unpacked/BOOT-INF/classpath.idx"); do
+    mv "$OUT/unpacked/$lib" "$OUT/lib/"
+    CP="$CP:$OUT/lib/$(basename "$lib")"
+done
+rm -rf "$OUT/unpacked"
+echo "$CP" > "$OUT/classpath"
+
+java -Xlog:cds=error -XX:ArchiveClassesAtExit="$OUT/autoservice-cli.jsa" -Dspring.context.exit=onRefresh \
+    -cp "$CP" com.autoservice.Autoservice --cli "$@" < /dev/null
+echo "CDS-архив: $OUT/autoservice-cli.jsa"
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Время до первого промпта консоли: обычный запуск (полный контекст с Tomcat
+# на случайном порту, как было до профиля cli), --cli из exec-jar и
+# scripts/cli.sh (с CDS-архивом, если он подготовлен). Каждый вариант
+# запускается RUNS раз; печатаются минимум и медиана в мс от старта JVM.
+# С --cli меню печатает CliLauncher до старта контекста, так что здесь меряется
+# именно оно; таблицы появляются после первого выбора, когда поднимутся JPA и Hikari.
+# Нужна поднятая БД; аргументы передаются приложению:
+#
+#   RUNS=5 scripts/cli-startup-bench.sh --spring.datasource.url=jdbc:postgresql://db:5432/autoservice_dev
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-target/autoservice-0.0.1-SNAPSHOT-exec.jar}
+RUNS=${RUNS:-5}
+
+# Одно измерение: консоль получает "0" (выход) и печатает время до первого промпта.
+# Полный контекст после выхода из меню продолжает работать как сервер — его гасим
+first_prompt() {
+    local log
+    log=$(mktemp)
+    printf '0\n' | "$@" --autoservice.cli.startup-report=true > "$log" 2>&1 &
+    local pid=$!
+    until grep -aq 'JVM' "$log" || ! kill -0 "$pid" 2>/dev/null; do
+        sleep 0.2
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    grep -a 'JVM' "$log" | grep -o '[0-9]\+' | head -1
+    rm -f "$log"
+}
+
+measure() {
+    local name=$1
+    shift
+    local times=()
+    for ((i = 0; i < RUNS; i++)); do
+        times+=("$(first_prompt "$@")")
+    done
+    printf '%s\n' "${times[@]}" | sort -n | awk -v name="$name" '
+        { t[NR] = $1 }
+        END { printf "%-28s min %6d ms   median %6d ms   (%d runs)\n", name, t[1], t[int((NR + 1) / 2)], NR }'
+}
+
+measure "full context (web)" java -jar "$JAR" --server.port=0 --management.server.port=0 \
+    "$@"
+measure "--cli (exec jar)" java -jar "$JAR" --cli "$@"
+measure "scripts/cli.sh" scripts/cli.sh "$@"
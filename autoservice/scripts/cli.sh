@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Консоль рядом с работающим сервером: без Tomcat, ленивые бины (профиль cli).
+# Если scripts/cli-cds.sh уже отработал — распакованный classpath и CDS-архив,
+# иначе обычный exec-jar. Аргументы передаются приложению:
+#
+#   scripts/cli.sh --spring.datasource.url=jdbc:postgresql://db:5432/autoservice_dev
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-target/autoservice-0.0.1-SNAPSHOT-exec.jar}
+OUT=target/cli
+# Короткоживущему процессу важнее быстрый старт, чем пиковая скорость JIT и GC
+JAVA_OPTS=${JAVA_OPTS:--XX:TieredStopAtLevel=1 -XX:+UseSerialGC}
+
+if [[ -f "$OUT/autoservice-cli.jsa" ]]; then
+    exec java $JAVA_OPTS -XX:SharedArchiveFile="$OUT/autoservice-cli.jsa" \
+        -cp "$(cat "$OUT/classpath")" com.autoservice.Autoservice --cli "$@"
+fi
+exec java $JAVA_OPTS -jar "$JAR" --cli "$@"
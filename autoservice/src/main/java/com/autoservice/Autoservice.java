@@ -1,8 +1,11 @@
 package com.autoservice;
 
+import com.autoservice.cli.CliLauncher;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 /**
  *
  * @author joycap
@@ -10,7 +13,19 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class Autoservice {
 
+    /** Только консоль, без веб-сервера: профиль cli (application-cli.yml), меню до старта контекста. */
+    static final String CLI_FLAG = "--cli";
+
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains(CLI_FLAG)) {
+            // Меню печатается ещё до new SpringApplication: уже она читает spring.factories
+            CliLauncher.run(args, contextArgs -> {
+                SpringApplication app = new SpringApplication(Autoservice.class);
+                app.setAdditionalProfiles("cli");
+                return app.run(contextArgs);
+            });
+            return;
+        }
         SpringApplication.run(Autoservice.class, args);
     }
 }
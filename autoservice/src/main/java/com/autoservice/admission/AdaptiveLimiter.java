@@ -0,0 +1,143 @@
+package com.autoservice.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограничитель одновременных запросов с AIMD-лимитом: пока время ответа
+ * укладывается в targetLatency, лимит растёт примерно на 1 за "круг"
+ * (+1/limit на каждый ответ), при медленном ответе — умножается на 0.9,
+ * не чаще раза за targetLatency, чтобы одна волна медленных ответов не
+ * обрушила лимит до минимума. Сверх лимита запрос ждёт в ограниченной
+ * очереди не дольше maxWait, дальше — отказ.
+ */
+final class AdaptiveLimiter {
+
+    private static final double BACKOFF = 0.9;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition freed = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+
+    private double limit;
+    private int inflight;
+    private int waiting;
+    private long lastDecrease;
+    private long rejected;
+
+    AdaptiveLimiter(AdmissionProperties.Limits cfg) {
+        this.minLimit = Math.max(1, cfg.minLimit());
+        this.maxLimit = Math.max(minLimit, cfg.maxLimit());
+        this.limit = Math.max(minLimit, Math.min(maxLimit, cfg.initialLimit()));
+        this.targetNanos = cfg.targetLatency().toNanos();
+        this.queueCapacity = Math.max(0, cfg.queue());
+        this.maxWaitNanos = cfg.maxWait().toNanos();
+        // nanoTime отсчитывается от произвольной точки: первое снижение разрешаем сразу
+        this.lastDecrease = System.nanoTime() - targetNanos - 1;
+    }
+
+    /** true — можно выполнять, потом обязательно release; false — отказать. */
+    boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            // Пока есть очередь, новые не обгоняют ждущих
+            if (waiting == 0 && inflight < (int) limit) {
+                inflight++;
+                return true;
+            }
+            if (waiting >= queueCapacity) {
+                rejected++;
+                return false;
+            }
+            waiting++;
+            try {
+                long nanos = maxWaitNanos;
+                while (inflight >= (int) limit) {
+                    if (nanos <= 0) {
+                        rejected++;
+                        return false;
+                    }
+                    nanos = freed.awaitNanos(nanos);
+                }
+                inflight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Запрос завершён за latencyNanos (без учёта ожидания в очереди). */
+    void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inflight--;
+            long now = System.nanoTime();
+            if (latencyNanos > targetNanos) {
+                if (now - lastDecrease > targetNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                    lastDecrease = now;
+                }
+            } else if (inflight + 1 >= limit / 2) {
+                // Растём, только когда лимит действительно используется
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            freed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Место освобождено без выполнения запроса: лимит не меняется. */
+    void cancel() {
+        lock.lock();
+        try {
+            inflight--;
+            freed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long rejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
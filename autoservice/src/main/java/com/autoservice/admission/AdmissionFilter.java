@@ -0,0 +1,211 @@
+package com.autoservice.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Контроль допуска: у каждой пары (группа, ресурс) — свой AdaptiveLimiter,
+ * например WRITE /clients и WRITE /orders. Наплыв POST /clients упирается в
+ * свой лимит и получает быстрый 503 + Retry-After, а чтение и /ping идут
+ * своим ходом. Стоит первым в цепочке: отказ не занимает ни соединение с БД,
+ * ни работу других фильтров.
+ *
+ * Поверх лимитов по ресурсам все записи делят один постоянный лимит — размер
+ * основного пула Hikari минус readReserve: сколько бы POST ни пришло, у чтения
+ * остаются свободные соединения, и GET не ждёт пул за записями.
+ *
+ * Асинхронные ответы (POST /orders/intake) держат место ресурса до завершения,
+ * а место в общем лимите записей отдают сразу: пока ответ ждёт очередь приёма,
+ * соединения у запроса нет.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    // Ресурсов (первый сегмент пути) немного; всё сверх — в общий лимитер группы
+    private static final int MAX_RESOURCES = 32;
+    private static final String OTHER = "other";
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+    private static final byte[] REJECTED_BODY =
+            "{\"error\":\"Сервис перегружен, повтори позже\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry registry;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final int writeConnections;
+    // Все записи вместе: не больше writeConnections одновременно, лимит не адаптивный
+    private final AdaptiveLimiter writes;
+
+    public AdmissionFilter(AdmissionProperties properties, MeterRegistry registry,
+                           HikariDataSource primaryDataSource) {
+        this.properties = properties;
+        this.registry = registry;
+        // Пока пул не стартовал, Hikari хранит -1 и подставляет свои 10 только при старте
+        int poolSize = primaryDataSource.getMaximumPoolSize();
+        this.writeConnections = properties.writeConnections(poolSize > 0 ? poolSize : HIKARI_DEFAULT_POOL_SIZE);
+        AdmissionProperties.Limits w = properties.write();
+        this.writes = register(new AdaptiveLimiter(new AdmissionProperties.Limits(writeConnections,
+                writeConnections, writeConnections, w.targetLatency(), w.queue(), w.maxWait())),
+                AdmissionGroup.WRITE, "all");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || groupOf(request) == AdmissionGroup.EXEMPT;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissionGroup group = groupOf(request);
+        AdaptiveLimiter limiter = limiterFor(group, resourceOf(request));
+        AdaptiveLimiter shared = group == AdmissionGroup.WRITE ? writes : null;
+        if (!admit(limiter)) {
+            reject(response);
+            return;
+        }
+        if (shared != null && !admit(shared)) {
+            limiter.cancel();
+            reject(response);
+            return;
+        }
+
+        long started = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - started);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (shared != null) {
+                shared.release(System.nanoTime() - started);
+            }
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private static boolean admit(AdaptiveLimiter limiter) {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static AdmissionGroup groupOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.equals("/ping") || path.startsWith("/changes/stream")) {
+            return AdmissionGroup.EXEMPT;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                ? AdmissionGroup.READ
+                : AdmissionGroup.WRITE;
+    }
+
+    private static String resourceOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        int end = path.indexOf('/', 1);
+        String segment = end < 0 ? path.substring(1) : path.substring(1, end);
+        return segment.isEmpty() || !segment.chars().allMatch(c -> c >= 'a' && c <= 'z' || c == '-')
+                ? OTHER : segment;
+    }
+
+    private AdaptiveLimiter limiterFor(AdmissionGroup group, String resource) {
+        String key = group + " /" + resource;
+        AdaptiveLimiter limiter = limiters.get(key);
+        if (limiter != null) {
+            return limiter;
+        }
+        if (limiters.size() >= MAX_RESOURCES && !OTHER.equals(resource)) {
+            // Случайные пути (сканеры, 404) не должны плодить лимитеры и метрики
+            return limiterFor(group, OTHER);
+        }
+        return limiters.computeIfAbsent(key, k -> register(group, resource));
+    }
+
+    private AdaptiveLimiter register(AdmissionGroup group, String resource) {
+        // Больше, чем помещается в общий лимит записей, ресурсу всё равно не выполнить
+        return register(new AdaptiveLimiter(group == AdmissionGroup.WRITE
+                ? properties.write().capped(writeConnections) : properties.read()), group, resource);
+    }
+
+    private AdaptiveLimiter register(AdaptiveLimiter limiter, AdmissionGroup group, String resource) {
+        Tags tags = Tags.of("group", group.name(), "resource", resource);
+        Gauge.builder("autoservice.admission.limit", limiter, AdaptiveLimiter::limit)
+                .description("Текущий адаптивный лимит одновременных запросов")
+                .tags(tags).register(registry);
+        Gauge.builder("autoservice.admission.inflight", limiter, AdaptiveLimiter::inflight)
+                .tags(tags).register(registry);
+        Gauge.builder("autoservice.admission.waiting", limiter, AdaptiveLimiter::waiting)
+                .tags(tags).register(registry);
+        FunctionCounter.builder("autoservice.admission.rejected", limiter, AdaptiveLimiter::rejected)
+                .description("Запросов, получивших 503 без выполнения")
+                .tags(tags).register(registry);
+        return limiter;
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private record ReleaseOnComplete(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // новый цикл async на том же запросе: слушатель надо перевесить
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.autoservice.admission;
+
+/** Классы запросов с раздельными лимитами: перегрузка записи не мешает чтению и проверкам живости. */
+public enum AdmissionGroup {
+    // /ping и SSE-поток — без лимита: первое нужно балансировщику, второе живёт минутами
+    EXEMPT,
+    READ,
+    WRITE
+}
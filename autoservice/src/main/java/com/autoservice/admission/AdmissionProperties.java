@@ -0,0 +1,59 @@
+package com.autoservice.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Пороги контроля допуска: autoservice.admission.read / .write.
+ * Чего нет в конфиге — берётся из READ_DEFAULTS / WRITE_DEFAULTS.
+ * readReserve — сколько соединений основного пула записи не занимают никогда:
+ * все записи вместе выполняются не больше чем на maximum-pool-size минус столько.
+ */
+@ConfigurationProperties("autoservice.admission")
+public record AdmissionProperties(Boolean enabled, Limits read, Limits write, Integer readReserve) {
+
+    public static final int READ_RESERVE_DEFAULT = 4;
+
+    public static final Limits READ_DEFAULTS =
+            new Limits(64, 8, 256, Duration.ofMillis(500), 128, Duration.ofMillis(50));
+    public static final Limits WRITE_DEFAULTS =
+            new Limits(16, 2, 64, Duration.ofMillis(250), 32, Duration.ofMillis(100));
+
+    public AdmissionProperties {
+        enabled = enabled == null || enabled;
+        read = read == null ? READ_DEFAULTS : read.orElse(READ_DEFAULTS);
+        write = write == null ? WRITE_DEFAULTS : write.orElse(WRITE_DEFAULTS);
+        readReserve = readReserve == null ? READ_RESERVE_DEFAULT : Math.max(0, readReserve);
+    }
+
+    /** Сколько записей одновременно помещается в пул из poolSize соединений, оставляя резерв чтению. */
+    public int writeConnections(int poolSize) {
+        return Math.max(1, poolSize - readReserve);
+    }
+
+    /**
+     * initialLimit..maxLimit — сколько запросов группы выполняется одновременно;
+     * targetLatency — выше неё лимит уменьшается; queue и maxWait — сколько
+     * запросов и как долго ждут свободного места, прежде чем получить 503.
+     */
+    public record Limits(Integer initialLimit, Integer minLimit, Integer maxLimit,
+                         Duration targetLatency, Integer queue, Duration maxWait) {
+
+        /** Те же пороги, но не больше cap одновременных запросов. */
+        Limits capped(int cap) {
+            return new Limits(Math.min(initialLimit, cap), Math.min(minLimit, cap), Math.min(maxLimit, cap),
+                    targetLatency, queue, maxWait);
+        }
+
+        Limits orElse(Limits d) {
+            return new Limits(
+                    initialLimit == null ? d.initialLimit : initialLimit,
+                    minLimit == null ? d.minLimit : minLimit,
+                    maxLimit == null ? d.maxLimit : maxLimit,
+                    targetLatency == null ? d.targetLatency : targetLatency,
+                    queue == null ? d.queue : queue,
+                    maxWait == null ? d.maxWait : maxWait);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.autoservice.analytics;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/** По чему группировать заказы. Ключ группы внутри сканирования — long. */
+public enum AnalyticsGroupBy {
+    NONE,
+    STATUS,
+    CLIENT,
+    EMPLOYEE,
+    DAY,
+    MONTH;
+
+    private static final long SECONDS_PER_DAY = 86_400;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    long keyOf(int status, int clientId, int employeeId, long createdAt) {
+        return switch (this) {
+            case NONE -> 0;
+            case STATUS -> status;
+            case CLIENT -> clientId;
+            case EMPLOYEE -> employeeId;
+            case DAY -> Math.floorDiv(createdAt, SECONDS_PER_DAY);
+            case MONTH -> monthOf(Math.floorDiv(createdAt, SECONDS_PER_DAY));
+        };
+    }
+
+    /** Ключ группы в виде для ответа; null — итог без группировки или заказы без исполнителя. */
+    public Object present(long key) {
+        return switch (this) {
+            case NONE -> null;
+            case STATUS -> STATUSES[(int) key];
+            case CLIENT -> (int) key;
+            case EMPLOYEE -> key == 0 ? null : (int) key;
+            case DAY -> LocalDate.ofEpochDay(key);
+            case MONTH -> YearMonth.of((int) Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1);
+        };
+    }
+
+    /**
+     * Номер месяца year * 12 + (month - 1) по дню от 1970-01-01, без LocalDate:
+     * считается на каждой строке скана. Алгоритм civil_from_days (H. Hinnant).
+     */
+    static long monthOf(long epochDay) {
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+}
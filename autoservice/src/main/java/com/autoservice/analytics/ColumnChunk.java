@@ -0,0 +1,47 @@
+package com.autoservice.analytics;
+
+import java.util.Arrays;
+
+/**
+ * До OrderSnapshot.CHUNK строк заказов по колонкам. Кусок, попавший в
+ * опубликованный снимок, не меняется — разве что дописывается за концом
+ * снимка, куда читатели этого снимка не заглядывают.
+ */
+final class ColumnChunk {
+
+    // Байт на строку во всех колонках: для оценки памяти снимка
+    static final int ROW_BYTES = 3 * Integer.BYTES + 1 + 2 * Long.BYTES;
+
+    final int[] ids;
+    final int[] clientIds;
+    final int[] employeeIds;  // 0 — без исполнителя
+    final byte[] statuses;    // OrderStatus.ordinal(), OrderSnapshot.DELETED — строка удалена
+    final long[] createdAt;   // секунды от 1970-01-01T00:00 по локальному времени created_at
+    final long[] costs;       // копейки, OrderSnapshot.NO_COST — total_cost IS NULL
+
+    ColumnChunk(int capacity) {
+        ids = new int[capacity];
+        clientIds = new int[capacity];
+        employeeIds = new int[capacity];
+        statuses = new byte[capacity];
+        createdAt = new long[capacity];
+        costs = new long[capacity];
+    }
+
+    private ColumnChunk(ColumnChunk from, int capacity) {
+        ids = Arrays.copyOf(from.ids, capacity);
+        clientIds = Arrays.copyOf(from.clientIds, capacity);
+        employeeIds = Arrays.copyOf(from.employeeIds, capacity);
+        statuses = Arrays.copyOf(from.statuses, capacity);
+        createdAt = Arrays.copyOf(from.createdAt, capacity);
+        costs = Arrays.copyOf(from.costs, capacity);
+    }
+
+    ColumnChunk copy(int capacity) {
+        return new ColumnChunk(this, capacity);
+    }
+
+    int capacity() {
+        return ids.length;
+    }
+}
@@ -0,0 +1,100 @@
+package com.autoservice.analytics;
+
+/**
+ * Итоги по группам: ключ группы (long) -> число заказов, число оплачиваемых
+ * (не отменённых) и их сумма в копейках. Открытая адресация в одном long[]:
+ * четыре числа группы лежат рядом, и обновление трогает одну линию кэша.
+ * Каждая подзадача сканирования копит свою таблицу, потом их сливают.
+ */
+public final class GroupTable {
+
+    /** Обход групп без боксинга. */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long key, long orders, long paid, long revenue);
+    }
+
+    // Слот: key, orders, paid, revenue. orders == 0 — слот свободен
+    private static final int STRIDE = 4;
+
+    private long[] slots;
+    private int size;
+
+    GroupTable() {
+        slots = new long[16 * STRIDE];
+    }
+
+    void add(long key, boolean isPaid, long cost) {
+        int at = slotFor(key);
+        slots[at + 1]++;
+        if (isPaid) {
+            slots[at + 2]++;
+            slots[at + 3] += cost;
+        }
+    }
+
+    /** Добавляет итоги other к своим. */
+    void merge(GroupTable other) {
+        long[] from = other.slots;
+        for (int j = 0; j < from.length; j += STRIDE) {
+            if (from[j + 1] != 0) {
+                int at = slotFor(from[j]);
+                slots[at + 1] += from[j + 1];
+                slots[at + 2] += from[j + 2];
+                slots[at + 3] += from[j + 3];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < slots.length; i += STRIDE) {
+            if (slots[i + 1] != 0) {
+                visitor.accept(slots[i], slots[i + 1], slots[i + 2], slots[i + 3]);
+            }
+        }
+    }
+
+    // Индекс слота в slots; новый слот занимается, когда на него сразу что-то прибавят
+    private int slotFor(long key) {
+        int mask = slots.length / STRIDE - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int at = i * STRIDE;
+            if (slots[at + 1] == 0) {
+                if ((size + 1) * 2 > mask + 1) {
+                    grow();
+                    return slotFor(key);
+                }
+                slots[at] = key;
+                size++;
+                return at;
+            }
+            if (slots[at] == key) {
+                return at;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        int mask = slots.length / STRIDE - 1;
+        for (int j = 0; j < old.length; j += STRIDE) {
+            if (old[j + 1] != 0) {
+                int i = hash(old[j]) & mask;
+                while (slots[i * STRIDE + 1] != 0) {
+                    i = (i + 1) & mask;
+                }
+                System.arraycopy(old, j, slots, i * STRIDE, STRIDE);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
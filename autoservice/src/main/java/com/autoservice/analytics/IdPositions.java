@@ -0,0 +1,88 @@
+package com.autoservice.analytics;
+
+/**
+ * id заказа -> номер строки в снимке. Открытая адресация на двух int[],
+ * без боксинга: на миллионы заказов это десятки мегабайт, а не сотни.
+ * id удалённого заказа не убирается — он указывает на строку-надгробие.
+ */
+final class IdPositions {
+
+    // id заказов из последовательности, начинаются с 1
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IdPositions(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /** Строка заказа; -1 — заказа в снимке нет. */
+    int get(int id) {
+        int mask = keys.length - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == id) {
+                return values[i];
+            }
+            if (k == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    void put(int id, int row) {
+        if (id == FREE) {
+            throw new IllegalArgumentException("id заказа должен быть положительным: " + id);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == FREE) {
+                keys[i] = id;
+                values[i] = row;
+                size++;
+                return;
+            }
+            if (k == id) {
+                values[i] = row;
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k != FREE) {
+                int i = slot(k, mask);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(int id, int mask) {
+        // id идут подряд: перемешиваем, чтобы не было длинных цепочек
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,38 @@
+package com.autoservice.analytics;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Отбор заказов для скана: created_at в [fromSecond, toSecond), статус из
+ * statusMask (бит на OrderStatus.ordinal()), клиент и исполнитель (0 — любой).
+ */
+public record OrderFilter(long fromSecond, long toSecond, int statusMask, int clientId, int employeeId) {
+
+    private static final int ALL_STATUSES = (1 << OrderStatus.values().length) - 1;
+
+    public static final OrderFilter ALL = new OrderFilter(Long.MIN_VALUE, Long.MAX_VALUE, ALL_STATUSES, 0, 0);
+
+    /** Дни from и to включительно; null и пустые значения — без ограничения. */
+    public static OrderFilter of(LocalDate from, LocalDate to, Collection<OrderStatus> statuses,
+                                 Integer clientId, Integer employeeId) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода позже конца: " + from + " > " + to);
+        }
+        int mask = ALL_STATUSES;
+        if (statuses != null && !statuses.isEmpty()) {
+            mask = 0;
+            for (OrderStatus s : statuses) {
+                mask |= 1 << s.ordinal();
+            }
+        }
+        return new OrderFilter(
+                from == null ? Long.MIN_VALUE : OrderSnapshot.epochSecond(from.atStartOfDay()),
+                to == null ? Long.MAX_VALUE : OrderSnapshot.epochSecond(to.plusDays(1).atStartOfDay()),
+                mask,
+                clientId == null ? 0 : clientId,
+                employeeId == null ? 0 : employeeId);
+    }
+}
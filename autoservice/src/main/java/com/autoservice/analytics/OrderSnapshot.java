@@ -0,0 +1,331 @@
+package com.autoservice.analytics;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Неизменяемый снимок заказов по колонкам: int[] клиентов и исполнителей,
+ * byte[] статусов, long[] времени создания и стоимости в копейках — около
+ * 30 байт на заказ вместо сотен у сущности Order с Integer/BigDecimal/LocalDateTime.
+ * Колонки нарезаны кусками по CHUNK строк; запросы сканируют куски
+ * параллельно в ForkJoinPool и сливают итоги групп.
+ *
+ * Следующий снимок строит Editor: изменённые куски копируются, остальные
+ * общие со старым снимком, новые строки дописываются в конец. Читатели
+ * старого снимка ничего не замечают и не ждут писателя.
+ */
+public final class OrderSnapshot {
+
+    // 16K строк: правка одного заказа копирует кусок ~0.5 МБ, а не всю колонку
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK - 1;
+    // Меньше строк делить на подзадачи дороже, чем просканировать
+    static final int SPLIT = CHUNK;
+    // Подзадач на поток: хватает, чтобы выровнять нагрузку, и мало слияний таблиц групп
+    private static final int TASKS_PER_THREAD = 4;
+
+    /** Код статуса удалённой строки (надгробие). */
+    static final byte DELETED = -1;
+    /** Стоимость не указана (total_cost IS NULL). */
+    public static final long NO_COST = Long.MIN_VALUE;
+
+    private static final int FIRST_CHUNK_CAPACITY = 1024;
+    private static final int CANCELED = OrderStatus.CANCELED.ordinal();
+
+    private final ColumnChunk[] chunks;
+    private final int rows;
+    private final int live;
+    private final long maxCreatedAt;
+    private final long seq;
+    // Принадлежит писателю: читатели снимка её не трогают
+    private final IdPositions positions;
+
+    private OrderSnapshot(ColumnChunk[] chunks, int rows, int live, long maxCreatedAt, long seq,
+                          IdPositions positions) {
+        this.chunks = chunks;
+        this.rows = rows;
+        this.live = live;
+        this.maxCreatedAt = maxCreatedAt;
+        this.seq = seq;
+        this.positions = positions;
+    }
+
+    /** Пустой снимок для нового писателя: у каждого своя карта id -> строка. */
+    public static OrderSnapshot empty() {
+        return new OrderSnapshot(new ColumnChunk[0], 0, 0, Long.MIN_VALUE, 0, new IdPositions(16));
+    }
+
+    /** Кодировка created_at в колонке: секунды локального времени, как будто это UTC. */
+    public static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Живых заказов в снимке. */
+    public int orders() {
+        return live;
+    }
+
+    /** Строк-надгробий (удалённые заказы), которые ещё занимают место. */
+    public int tombstones() {
+        return rows - live;
+    }
+
+    /** Самое позднее created_at в снимке (см. epochSecond); Long.MIN_VALUE — снимок пуст. */
+    public long maxCreatedAt() {
+        return maxCreatedAt;
+    }
+
+    /** seq ChangeTracker: изменения с seq не больше этого уже в снимке. */
+    public long seq() {
+        return seq;
+    }
+
+    /** Сколько памяти занимают колонки, байт. */
+    public long columnBytes() {
+        long capacity = 0;
+        for (ColumnChunk c : chunks) {
+            capacity += c.capacity();
+        }
+        return capacity * ColumnChunk.ROW_BYTES;
+    }
+
+    /** Итоги по группам среди заказов, прошедших filter. */
+    public GroupTable aggregate(OrderFilter filter, AnalyticsGroupBy groupBy, ForkJoinPool pool) {
+        int leaf = Math.max(SPLIT, rows / (pool.getParallelism() * TASKS_PER_THREAD));
+        if (rows <= leaf) {
+            GroupTable table = new GroupTable();
+            scan(0, rows, filter, groupBy, table);
+            return table;
+        }
+        return pool.invoke(new ScanTask(this, 0, rows, leaf, filter, groupBy));
+    }
+
+    /**
+     * Редактор следующего снимка. Только у последнего снимка и только из одного
+     * потока за раз: карта id -> строка общая у всех снимков одного писателя.
+     */
+    public Editor edit() {
+        return new Editor(this, positions);
+    }
+
+    /** Тот же набор заказов без надгробий, в новых кусках. */
+    public OrderSnapshot compacted() {
+        Editor editor = new Editor(empty(), new IdPositions(live));
+        for (int r = 0; r < rows; r++) {
+            ColumnChunk c = chunks[r >>> CHUNK_SHIFT];
+            int i = r & CHUNK_MASK;
+            if (c.statuses[i] != DELETED) {
+                editor.append(c.ids[i], c.clientIds[i], c.employeeIds[i], c.statuses[i], c.createdAt[i], c.costs[i]);
+            }
+        }
+        return editor.publish(seq);
+    }
+
+    private void scan(int from, int to, OrderFilter filter, AnalyticsGroupBy groupBy, GroupTable table) {
+        for (int r = from; r < to; ) {
+            ColumnChunk c = chunks[r >>> CHUNK_SHIFT];
+            int start = r & CHUNK_MASK;
+            int end = Math.min(CHUNK, start + (to - r));
+            scanChunk(c, start, end, filter, groupBy, table);
+            r += end - start;
+        }
+    }
+
+    private static void scanChunk(ColumnChunk c, int start, int end, OrderFilter filter,
+                                  AnalyticsGroupBy groupBy, GroupTable table) {
+        byte[] statuses = c.statuses;
+        long[] createdAt = c.createdAt;
+        int[] clientIds = c.clientIds;
+        int[] employeeIds = c.employeeIds;
+        long[] costs = c.costs;
+        long fromSecond = filter.fromSecond();
+        long toSecond = filter.toSecond();
+        int statusMask = filter.statusMask();
+        int clientId = filter.clientId();
+        int employeeId = filter.employeeId();
+
+        for (int i = start; i < end; i++) {
+            int status = statuses[i];
+            if (status < 0 || (statusMask & (1 << status)) == 0) {
+                continue;
+            }
+            long created = createdAt[i];
+            if (created < fromSecond || created >= toSecond) {
+                continue;
+            }
+            if (clientId != 0 && clientIds[i] != clientId || employeeId != 0 && employeeIds[i] != employeeId) {
+                continue;
+            }
+            long key = groupBy.keyOf(status, clientIds[i], employeeIds[i], created);
+            long cost = costs[i];
+            // Как в отчётах: отменённые не в выручке, заказ без стоимости — 0
+            boolean paid = status != CANCELED;
+            table.add(key, paid, cost == NO_COST ? 0 : cost);
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<GroupTable> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final OrderSnapshot snapshot;
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final OrderFilter filter;
+        private final AnalyticsGroupBy groupBy;
+
+        ScanTask(OrderSnapshot snapshot, int from, int to, int leaf, OrderFilter filter, AnalyticsGroupBy groupBy) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.filter = filter;
+            this.groupBy = groupBy;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (to - from <= leaf) {
+                GroupTable table = new GroupTable();
+                snapshot.scan(from, to, filter, groupBy, table);
+                return table;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(snapshot, from, mid, leaf, filter, groupBy);
+            left.fork();
+            GroupTable right = new ScanTask(snapshot, mid, to, leaf, filter, groupBy).compute();
+            GroupTable result = left.join();
+            // Сливаем меньшую таблицу в большую
+            if (result.size() < right.size()) {
+                right.merge(result);
+                return right;
+            }
+            result.merge(right);
+            return result;
+        }
+    }
+
+    /** Накапливает изменения и публикует их новым снимком. */
+    public static final class Editor {
+
+        private final IdPositions positions;
+        private ColumnChunk[] chunks;
+        // Куски, уже скопированные этим редактором: их можно менять на месте
+        private boolean[] owned;
+        private int rows;
+        private int live;
+        private long maxCreatedAt;
+
+        private Editor(OrderSnapshot base, IdPositions positions) {
+            this.positions = positions;
+            this.chunks = base.chunks.clone();
+            this.owned = new boolean[chunks.length];
+            this.rows = base.rows;
+            this.live = base.live;
+            this.maxCreatedAt = base.maxCreatedAt;
+        }
+
+        /** Новый или изменившийся заказ. cost — копейки или NO_COST, employeeId 0 — без исполнителя. */
+        public void put(int id, int clientId, int employeeId, OrderStatus status, long createdAt, long cost) {
+            byte code = (byte) status.ordinal();
+            int row = positions.get(id);
+            if (row < 0) {
+                append(id, clientId, employeeId, code, createdAt, cost);
+                return;
+            }
+            ColumnChunk c = writable(row >>> CHUNK_SHIFT);
+            int i = row & CHUNK_MASK;
+            if (c.statuses[i] == DELETED) {
+                live++;
+            }
+            c.clientIds[i] = clientId;
+            c.employeeIds[i] = employeeId;
+            c.statuses[i] = code;
+            c.createdAt[i] = createdAt;
+            c.costs[i] = cost;
+            maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+        }
+
+        /** Заказ с этим id уже есть в редактируемом снимке (в том числе надгробием). */
+        public boolean contains(int id) {
+            return positions.get(id) >= 0;
+        }
+
+        /** Заказа больше нет ни в orders, ни в архиве. */
+        public void delete(int id) {
+            int row = positions.get(id);
+            if (row < 0) {
+                return;
+            }
+            int chunk = row >>> CHUNK_SHIFT;
+            int i = row & CHUNK_MASK;
+            if (chunks[chunk].statuses[i] != DELETED) {
+                writable(chunk).statuses[i] = DELETED;
+                live--;
+            }
+        }
+
+        /** Новый снимок. Редактором можно пользоваться и дальше — для следующего. */
+        public OrderSnapshot publish(long seq) {
+            // Опубликованные куски снова только для чтения
+            Arrays.fill(owned, false);
+            return new OrderSnapshot(Arrays.copyOf(chunks, chunkCount()), rows, live, maxCreatedAt, seq, positions);
+        }
+
+        private void append(int id, int clientId, int employeeId, byte status, long createdAt, long cost) {
+            int chunk = rows >>> CHUNK_SHIFT;
+            int i = rows & CHUNK_MASK;
+            ColumnChunk c = appendable(chunk, i);
+            c.ids[i] = id;
+            c.clientIds[i] = clientId;
+            c.employeeIds[i] = employeeId;
+            c.statuses[i] = status;
+            c.createdAt[i] = createdAt;
+            c.costs[i] = cost;
+            positions.put(id, rows);
+            rows++;
+            if (status != DELETED) {
+                live++;
+            }
+            maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+        }
+
+        private ColumnChunk writable(int chunk) {
+            if (!owned[chunk]) {
+                chunks[chunk] = chunks[chunk].copy(chunks[chunk].capacity());
+                owned[chunk] = true;
+            }
+            return chunks[chunk];
+        }
+
+        // За концом снимка писать можно и в общий кусок: читатели туда не смотрят
+        private ColumnChunk appendable(int chunk, int index) {
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(4, chunks.length * 2));
+                owned = Arrays.copyOf(owned, chunks.length);
+            }
+            ColumnChunk c = chunks[chunk];
+            if (c == null) {
+                c = new ColumnChunk(chunk == 0 ? FIRST_CHUNK_CAPACITY : CHUNK);
+                chunks[chunk] = c;
+                owned[chunk] = true;
+            } else if (index == c.capacity()) {
+                c = c.copy(Math.min(CHUNK, c.capacity() * 2));
+                chunks[chunk] = c;
+                owned[chunk] = true;
+            }
+            return c;
+        }
+
+        private int chunkCount() {
+            return (rows + CHUNK_MASK) >>> CHUNK_SHIFT;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.autoservice.assignment;
+
+/**
+ * Нагрузка сотрудника: часы открытых заказов (в сотых долях часа), их число и id.
+ * Порядок — по часам, затем по числу заказов, затем по id: первый в очереди —
+ * самый свободный, и у каждого сотрудника ровно одна позиция.
+ */
+public record Workload(long centiHours, int openOrders, int employeeId) implements Comparable<Workload> {
+
+    static final Workload MIN = new Workload(Long.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
+    static final Workload MAX = new Workload(Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    public double hours() {
+        return centiHours / 100.0;
+    }
+
+    Workload plus(long centi, int orders) {
+        return new Workload(Math.max(0, centiHours + centi), Math.max(0, openOrders + orders), employeeId);
+    }
+
+    @Override
+    public int compareTo(Workload o) {
+        int c = Long.compare(centiHours, o.centiHours);
+        if (c == 0) {
+            c = Integer.compare(openOrders, o.openOrders);
+        }
+        return c != 0 ? c : Integer.compare(employeeId, o.employeeId);
+    }
+}
@@ -0,0 +1,194 @@
+package com.autoservice.assignment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Очереди сотрудников по нагрузке: на каждый навык — ConcurrentSkipListSet
+ * Workload, плюс общая очередь ANY со всеми. Самый свободный по навыку —
+ * первый элемент, O(log n).
+ *
+ * Глобальной блокировки нет. Позицию сотрудника меняет только тот, кто держит
+ * монитор этого сотрудника: назначение смотрит голову очереди без блокировок,
+ * берёт монитор выбранного и проверяет, что его нагрузка не изменилась, пока
+ * смотрели; изменилась — пробует снова. Два потока, назначающие заказы разным
+ * сотрудникам, друг друга не ждут.
+ */
+public final class WorkloadQueues {
+
+    /** Очередь без требования к навыку. */
+    public static final String ANY = "";
+
+    // Столько раз подряд голову может увести другой поток; дальше берём, что есть
+    private static final int MAX_ATTEMPTS = 16;
+
+    private static final class Worker {
+        final int id;
+        final Set<String> queues;
+        Workload load; // под монитором Worker
+        boolean removed;
+
+        Worker(int id, Set<String> queues, Workload load) {
+            this.id = id;
+            this.queues = queues;
+            this.load = load;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Worker> workers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Workload>> queues = new ConcurrentHashMap<>();
+
+    /** Добавляет сотрудника (или заменяет его навыки) с текущей нагрузкой. */
+    public void register(int employeeId, Collection<String> skills, int openOrders, long centiHours) {
+        Set<String> keys = new TreeSet<>(skills);
+        keys.add(ANY);
+        Worker worker = new Worker(employeeId, Set.copyOf(keys), new Workload(centiHours, openOrders, employeeId));
+        Worker previous = workers.put(employeeId, worker);
+        if (previous != null) {
+            retire(previous);
+        }
+        synchronized (worker) {
+            for (String key : worker.queues) {
+                queue(key).add(worker.load);
+            }
+        }
+    }
+
+    public void unregister(int employeeId) {
+        Worker worker = workers.remove(employeeId);
+        if (worker != null) {
+            retire(worker);
+        }
+    }
+
+    /**
+     * Самый свободный сотрудник с навыком skill (ANY — любой); ему сразу
+     * засчитывается заказ на centiHours. Пусто — с таким навыком никого нет.
+     */
+    public OptionalInt assign(String skill, long centiHours) {
+        ConcurrentSkipListSet<Workload> queue = queues.get(skill);
+        if (queue == null) {
+            return OptionalInt.empty();
+        }
+        for (int attempt = 1; ; attempt++) {
+            Workload head = queue.ceiling(Workload.MIN);
+            if (head == null) {
+                // Пусто или единственного сотрудника как раз переставляют
+                if (attempt >= MAX_ATTEMPTS) {
+                    return OptionalInt.empty();
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            Worker worker = workers.get(head.employeeId());
+            if (worker == null) {
+                continue;
+            }
+            synchronized (worker) {
+                if (worker.removed || (!head.equals(worker.load) && attempt < MAX_ATTEMPTS)) {
+                    continue;
+                }
+                move(worker, worker.load.plus(centiHours, 1));
+                return OptionalInt.of(worker.id);
+            }
+        }
+    }
+
+    /** Заказ на centiHours ушёл от сотрудника (закрыт или передан другому). */
+    public void release(int employeeId, long centiHours) {
+        change(employeeId, -centiHours, -1);
+    }
+
+    /** Сотруднику передан заказ на centiHours. */
+    public void add(int employeeId, long centiHours) {
+        change(employeeId, centiHours, 1);
+    }
+
+    public Optional<Workload> load(int employeeId) {
+        Worker worker = workers.get(employeeId);
+        if (worker == null) {
+            return Optional.empty();
+        }
+        synchronized (worker) {
+            return worker.removed ? Optional.empty() : Optional.of(worker.load);
+        }
+    }
+
+    /** Навыки сотрудника (включая ANY); пусто — его нет в очередях. */
+    public Set<String> skills(int employeeId) {
+        Worker worker = workers.get(employeeId);
+        return worker == null ? Set.of() : worker.queues;
+    }
+
+    /** Самый загруженный сотрудник с навыком skill. */
+    public Optional<Workload> mostLoaded(String skill) {
+        ConcurrentSkipListSet<Workload> queue = queues.get(skill);
+        return queue == null ? Optional.empty() : Optional.ofNullable(queue.floor(Workload.MAX));
+    }
+
+    /** До limit самых свободных сотрудников с навыком skill, по возрастанию нагрузки. */
+    public List<Workload> leastLoaded(String skill, int limit) {
+        ConcurrentSkipListSet<Workload> queue = queues.get(skill);
+        List<Workload> result = new ArrayList<>(Math.min(limit, 64));
+        if (queue != null) {
+            for (Workload w : queue) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(w);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return workers.size();
+    }
+
+    public void clear() {
+        workers.values().forEach(this::retire);
+        workers.clear();
+    }
+
+    private void change(int employeeId, long centiHours, int orders) {
+        Worker worker = workers.get(employeeId);
+        if (worker == null) {
+            return;
+        }
+        synchronized (worker) {
+            if (!worker.removed) {
+                move(worker, worker.load.plus(centiHours, orders));
+            }
+        }
+    }
+
+    // Только под монитором worker
+    private void move(Worker worker, Workload next) {
+        for (String key : worker.queues) {
+            ConcurrentSkipListSet<Workload> queue = queue(key);
+            queue.remove(worker.load);
+            queue.add(next);
+        }
+        worker.load = next;
+    }
+
+    private void retire(Worker worker) {
+        synchronized (worker) {
+            worker.removed = true;
+            for (String key : worker.queues) {
+                queue(key).remove(worker.load);
+            }
+        }
+    }
+
+    private ConcurrentSkipListSet<Workload> queue(String key) {
+        return queues.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>());
+    }
+}
@@ -0,0 +1,8 @@
+package com.autoservice.cache;
+
+/**
+ * Снимок счётчиков кэша. evictions — выкинуто по размеру,
+ * expirations — по TTL.
+ */
+public record CacheStats(int size, long hits, long misses, long evictions, long expirations) {
+}
@@ -0,0 +1,139 @@
+package com.autoservice.cache;
+
+import com.autoservice.config.ReadRouting;
+import com.autoservice.entity.Client;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through кэш клиентов по id перед ClientRepository.findById.
+ * LRU с ограничением по размеру плюс TTL на запись.
+ * Отсутствующие клиенты не кэшируются. Загрузка после invalidate читает с реплики,
+ * только если та уже применила коммит, из-за которого сбросили запись: отставшая
+ * вернула бы старого или удалённого клиента на весь TTL.
+ *
+ * Хранится неизменяемый снимок полей, наружу — каждый раз новый Client: правка
+ * полученного объекта не должна менять то, что видят остальные читатели.
+ */
+@Component
+public class ClientCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // accessOrder = true: самые давно читанные — в начале
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    // Растёт на каждый invalidate: загрузку, начатую до него, в кэш не кладём
+    private final AtomicLong generation = new AtomicLong();
+    // Позиция WAL, не старше которой грузим (ReadRouting): последний коммит на момент invalidate
+    private final AtomicLong minLoadLsn = new AtomicLong();
+
+    public ClientCache(@Value("${autoservice.clients.cache.max-size:10000}") int maxSize,
+                       @Value("${autoservice.clients.cache.ttl:5m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public Optional<Client> get(Integer id, Supplier<Optional<Client>> loader) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry e = entries.get(id);
+            if (e != null) {
+                if (now - e.loadedAt() < ttlNanos) {
+                    hits.incrementAndGet();
+                    return Optional.of(e.client().toClient());
+                }
+                entries.remove(id);
+                expirations.incrementAndGet();
+            }
+        }
+
+        // В БД ходим без блокировки, чтобы не тормозить остальные чтения
+        misses.incrementAndGet();
+        long gen = generation.get();
+        Optional<Client> loaded = ReadRouting.withMinLsn(minLoadLsn.get(), loader);
+        loaded.ifPresent(c -> put(id, Snapshot.of(c), now, gen));
+        return loaded;
+    }
+
+    public void invalidate(Integer id) {
+        minLoadLsn.accumulateAndGet(ReadRouting.lastCommitLsn(), Math::max);
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(id);
+        }
+    }
+
+    public void clear() {
+        minLoadLsn.accumulateAndGet(ReadRouting.lastCommitLsn(), Math::max);
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(size, hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    private void put(Integer id, Snapshot client, long loadedAt, long gen) {
+        synchronized (entries) {
+            if (generation.get() != gen) {
+                return;
+            }
+            entries.put(id, new Entry(client, loadedAt));
+            if (entries.size() > maxSize) {
+                evictOldest(loadedAt);
+            }
+        }
+    }
+
+    private void evictOldest(long now) {
+        // Выкидываем самые давно читанные; протухшие среди них считаем отдельно
+        Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Map.Entry<Integer, Entry> oldest = it.next();
+            it.remove();
+            if (now - oldest.getValue().loadedAt() >= ttlNanos) {
+                expirations.incrementAndGet();
+            } else {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private record Entry(Snapshot client, long loadedAt) {
+    }
+
+    private record Snapshot(Integer id, String fullName, String phone, String phoneDigits, String email,
+                            String notes) {
+
+        static Snapshot of(Client c) {
+            return new Snapshot(c.getId(), c.getFullName(), c.getPhone(), c.getPhoneDigits(), c.getEmail(),
+                    c.getNotes());
+        }
+
+        Client toClient() {
+            Client c = new Client(id, fullName, phone, email, notes);
+            c.setPhoneDigits(phoneDigits);
+            return c;
+        }
+    }
+}
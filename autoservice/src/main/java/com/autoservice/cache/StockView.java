@@ -0,0 +1,58 @@
+package com.autoservice.cache;
+
+import com.autoservice.dto.StockLevel;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Остатки всех запчастей в памяти: проверка наличия без похода в БД.
+ * Загружается целиком при первом обращении (запчастей — тысячи, не миллионы),
+ * дальше обновляется после коммита значениями, которые вернули сами UPDATE'ы.
+ * Коммиты могут прийти не по порядку — остаётся снимок с большим version.
+ *
+ * Это подсказка, а не источник истины: резерв всё равно проверяет остаток
+ * в том же UPDATE, что и списывает.
+ */
+@Component
+public class StockView {
+
+    private final ConcurrentHashMap<Integer, StockLevel> levels = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public void ensureLoaded(Supplier<List<StockLevel>> loader) {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                loader.get().forEach(this::apply);
+                loaded = true;
+            }
+        }
+    }
+
+    /** Перечитать всё, если уже загружено: обновления после коммитов могли пропасть. */
+    public void reload(Supplier<List<StockLevel>> loader) {
+        if (!loaded) {
+            return;
+        }
+        // version в БД только растёт — apply заменит всё устаревшее
+        loader.get().forEach(this::apply);
+    }
+
+    public Optional<StockLevel> get(int partId) {
+        return Optional.ofNullable(levels.get(partId));
+    }
+
+    public void apply(StockLevel level) {
+        levels.merge(level.partId(), level, (old, fresh) -> fresh.version() > old.version() ? fresh : old);
+    }
+
+    public int size() {
+        return levels.size();
+    }
+}
@@ -0,0 +1,11 @@
+package com.autoservice.change;
+
+import java.util.List;
+
+/**
+ * Изменения после заданного seq. complete == false — часть событий уже
+ * вытеснена из буфера, и читателю надо перечитать данные целиком.
+ * lastSeq — с чего продолжать в следующий раз.
+ */
+public record ChangeBatch(List<ChangeEvent> events, boolean complete, long lastSeq) {
+}
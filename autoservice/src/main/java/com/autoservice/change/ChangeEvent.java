@@ -0,0 +1,7 @@
+package com.autoservice.change;
+
+import java.time.Instant;
+
+/** Одно изменение строки. seq растёт монотонно в пределах процесса. */
+public record ChangeEvent(long seq, TrackedTable table, ChangeType type, int id, Instant at) {
+}
@@ -0,0 +1,320 @@
+package com.autoservice.change;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Поток изменений по SSE. Событие ChangeTracker только будит подписчиков;
+ * каждый сам дочитывает из кольцевого буфера всё после своего seq, так что
+ * порядок сохраняется, а отставший подписчик получает "reset" (перечитай
+ * данные) вместо потерянных событий. Отправка идёт в небольшом пуле потоков,
+ * писатели на неё не ждут.
+ *
+ * На подписчика в пуле не больше одной задачи (очередь пула ограничена числом
+ * подписчиков): события, пришедшие во время отправки, дочитает следующий
+ * заход, heartbeat занятого подписчика пропускается. send блокирует поток,
+ * пока клиент не примет данные; подписчик, чья отправка висит дольше
+ * send-timeout, отключается, а пулу добавляется поток взамен занятого —
+ * остальные подписчики не ждут медленного. Сам поток освободится, когда
+ * запись оборвёт таймаут сервлет-контейнера.
+ *
+ * id события — "epoch-seq": после рестарта seq начинаются заново, и
+ * Last-Event-ID из прошлой жизни процесса распознаётся как устаревший.
+ */
+@Component
+public class ChangeFeed implements ChangeListener {
+
+    // Сколько потоков взамен зависших отправок можно добавить сверх threads (на каждый)
+    private static final int MAX_EXTRA_PER_THREAD = 4;
+
+    private final ChangeTracker changes;
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+    private final ThreadPoolExecutor senders;
+    private final int threads;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+
+    // Потоки сверх threads, добавленные взамен зависших отправок; под this
+    private int extraThreads;
+
+    public ChangeFeed(ChangeTracker changes,
+                      @Value("${autoservice.changes.feed.max-subscribers:1000}") int maxSubscribers,
+                      @Value("${autoservice.changes.feed.timeout:30m}") Duration timeout,
+                      @Value("${autoservice.changes.feed.threads:4}") int threads,
+                      @Value("${autoservice.changes.feed.send-timeout:5s}") Duration sendTimeout) {
+        this.changes = changes;
+        this.threads = Math.max(1, threads);
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger n = new AtomicInteger();
+        // Очередь не растёт сверх числа подписчиков: у каждого в ней не больше одной задачи
+        this.senders = new ThreadPoolExecutor(this.threads, this.threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxSubscribers)), r -> {
+            Thread t = new Thread(r, "change-feed-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        changes.addListener(this);
+    }
+
+    /**
+     * Новый подписчик. table == null — все таблицы. lastEventId (заголовок
+     * Last-Event-ID) важнее since; без обоих — только новые события.
+     * Подписчиков слишком много -> RejectedExecutionException (503).
+     */
+    public SseEmitter subscribe(TrackedTable table, Long since, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RejectedExecutionException("Слишком много подписчиков на изменения, повтори позже");
+        }
+        long current = changes.lastSeq();
+        long from;
+        boolean reset = false;
+        if (lastEventId != null) {
+            Long seq = seqOf(lastEventId);
+            reset = seq == null;
+            from = reset ? current : seq;
+        } else {
+            from = since == null ? current : since;
+        }
+        if (from > current) {
+            // seq из будущего — это seq прошлого процесса
+            reset = true;
+            from = current;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber sub = new Subscriber(emitter, table, from);
+        emitter.onCompletion(() -> forget(sub));
+        emitter.onTimeout(() -> forget(sub));
+        emitter.onError(e -> forget(sub));
+
+        boolean sendReset = reset;
+        // Первая задача подписчика: пока она в очереди, других ему не ставим
+        sub.scheduled.set(true);
+        senders.execute(() -> {
+            synchronized (sub) {
+                try {
+                    startSending(sub);
+                    if (sendReset) {
+                        sendReset(sub, sub.lastSeq);
+                    } else {
+                        sub.emitter.send(SseEmitter.event().name("ready")
+                                .id(eventId(sub.lastSeq)).data(Map.of("seq", sub.lastSeq)));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close(sub);
+                    return;
+                } finally {
+                    stopSending(sub);
+                }
+                // В рассылку — только после первого события; всё, что случилось
+                // с момента подписки, drain дочитает из буфера по seq
+                subscribers.add(sub);
+                if (sub.closed) {
+                    // соединение успело закрыться, пока слали первое событие
+                    subscribers.remove(sub);
+                    return;
+                }
+            }
+            drain(sub);
+        });
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void onChange(ChangeEvent event) {
+        for (Subscriber sub : subscribers) {
+            if (sub.table == null || sub.table == event.table()) {
+                schedule(sub);
+            }
+        }
+    }
+
+    /**
+     * Комментарий раз в интервал: прокси не рвут тихое соединение, мёртвые подписчики
+     * отваливаются. Подписчику, у которого отправка уже в очереди или идёт, ping не
+     * нужен; зависшая дольше send-timeout отправка отключает подписчика.
+     */
+    @Scheduled(fixedRateString = "${autoservice.changes.feed.heartbeat:PT15S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber sub : subscribers) {
+            long since = sub.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                dropStuck(sub);
+            } else if (!sub.scheduled.get()) {
+                sub.pingDue = true;
+                schedule(sub);
+            }
+        }
+    }
+
+    private void schedule(Subscriber sub) {
+        sub.dirty = true;
+        // Одна задача на подписчика: пачку событий заберёт drain целиком
+        if (sub.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(sub));
+            } catch (RejectedExecutionException e) {
+                // Пул забит; dirty остаётся, следующее событие или heartbeat попробуют снова
+                sub.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber sub) {
+        synchronized (sub) {
+            sub.dirty = false;
+            if (subscribers.contains(sub)) {
+                ChangeBatch batch = changes.changesSince(sub.lastSeq, sub.table);
+                try {
+                    startSending(sub);
+                    if (!batch.complete()) {
+                        sendReset(sub, batch.lastSeq());
+                    } else if (!batch.events().isEmpty()) {
+                        for (ChangeEvent e : batch.events()) {
+                            sub.emitter.send(SseEmitter.event()
+                                    .id(eventId(e.seq()))
+                                    .name("change")
+                                    .data(e, MediaType.APPLICATION_JSON));
+                        }
+                    } else if (sub.pingDue) {
+                        sub.emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                    sub.pingDue = false;
+                    sub.lastSeq = batch.lastSeq();
+                } catch (IOException | IllegalStateException e) {
+                    close(sub);
+                } finally {
+                    stopSending(sub);
+                }
+                if (sub.closed) {
+                    // отключён, пока висела отправка
+                    close(sub);
+                }
+            }
+            sub.scheduled.set(false);
+        }
+        // События, пришедшие во время отправки, — отдельной задачей в конец очереди
+        if (sub.dirty && !sub.closed) {
+            schedule(sub);
+        }
+    }
+
+    private void startSending(Subscriber sub) {
+        sub.sendingSince = System.nanoTime();
+    }
+
+    private synchronized void stopSending(Subscriber sub) {
+        sub.sendingSince = 0;
+        if (sub.stuck) {
+            sub.stuck = false;
+            extraThreads--;
+            senders.setCorePoolSize(threads + extraThreads);
+            senders.setMaximumPoolSize(threads + extraThreads);
+        }
+    }
+
+    // Отправка висит: подписчика из рассылки вон, пулу — поток взамен занятого
+    private synchronized void dropStuck(Subscriber sub) {
+        if (sub.sendingSince == 0 || sub.stuck) {
+            return;
+        }
+        forget(sub);
+        if (extraThreads < threads * MAX_EXTRA_PER_THREAD) {
+            sub.stuck = true;
+            extraThreads++;
+            senders.setMaximumPoolSize(threads + extraThreads);
+            senders.setCorePoolSize(threads + extraThreads);
+        }
+    }
+
+    private void sendReset(Subscriber sub, long seq) throws IOException {
+        sub.emitter.send(SseEmitter.event().name("reset").id(eventId(seq)).data(Map.of("seq", seq)));
+        sub.lastSeq = seq;
+    }
+
+    private void forget(Subscriber sub) {
+        sub.closed = true;
+        subscribers.remove(sub);
+    }
+
+    private void close(Subscriber sub) {
+        forget(sub);
+        try {
+            sub.emitter.complete();
+        } catch (IllegalStateException ignored) {
+            // уже закрыт
+        }
+    }
+
+    private String eventId(long seq) {
+        return changes.epoch() + "-" + seq;
+    }
+
+    /** seq из Last-Event-ID; null — id чужой эпохи или мусор. */
+    private Long seqOf(String lastEventId) {
+        int dash = lastEventId.indexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(String.valueOf(changes.epoch()))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        changes.removeListener(this);
+        for (Subscriber sub : subscribers) {
+            close(sub);
+        }
+        senders.shutdownNow();
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final TrackedTable table;
+        // Задача подписчика в очереди или выполняется
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        // Были события после начала последнего drain
+        volatile boolean dirty;
+        volatile boolean pingDue;
+        volatile boolean closed;
+        // System.nanoTime() начала текущей отправки, 0 — не отправляем
+        volatile long sendingSince;
+        // Отключён как зависший, за ним числится добавленный поток; под ChangeFeed.this
+        boolean stuck;
+        long lastSeq;
+
+        Subscriber(SseEmitter emitter, TrackedTable table, long lastSeq) {
+            this.emitter = emitter;
+            this.table = table;
+            this.lastSeq = lastSeq;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.autoservice.change;
+
+/**
+ * Подписчик ChangeTracker: вызывается после коммита, в потоке писателя,
+ * так что должен быть быстрым. Порядок вызовов из разных потоков не
+ * гарантирован — для упорядоченного чтения есть seq и changesSince.
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    void onChange(ChangeEvent event);
+}
@@ -0,0 +1,152 @@
+package com.autoservice.change;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Журнал изменений клиентов и заказов в памяти: кольцевой буфер последних
+ * событий плюс версия каждой таблицы (seq последнего изменения в ней).
+ * Позволяет читателям забирать только изменившиеся строки, а подписчикам
+ * (ChangeListener) — узнавать об изменениях сразу, без опроса.
+ * Видит только записи, сделанные через этот процесс.
+ */
+@Component
+public class ChangeTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeTracker.class);
+
+    // Момент старта процесса: seq после рестарта снова идут с 1, и версии
+    // из прошлой жизни (например, в Last-Event-ID у подписчиков ленты) не должны совпасть с новыми
+    private final long epoch = System.currentTimeMillis();
+    private final ChangeEvent[] ring;
+    private long nextSeq = 1;
+    // seq последнего reset(): события до него читателям больше не отдаются
+    private long resetSeq;
+    private final Map<TrackedTable, Long> versions = new EnumMap<>(TrackedTable.class);
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<TableWriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
+    public ChangeTracker(@Value("${autoservice.changes.capacity:10000}") int capacity) {
+        this.ring = new ChangeEvent[capacity];
+        for (TrackedTable t : TrackedTable.values()) {
+            versions.put(t, 0L);
+        }
+    }
+
+    /**
+     * Записывает изменение. Внутри транзакции — только после коммита,
+     * чтобы читатели не увидели откатившиеся записи. TableWriteListener'ы
+     * вызываются сразу, в транзакции писателя.
+     */
+    public void record(TrackedTable table, ChangeType type, int id) {
+        for (TableWriteListener listener : writeListeners) {
+            listener.onWrite(table);
+        }
+        replay(table, type, id);
+    }
+
+    /**
+     * Как record, но без TableWriteListener'ов: для изменений, сделанных не этим
+     * процессом (лента сервера у консоли --cli) — они уже учтены там, где сделаны.
+     */
+    public void replay(TrackedTable table, ChangeType type, int id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(table, type, id);
+                }
+            });
+        } else {
+            publish(table, type, id);
+        }
+    }
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addWriteListener(TableWriteListener listener) {
+        writeListeners.add(listener);
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    /** seq последнего изменения в таблице; 0 — изменений не было. */
+    public synchronized long version(TrackedTable table) {
+        return versions.get(table);
+    }
+
+    /** seq последнего события вообще. */
+    public synchronized long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    /**
+     * Часть изменений прошла мимо журнала (например, пропуск в ленте сервера у консоли --cli):
+     * версии всех таблиц растут, а читатели с seq до этого момента получают неполный
+     * ChangeBatch и перечитывают данные целиком.
+     */
+    public synchronized void reset() {
+        resetSeq = nextSeq++;
+        for (TrackedTable t : TrackedTable.values()) {
+            versions.put(t, resetSeq);
+        }
+    }
+
+    /** События таблицы (или всех таблиц, если table == null) с seq > afterSeq. */
+    public synchronized ChangeBatch changesSince(long afterSeq, TrackedTable table) {
+        long last = nextSeq - 1;
+        long oldest = Math.max(Math.max(1, nextSeq - ring.length), resetSeq + 1);
+        boolean complete = afterSeq + 1 >= oldest;
+        List<ChangeEvent> events = new ArrayList<>();
+        for (long seq = Math.max(afterSeq + 1, oldest); seq <= last; seq++) {
+            ChangeEvent e = ring[slot(seq)];
+            if (table == null || e.table() == table) {
+                events.add(e);
+            }
+        }
+        return new ChangeBatch(events, complete, last);
+    }
+
+    private void publish(TrackedTable table, ChangeType type, int id) {
+        ChangeEvent event = append(table, type, id);
+        // Подписчики — вне блокировки буфера: медленный не задержит других писателей
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                log.warn("Подписчик изменений упал на событии {}", event, e);
+            }
+        }
+    }
+
+    private synchronized ChangeEvent append(TrackedTable table, ChangeType type, int id) {
+        long seq = nextSeq++;
+        ChangeEvent event = new ChangeEvent(seq, table, type, id, Instant.now());
+        ring[slot(seq)] = event;
+        versions.put(table, seq);
+        return event;
+    }
+
+    private int slot(long seq) {
+        return (int) ((seq - 1) % ring.length);
+    }
+}
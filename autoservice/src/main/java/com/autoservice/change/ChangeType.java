@@ -0,0 +1,7 @@
+package com.autoservice.change;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,266 @@
+package com.autoservice.change;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Версии таблиц, общие для всех экземпляров сервера (таблица table_versions, см. schema.sql).
+ * Писатель прибавляет единицу в той же транзакции, что и данные, — перед самым коммитом,
+ * в одной из SHARDS строк таблицы: параллельные записи почти не ждут друг друга, а новая
+ * версия становится видна ровно вместе с данными. Версия таблицы — сумма по строкам.
+ *
+ * Читатели (ETag'и) берут версии из памяти, без запросов к БД: копию раз в poll обновляет
+ * фоновый поток, а после коммита своей записи — сразу. Пока своя запись коммитится или
+ * копия ещё не перечитана после неё, версия таблицы неизвестна (current пуст) — ETag'и
+ * в это время не совпадают ни с одним выданным. Записи соседних экземпляров видны
+ * с опозданием до poll.
+ *
+ * Вместе с версией хранится позиция WAL основной БД, при которой она уже была видна:
+ * реплика, применившая WAL до неё, отдаст данные не старше этой версии.
+ */
+@Component
+@Lazy(false) // и у консоли: её записи тоже должны сдвигать версии
+public class TableVersions implements TableWriteListener, SmartLifecycle {
+
+    /** Позиция WAL и значение версии таблицы; value растёт с каждым коммитом записи в неё. */
+    public record Version(long value, long lsn) {
+    }
+
+    static final int SHARDS = 8;
+
+    private static final Logger log = LoggerFactory.getLogger(TableVersions.class);
+
+    static final String BUMP_SQL =
+            "UPDATE table_versions SET version = version + 1 WHERE table_name = ? AND shard = ?";
+    // pg_current_wal_lsn() вычисляется после снимка запроса: все видимые в нём коммиты — не позже
+    static final String READ_SQL = "SELECT table_name, sum(version) AS version,"
+            + " (pg_current_wal_lsn() - '0/0')::bigint AS lsn FROM table_versions GROUP BY table_name";
+
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate primary;
+    private final long pollMillis;
+
+    private volatile Map<TrackedTable, Version> versions = Map.of();
+    // Транзакции записи в таблицу между beforeCommit и завершением
+    private final AtomicIntegerArray committing = new AtomicIntegerArray(TrackedTable.values().length);
+    // Номер последнего начатого перечитывания на момент коммита записи в таблицу
+    private final AtomicLongArray committedAt = new AtomicLongArray(TrackedTable.values().length);
+    private final AtomicLong refreshes = new AtomicLong();
+    // Номер последнего удачного перечитывания: копия учитывает все коммиты до его начала
+    private volatile long settled;
+    private boolean failing;
+
+    private ScheduledExecutorService poller;
+
+    /**
+     * jdbc — в транзакции писателя (через маршрутизацию, она отдаёт соединение транзакции);
+     * primaryDataSource — для перечитывания: версии всегда с основной, мимо реплик.
+     */
+    @Autowired
+    public TableVersions(ChangeTracker changes, JdbcTemplate jdbc, HikariDataSource primaryDataSource,
+                         @Value("${autoservice.changes.versions.poll:100ms}") Duration poll) {
+        this(changes, jdbc, new JdbcTemplate(primaryDataSource), poll);
+    }
+
+    TableVersions(ChangeTracker changes, JdbcTemplate jdbc, JdbcTemplate primary, Duration poll) {
+        this.jdbc = jdbc;
+        this.primary = primary;
+        this.pollMillis = poll.toMillis();
+        changes.addWriteListener(this);
+    }
+
+    /**
+     * Версия таблицы из памяти. Пусто — сейчас неизвестна: своя запись в неё ещё
+     * коммитится или не перечитана, либо версии ещё ни разу не прочитаны.
+     */
+    public Optional<Version> current(TrackedTable table) {
+        int i = table.ordinal();
+        if (committing.get(i) > 0 || committedAt.get(i) >= settled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(versions.get(table));
+    }
+
+    @Override
+    public void onWrite(TrackedTable table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Запись уже закоммичена сама; сдвигаем отдельным оператором
+            Set<TrackedTable> tables = EnumSet.of(table);
+            beginCommit(tables);
+            try {
+                bump(primary, tables);
+            } finally {
+                endCommit(tables, true);
+            }
+            return;
+        }
+        TxTables tx = (TxTables) TransactionSynchronizationManager.getResource(this);
+        if (tx == null) {
+            tx = new TxTables();
+            TransactionSynchronizationManager.bindResource(this, tx);
+            TransactionSynchronizationManager.registerSynchronization(tx);
+        }
+        tx.tables.add(table);
+    }
+
+    /** Таблицы, записанные в текущей транзакции: сдвигаются одним заходом перед коммитом. */
+    private class TxTables implements TransactionSynchronization {
+        final Set<TrackedTable> tables = EnumSet.noneOf(TrackedTable.class);
+        boolean bumped;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            beginCommit(tables);
+            bumped = true;
+            bump(jdbc, tables);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TableVersions.this);
+            if (bumped) {
+                endCommit(tables, status == STATUS_COMMITTED);
+            }
+        }
+    }
+
+    private void beginCommit(Set<TrackedTable> tables) {
+        for (TrackedTable t : tables) {
+            committing.incrementAndGet(t.ordinal());
+        }
+    }
+
+    private void endCommit(Set<TrackedTable> tables, boolean committed) {
+        if (committed) {
+            long mark = refreshes.get();
+            for (TrackedTable t : tables) {
+                committedAt.accumulateAndGet(t.ordinal(), mark, Math::max);
+            }
+        }
+        for (TrackedTable t : tables) {
+            committing.decrementAndGet(t.ordinal());
+        }
+        if (committed) {
+            refreshSoon();
+        }
+    }
+
+    private static void bump(JdbcTemplate jdbc, Set<TrackedTable> tables) {
+        // Одна строка на транзакцию, таблицы в порядке enum: встречные транзакции не зациклятся
+        int shard = ThreadLocalRandom.current().nextInt(SHARDS);
+        for (TrackedTable t : tables) {
+            if (jdbc.update(BUMP_SQL, name(t), shard) != 1) {
+                throw new IllegalStateException("Нет строки версии " + name(t) + "/" + shard
+                        + " в table_versions — прогони db/schema.sql");
+            }
+        }
+    }
+
+    private synchronized void refreshSoon() {
+        if (poller != null) {
+            try {
+                poller.execute(this::refresh);
+            } catch (RejectedExecutionException e) {
+                // останавливаемся: версии больше никто не читает
+            }
+        }
+    }
+
+    /** Перечитывает версии с основной БД; вызывается только из потока poller. */
+    void refresh() {
+        long started = refreshes.incrementAndGet();
+        List<Map<String, Object>> rows;
+        try {
+            rows = primary.queryForList(READ_SQL);
+        } catch (DataAccessException e) {
+            if (!failing) {
+                failing = true;
+                log.warn("Не удалось прочитать версии таблиц, ETag'и изменённых таблиц не совпадут до удачного чтения", e);
+            }
+            return;
+        }
+        failing = false;
+        Map<TrackedTable, Version> next = new EnumMap<>(TrackedTable.class);
+        next.putAll(versions);
+        for (Map<String, Object> row : rows) {
+            TrackedTable table = TrackedTable.valueOf(((String) row.get("table_name")).toUpperCase(Locale.ROOT));
+            long value = ((Number) row.get("version")).longValue();
+            Version old = next.get(table);
+            // Версия только растёт: позицию WAL оставляем от первого чтения этого значения
+            if (old == null || value > old.value()) {
+                next.put(table, new Version(value, ((Number) row.get("lsn")).longValue()));
+            }
+        }
+        versions = next;
+        if (started > settled) {
+            settled = started;
+        }
+    }
+
+    private static String name(TrackedTable table) {
+        return table.name().toLowerCase(Locale.ROOT);
+    }
+
+    // ===== SmartLifecycle =====
+
+    @Override
+    public synchronized void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "table-versions");
+            t.setDaemon(true);
+            return t;
+        });
+        if (pollMillis > 0) {
+            poller.scheduleWithFixedDelay(this::refresh, 0, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        poller.shutdownNow();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        poller = null;
+    }
+
+    @Override
+    public int getPhase() {
+        // Раньше веб-сервера: первые же запросы получают ETag'и
+        return DEFAULT_PHASE - 2048;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return poller != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.autoservice.change;
+
+/**
+ * Подписчик ChangeTracker на сами записи: вызывается из record() сразу, в потоке
+ * и транзакции писателя, до коммита — чтобы можно было дописать что-то в ту же
+ * транзакцию. Исключение откатывает запись. Пересказы чужих изменений (replay)
+ * сюда не приходят.
+ */
+@FunctionalInterface
+public interface TableWriteListener {
+
+    void onWrite(TrackedTable table);
+}
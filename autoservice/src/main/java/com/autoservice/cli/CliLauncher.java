@@ -0,0 +1,68 @@
+package com.autoservice.cli;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Запуск --cli: меню печатается сразу после старта JVM, а контекст (JPA, Hikari,
+ * запрос первой страницы) поднимается в фоне, пока пользователь выбирает пункт.
+ * Выбор передаётся CliRunner, когда контекст готов. Контекст не поднялся —
+ * процесс завершается, как и при обычном запуске; spring.context.exit=onRefresh
+ * (пробный запуск scripts/cli-cds.sh) — тоже, с кодом 0.
+ */
+public final class CliLauncher {
+
+    /** Свойство для CliRunner: первый промпт уже показан, цикл меню запустит CliLauncher. */
+    static final String EARLY_PROMPT = "autoservice.cli.early-prompt";
+
+    private static final String STARTUP_REPORT = "--autoservice.cli.startup-report=true";
+
+    private CliLauncher() {
+    }
+
+    public static void run(String[] args, Function<String[], ConfigurableApplicationContext> start) {
+        CliRunner.printFirstPrompt();
+        if (Arrays.asList(args).contains(STARTUP_REPORT)) {
+            System.out.println("Первый промпт через " + ManagementFactory.getRuntimeMXBean().getUptime()
+                    + " мс после старта JVM");
+        }
+        System.out.print(">>> ");
+
+        String[] contextArgs = Arrays.copyOf(args, args.length + 1);
+        contextArgs[args.length] = "--" + EARLY_PROMPT + "=true";
+        CompletableFuture<ConfigurableApplicationContext> context = new CompletableFuture<>();
+        Thread starter = new Thread(() -> {
+            try {
+                context.complete(start.apply(contextArgs));
+            } catch (SpringApplication.AbandonedRunException e) {
+                System.exit(0);
+            } catch (RuntimeException | Error e) {
+                // Причину уже напечатал SpringApplication
+                System.exit(1);
+            }
+        }, "cli-context");
+        starter.start();
+
+        Scanner in = new Scanner(System.in);
+        if (!in.hasNextLine()) {
+            // Ввода нет (пробный запуск cli-cds.sh с </dev/null): только поднять контекст
+            context.join().close();
+            return;
+        }
+        String choice = in.nextLine().trim();
+        if (choice.equals("0")) {
+            System.out.println("Выход. До связи 👋");
+            System.exit(0);
+        }
+        if (!context.isDone()) {
+            System.out.println("Подключаюсь к БД...");
+        }
+        context.join().getBeanProvider(CliRunner.class).ifAvailable(cli -> cli.resume(in, choice));
+    }
+}
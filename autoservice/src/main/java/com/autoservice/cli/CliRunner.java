@@ -1,70 +1,189 @@
 package com.autoservice.cli;
 
+import com.autoservice.change.ChangeListener;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.config.ReadRouting;
+import com.autoservice.dto.DuplicateMatch;
 import com.autoservice.entity.Client;
 import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
 import com.autoservice.service.ClientService;
+import com.autoservice.service.ConflictException;
 import com.autoservice.service.OrderService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.util.*;
 
+// autoservice.cli.enabled=false — поднять контекст без консоли (бенчмарки, чистый REST)
 @Component
+@ConditionalOnProperty(name = "autoservice.cli.enabled", havingValue = "true", matchIfMissing = true)
 public class CliRunner implements CommandLineRunner {
 
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = ClientService.DEFAULT_SEARCH_LIMIT;
+
     private final ClientService clientService;
     private final OrderService orderService;
+    private final ChangeTracker changes;
+
+    // CliLauncher уже читает System.in своим Scanner'ом и передаёт его в resume
+    private Scanner scanner = new Scanner(System.in);
 
-    private final Scanner scanner = new Scanner(System.in);
+    // Время от старта JVM до первого промпта — для scripts/cli-startup-bench.sh
+    private boolean startupReport;
+    // Консоль рядом с сервером (--cli) только читает: её записи прошли бы мимо
+    // ChangeTracker, кэша клиентов, индексов, остатков и очередей сервера
+    private final boolean readOnly;
+    // Первый промпт показал CliLauncher до старта контекста — цикл запускает он, а не run()
+    private final boolean earlyPrompt;
 
     private enum WatchedTable {
         CLIENTS,
         ORDERS
     }
 
-    private final EnumSet<WatchedTable> watchedTables = EnumSet.of(WatchedTable.CLIENTS);
+    private static final Set<WatchedTable> DEFAULT_WATCHED = EnumSet.of(WatchedTable.CLIENTS);
+
+    private final EnumSet<WatchedTable> watchedTables = EnumSet.copyOf(DEFAULT_WATCHED);
 
-    public CliRunner(ClientService clientService, OrderService orderService) {
+    // Окна таблиц: держат одну страницу и дочитывают только изменения
+    private final PagedTableView<Client> clientsView;
+    private final PagedTableView<Order> ordersView;
+
+    public CliRunner(ClientService clientService, OrderService orderService, ChangeTracker changes,
+                     @Value("${autoservice.cli.startup-report:false}") boolean startupReport,
+                     @Value("${autoservice.cli.read-only:false}") boolean readOnly,
+                     @Value("${" + CliLauncher.EARLY_PROMPT + ":false}") boolean earlyPrompt) {
         this.clientService = clientService;
         this.orderService = orderService;
+        this.changes = changes;
+        // При раннем промпте время до него печатает CliLauncher
+        this.startupReport = startupReport && !earlyPrompt;
+        this.readOnly = readOnly;
+        this.earlyPrompt = earlyPrompt;
+        this.clientsView = new PagedTableView<>(TrackedTable.CLIENTS, changes,
+                clientService::getClientsPage, clientService::getClientsByIds, Client::getId, PAGE_SIZE);
+        this.ordersView = new PagedTableView<>(TrackedTable.ORDERS, changes,
+                orderService::getOrdersPage, orderService::getOrdersByIds, Order::getId, PAGE_SIZE);
     }
 
     @Override
     public void run(String... args) {
+        if (earlyPrompt) {
+            return;
+        }
+        printHeader();
+        printReadOnlyNotice();
+        loop(null);
+    }
+
+    /**
+     * Продолжение после CliLauncher: он уже показал меню и прочитал первый выбор,
+     * пока поднимался контекст.
+     */
+    void resume(Scanner in, String firstChoice) {
+        this.scanner = in;
+        printReadOnlyNotice();
+        loop(firstChoice);
+    }
+
+    /** Шапка и меню для CliLauncher, до старта контекста: таблиц ещё нет. */
+    static void printFirstPrompt() {
+        printHeader();
+        System.out.println("Таблицы загружаются, пока выбираешь пункт меню.");
+        printMainMenu(DEFAULT_WATCHED);
+    }
+
+    private static void printHeader() {
         System.out.println("=== Autoservice CLI (Spring Boot) ===");
         System.out.println("Ништяк, прога запущена. Работай, родной.\n");
+    }
 
-        boolean running = true;
-        while (running) {
-            printWatchedTables();
-            printMainMenu();
-            String choice = readLine(">>> ");
+    private void printReadOnlyNotice() {
+        if (readOnly) {
+            System.out.println("Режим только для чтения: данные меняй через сервер (REST API).\n");
+        }
+    }
 
-            switch (choice) {
-                case "1" -> manageClients();
-                case "2" -> manageOrders();
-                case "3" -> configureWatchedTables();
-                case "0" -> {
-                    System.out.println("Выход. До связи 👋");
-                    running = false;
+    private void loop(String pending) {
+        // Весь сеанс — одна сессия чтения: после своей записи консоль не читает с отставшей реплики
+        try (ReadRouting.Scope session = ReadRouting.open(0)) {
+            boolean running = true;
+            while (running) {
+                String choice = pending;
+                pending = null;
+                if (choice == null) {
+                    printWatchedTables();
+                    printMainMenu(watchedTables);
+                    if (startupReport) {
+                        startupReport = false;
+                        System.out.println("Первый промпт через " + ManagementFactory.getRuntimeMXBean().getUptime()
+                                + " мс после старта JVM");
+                    }
+                    choice = readLine(">>> ");
+                }
+
+                switch (choice) {
+                    case "1" -> manageClients();
+                    case "2" -> manageOrders();
+                    case "3" -> configureWatchedTables();
+                    case "4" -> followChanges();
+                    case "cn" -> clientsView.next();
+                    case "cp" -> clientsView.previous();
+                    case "on" -> ordersView.next();
+                    case "op" -> ordersView.previous();
+                    case "0" -> {
+                        System.out.println("Выход. До связи 👋");
+                        running = false;
+                    }
+                    default -> System.out.println("Не понял выбор, попробуй ещё.");
                 }
-                default -> System.out.println("Не понял выбор, попробуй ещё.");
             }
         }
     }
 
     // ===== Основное меню =====
 
-    private void printMainMenu() {
+    private static void printMainMenu(Set<WatchedTable> watchedTables) {
         System.out.println();
         System.out.println("Главное меню:");
         System.out.println("  1) Клиенты");
         System.out.println("  2) Заказы (простая форма)");
         System.out.println("  3) Настроить отображаемые таблицы");
+        System.out.println("  4) Живая лента изменений");
+        if (watchedTables.contains(WatchedTable.CLIENTS)) {
+            System.out.println("  cn / cp) Клиенты: следующая / предыдущая страница");
+        }
+        if (watchedTables.contains(WatchedTable.ORDERS)) {
+            System.out.println("  on / op) Заказы: следующая / предыдущая страница");
+        }
         System.out.println("  0) Выход");
     }
 
+    // ===== Лента изменений =====
+
+    /**
+     * Подписка на ChangeTracker: изменения печатаются сразу по мере коммитов,
+     * без перечитывания таблиц. Enter — вернуться в меню.
+     */
+    private void followChanges() {
+        System.out.println("\n=== Лента изменений (Enter — выход) ===");
+        ChangeListener printer = e -> System.out.printf("  #%d %s %s id=%d%n",
+                e.seq(), e.table(), e.type(), e.id());
+        changes.addListener(printer);
+        try {
+            readLine("");
+        } finally {
+            changes.removeListener(printer);
+        }
+    }
+
     // ===== Отображение таблиц =====
 
     private void printWatchedTables() {
@@ -80,8 +199,8 @@ public class CliRunner implements CommandLineRunner {
     }
 
     private void printClientsTable() {
-        List<Client> clients = clientService.getAllClients();
-        System.out.println("Таблица: clients");
+        List<Client> clients = clientsView.rows();
+        System.out.println("Таблица: clients" + pageInfo(clientsView));
         if (clients.isEmpty()) {
             System.out.println("  (пока пусто)");
             return;
@@ -100,8 +219,8 @@ public class CliRunner implements CommandLineRunner {
     }
 
     private void printOrdersTable() {
-        List<Order> orders = orderService.getAllOrders();
-        System.out.println("Таблица: orders");
+        List<Order> orders = ordersView.rows();
+        System.out.println("Таблица: orders" + pageInfo(ordersView));
         if (orders.isEmpty()) {
             System.out.println("  (пока пусто)");
             return;
@@ -113,12 +232,19 @@ public class CliRunner implements CommandLineRunner {
             System.out.printf("  %-4d | %-8d | %-10s | %-19s | %-10s%n",
                     o.getId(),
                     o.getClientId(),
-                    safe(o.getStatus()),
+                    o.getStatus(),
                     o.getCreatedAt(),
                     o.getTotalCost() == null ? "-" : o.getTotalCost().toPlainString());
         }
     }
 
+    private String pageInfo(PagedTableView<?> view) {
+        return " (стр. " + view.pageNumber()
+                + (view.hasPrevious() ? ", есть предыдущая" : "")
+                + (view.hasNext() ? ", есть следующая" : "")
+                + ")";
+    }
+
     private String safe(String s) {
         return s == null ? "-" : s;
     }
@@ -177,6 +303,9 @@ public class CliRunner implements CommandLineRunner {
 
     private void addClientFlow() {
         System.out.println("\n=== Добавление клиента ===");
+        if (refuseWrite()) {
+            return;
+        }
         String fullName = readNonEmptyOrDash("ФИО (обязательно, '-' не принимается): ", false);
         String phone = readNonEmptyOrDash("Телефон (можно '-', если не знаешь): ", true);
         String email = readNonEmptyOrDash("Email (можно '-'): ", true);
@@ -188,18 +317,36 @@ public class CliRunner implements CommandLineRunner {
         c.setEmail("-".equals(email) ? null : email);
         c.setNotes("-".equals(notes) ? null : notes);
 
-        Client saved = clientService.createClient(c);
+        Client saved;
+        try {
+            saved = clientService.createClient(c);
+        } catch (ConflictException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
         System.out.println("Клиент создан, id=" + saved.getId());
+        for (DuplicateMatch m : clientService.findDuplicates(saved)) {
+            System.out.println("  похож на id=" + m.clientId() + " " + m.reasons());
+        }
     }
 
     private void deleteClientFlow() {
         System.out.println("\n=== Удаление клиента ===");
+        if (refuseWrite()) {
+            return;
+        }
         Integer id = readIntOrNull("ID клиента (или '-' для отмены): ");
         if (id == null) {
             System.out.println("Отмена удаления.");
             return;
         }
-        boolean ok = clientService.deleteClientById(id);
+        boolean ok;
+        try {
+            ok = clientService.deleteClientById(id);
+        } catch (ConflictException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
         if (ok) {
             System.out.println("Клиент с id=" + id + " удалён.");
         } else {
@@ -218,11 +365,11 @@ public class CliRunner implements CommandLineRunner {
         switch (choice) {
             case "1" -> {
                 String q = readLine("Введите часть имени: ");
-                result = clientService.searchByName(q);
+                result = clientService.search(q, null, SEARCH_LIMIT + 1);
             }
             case "2" -> {
                 String q = readLine("Введите часть телефона: ");
-                result = clientService.searchByPhone(q);
+                result = clientService.search(null, q, SEARCH_LIMIT + 1);
             }
             case "0" -> {
                 return;
@@ -233,7 +380,15 @@ public class CliRunner implements CommandLineRunner {
             }
         }
 
-        System.out.println("Найдено: " + result.size());
+        // Лишняя запись запрошена только чтобы знать, что показано не всё
+        boolean truncated = result.size() > SEARCH_LIMIT;
+        if (truncated) {
+            result = result.subList(0, SEARCH_LIMIT);
+            System.out.println("Найдено больше " + SEARCH_LIMIT + ", показаны лучшие " + SEARCH_LIMIT
+                    + " — уточни запрос");
+        } else {
+            System.out.println("Найдено: " + result.size());
+        }
         for (Client c : result) {
             System.out.printf("  id=%d | %s | %s | %s%n",
                     c.getId(),
@@ -250,10 +405,12 @@ public class CliRunner implements CommandLineRunner {
         while (!back) {
             System.out.println("\nМеню заказов:");
             System.out.println("  1) Создать новый заказ (простая форма)");
+            System.out.println("  2) Сменить статус заказа");
             System.out.println("  0) Назад");
             String choice = readLine(">>> ");
             switch (choice) {
                 case "1" -> createOrderFlow();
+                case "2" -> changeOrderStatusFlow();
                 case "0" -> back = true;
                 default -> System.out.println("Не понял выбор.");
             }
@@ -262,6 +419,9 @@ public class CliRunner implements CommandLineRunner {
 
     private void createOrderFlow() {
         System.out.println("\n=== Создание заказа ===");
+        if (refuseWrite()) {
+            return;
+        }
 
         // 1. Выбор клиента
         Integer clientId;
@@ -286,19 +446,18 @@ public class CliRunner implements CommandLineRunner {
                 Статус заказа (подсказка):
                   CREATED      — создан
                   IN_PROGRESS  — в работе
-                  DONE         — выполнен
-                  CANCELED     — отменён
                 """);
-        String status;
+        OrderStatus status;
         while (true) {
-            status = readLine("Статус (по умолчанию CREATED, можно '-' для CREATED): ").trim();
-            if (status.isEmpty() || "-".equals(status)) {
-                status = "CREATED";
+            String input = readLine("Статус (по умолчанию CREATED, можно '-' для CREATED): ").trim();
+            if (input.isEmpty() || "-".equals(input)) {
+                input = "CREATED";
             }
-            if (List.of("CREATED", "IN_PROGRESS", "DONE", "CANCELED").contains(status)) {
+            status = parseStatus(input);
+            if (status != null && status.isInitial()) {
                 break;
             }
-            System.out.println("Неверный статус. Допустимые: CREATED, IN_PROGRESS, DONE, CANCELED.");
+            System.out.println("Неверный статус. Для нового заказа допустимы: CREATED, IN_PROGRESS.");
         }
 
         // 3. Пример простой "стоимости"
@@ -325,8 +484,61 @@ public class CliRunner implements CommandLineRunner {
         System.out.println("Заказ создан, id=" + order.getId());
     }
 
+    private void changeOrderStatusFlow() {
+        System.out.println("\n=== Смена статуса заказа ===");
+        if (refuseWrite()) {
+            return;
+        }
+        Integer orderId = readIntOrNull("ID заказа (или '-' для отмены): ");
+        if (orderId == null) {
+            System.out.println("Отмена.");
+            return;
+        }
+        var orderOpt = orderService.getOrderById(orderId);
+        if (orderOpt.isEmpty()) {
+            System.out.println("Нет заказа с таким ID.");
+            return;
+        }
+        OrderStatus current = orderOpt.get().getStatus();
+        if (current.isTerminal()) {
+            System.out.println("Заказ уже " + current.title() + ", статус больше не меняется.");
+            return;
+        }
+        System.out.println("Сейчас: " + current + " — " + current.title());
+        for (OrderStatus next : current.allowedNext()) {
+            System.out.println("  " + next + " — " + next.title());
+        }
+        OrderStatus next = parseStatus(readLine("Новый статус: "));
+        if (next == null || !current.canTransitionTo(next)) {
+            System.out.println("Такой переход недопустим.");
+            return;
+        }
+        try {
+            orderService.changeStatus(orderId, next);
+            System.out.println("Статус заказа " + orderId + " теперь " + next + ".");
+        } catch (ConflictException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private boolean refuseWrite() {
+        if (readOnly) {
+            System.out.println("Консоль запущена только для чтения (autoservice.cli.read-only): "
+                    + "сервер не узнал бы об этой записи. Сделай её через сервер.");
+        }
+        return readOnly;
+    }
+
     // ===== Хелперы ввода =====
 
+    private OrderStatus parseStatus(String input) {
+        try {
+            return OrderStatus.valueOf(input.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private String readLine(String prompt) {
         System.out.print(prompt);
         String line = scanner.nextLine();
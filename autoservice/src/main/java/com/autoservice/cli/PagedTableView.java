@@ -0,0 +1,170 @@
+package com.autoservice.cli;
+
+import com.autoservice.change.ChangeBatch;
+import com.autoservice.change.ChangeEvent;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.CursorPage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Окно таблицы для CLI: в памяти лежит только текущая страница.
+ * Перед отрисовкой сверяется с ChangeTracker: если таблица не менялась —
+ * в БД не ходим вовсе, если менялась — дочитываем только изменённые строки.
+ */
+final class PagedTableView<T> {
+
+    private final TrackedTable table;
+    private final ChangeTracker changes;
+    private final BiFunction<Integer, Integer, CursorPage<T>> pageLoader;
+    private final Function<Collection<Integer>, List<T>> byIds;
+    private final Function<T, Integer> idOf;
+    private final int pageSize;
+
+    private final TreeMap<Integer, T> rows = new TreeMap<>();
+    private final Deque<Integer> previousStarts = new ArrayDeque<>();
+    private int pageAfter = 0;
+    private int pageNumber = 1;
+    private boolean hasNext;
+    private boolean loaded;
+    private long seenSeq;
+
+    PagedTableView(TrackedTable table,
+                   ChangeTracker changes,
+                   BiFunction<Integer, Integer, CursorPage<T>> pageLoader,
+                   Function<Collection<Integer>, List<T>> byIds,
+                   Function<T, Integer> idOf,
+                   int pageSize) {
+        this.table = table;
+        this.changes = changes;
+        this.pageLoader = pageLoader;
+        this.byIds = byIds;
+        this.idOf = idOf;
+        this.pageSize = pageSize;
+    }
+
+    List<T> rows() {
+        refresh();
+        return new ArrayList<>(rows.values());
+    }
+
+    int pageNumber() {
+        return pageNumber;
+    }
+
+    boolean hasNext() {
+        return hasNext;
+    }
+
+    boolean hasPrevious() {
+        return !previousStarts.isEmpty();
+    }
+
+    void next() {
+        if (!hasNext || rows.isEmpty()) {
+            return;
+        }
+        previousStarts.push(pageAfter);
+        pageAfter = rows.lastKey();
+        pageNumber++;
+        reload();
+    }
+
+    void previous() {
+        if (previousStarts.isEmpty()) {
+            return;
+        }
+        pageAfter = previousStarts.pop();
+        pageNumber--;
+        reload();
+    }
+
+    private void refresh() {
+        if (!loaded) {
+            reload();
+            return;
+        }
+        if (changes.version(table) <= seenSeq) {
+            return;
+        }
+        ChangeBatch batch = changes.changesSince(seenSeq, table);
+        if (!batch.complete()) {
+            // Пропустили часть журнала — проще перечитать страницу
+            reload();
+            return;
+        }
+
+        // Интересны только id внутри окна; если страница последняя — и всё, что правее
+        Integer upper = hasNext ? rows.lastKey() : null;
+        Map<Integer, ChangeType> lastChange = new HashMap<>();
+        for (ChangeEvent e : batch.events()) {
+            if (e.id() > pageAfter && (upper == null || e.id() <= upper)) {
+                lastChange.put(e.id(), e.type());
+            }
+        }
+        seenSeq = batch.lastSeq();
+        if (lastChange.isEmpty()) {
+            return;
+        }
+
+        // Удалённые просто выкидываем, читаем из БД только созданные/изменённые
+        Set<Integer> toFetch = new TreeSet<>();
+        lastChange.forEach((id, type) -> {
+            if (type == ChangeType.DELETED) {
+                rows.remove(id);
+            } else {
+                toFetch.add(id);
+            }
+        });
+        if (!toFetch.isEmpty()) {
+            Map<Integer, T> fresh = new HashMap<>();
+            for (T row : byIds.apply(toFetch)) {
+                fresh.put(idOf.apply(row), row);
+            }
+            for (Integer id : toFetch) {
+                T row = fresh.get(id);
+                if (row == null) {
+                    rows.remove(id);
+                } else {
+                    rows.put(id, row);
+                }
+            }
+        }
+
+        if (rows.size() > pageSize) {
+            while (rows.size() > pageSize) {
+                rows.pollLastEntry();
+            }
+            hasNext = true;
+        } else if (hasNext && rows.size() < pageSize) {
+            // После удалений на странице дырка, а дальше есть строки — добираем
+            reload();
+        }
+    }
+
+    private void reload() {
+        // seq берём до чтения: всё, что изменится во время чтения, догоним в следующий раз
+        long seq = changes.lastSeq();
+        CursorPage<T> page = pageLoader.apply(pageAfter, pageSize);
+        rows.clear();
+        for (T row : page.items()) {
+            rows.put(idOf.apply(row), row);
+        }
+        hasNext = page.nextCursor() != null;
+        loaded = true;
+        seenSeq = seq;
+    }
+}
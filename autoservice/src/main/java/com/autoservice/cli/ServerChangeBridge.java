@@ -0,0 +1,202 @@
+package com.autoservice.cli;
+
+import com.autoservice.cache.ClientCache;
+import com.autoservice.change.ChangeEvent;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.index.ClientIndexes;
+import com.autoservice.service.OrderArchiveService;
+import com.autoservice.service.PartService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Консоль --cli работает отдельным процессом, и ChangeTracker сервера ей не виден.
+ * Мост читает GET /changes/stream сервера и повторяет события в локальном
+ * ChangeTracker: окна таблиц и живая лента видят записи сервера как свои,
+ * а индексы клиентов и остатки запчастей перечитывают изменённые строки. Сервер недоступен —
+ * переподключаемся раз в RETRY, продолжая с Last-Event-ID. Если сервер уже не помнит
+ * пропущенное (reset), индексы и остатки строятся заново, а журнал сбрасывается —
+ * окна таблиц перечитывают страницы. Удаление заказа на сервере может быть переносом
+ * в архив — тогда границу архива стоит перечитать: своего планировщика у консоли нет.
+ *
+ * Первая подписка ставится до того, как консоль что-то загрузит (start ждёт её до
+ * FIRST_CONNECT): всё загруженное потом уже покрыто лентой с этого места. Не дождались —
+ * загруженное до первой подписки могло пропустить изменения, и при ней всё перечитывается,
+ * как при reset.
+ */
+@Component
+@ConditionalOnProperty(name = "autoservice.cli.server-url")
+class ServerChangeBridge implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerChangeBridge.class);
+    private static final Duration RETRY = Duration.ofSeconds(5);
+    private static final Duration FIRST_CONNECT = Duration.ofSeconds(3);
+
+    private final ChangeTracker changes;
+    private final ClientIndexes indexes;
+    private final ClientCache cache;
+    private final PartService parts;
+    private final OrderArchiveService archive;
+    private final ObjectMapper json;
+    private final URI stream;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private volatile boolean running;
+    private volatile String lastEventId;
+    private final CountDownLatch subscribed = new CountDownLatch(1);
+    // start() не дождался первой подписки
+    private volatile boolean late;
+    private Thread worker;
+
+    ServerChangeBridge(ChangeTracker changes, ClientIndexes indexes, ClientCache cache, PartService parts,
+                       OrderArchiveService archive, ObjectMapper json,
+                       @Value("${autoservice.cli.server-url}") String serverUrl) {
+        this.changes = changes;
+        this.indexes = indexes;
+        this.cache = cache;
+        this.parts = parts;
+        this.archive = archive;
+        this.json = json;
+        this.stream = URI.create(serverUrl.replaceAll("/+$", "") + "/changes/stream");
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                follow();
+            } catch (IOException e) {
+                log.debug("Лента изменений сервера {} недоступна: {}", stream, e.toString());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Thread.sleep(RETRY.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void follow() throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(stream).header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = http.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        try (Stream<String> lines = response.body()) {
+            // Событие SSE — поля "name:value" до пустой строки; комментарии (":ping") пропускаем
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            for (Iterator<String> it = lines.iterator(); it.hasNext() && running; ) {
+                String line = it.next();
+                if (line.isEmpty()) {
+                    if (data.length() > 0) {
+                        dispatch(name, data.toString());
+                    }
+                    if (id != null) {
+                        lastEventId = id;
+                    }
+                    id = null;
+                    name = null;
+                    data.setLength(0);
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                }
+            }
+        }
+    }
+
+    private void dispatch(String name, String data) throws IOException {
+        if ("change".equals(name)) {
+            ChangeEvent e = json.readValue(data, ChangeEvent.class);
+            switch (e.table()) {
+                case CLIENTS -> {
+                    cache.invalidate(e.id());
+                    indexes.refresh(e.id());
+                }
+                case PARTS -> parts.refreshStock(e.id());
+                case ORDERS -> {
+                    // окна заказов дочитают строку сами
+                    if (e.type() == ChangeType.DELETED) {
+                        archive.invalidateHorizon();
+                    }
+                }
+            }
+            // Версию таблицы сервер уже сдвинул сам — только пересказываем окнам консоли
+            changes.replay(e.table(), e.type(), e.id());
+        } else if ("reset".equals(name)) {
+            log.warn("Часть изменений сервера пропущена, перечитываем индексы, остатки и окна таблиц");
+            resync();
+        } else if ("ready".equals(name) && subscribed.getCount() > 0) {
+            if (late) {
+                log.warn("Лента сервера подключилась после старта консоли, перечитываем загруженное");
+                resync();
+            }
+            subscribed.countDown();
+        }
+    }
+
+    private void resync() {
+        cache.clear();
+        indexes.reload();
+        parts.reloadStock();
+        archive.invalidateHorizon();
+        changes.reset();
+    }
+
+    // ===== SmartLifecycle =====
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::loop, "server-changes");
+        // Соединение висит в чтении; процесс консоли не должен его ждать при выходе
+        worker.setDaemon(true);
+        worker.start();
+        try {
+            late = !subscribed.await(FIRST_CONNECT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            late = true;
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
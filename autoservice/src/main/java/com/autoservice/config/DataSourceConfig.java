@@ -0,0 +1,85 @@
+package com.autoservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Основная БД (spring.datasource.*) + реплики для чтения (autoservice.datasource.replicas).
+ * Методы @Transactional(readOnly = true) читают с реплик, которые применили WAL не меньше,
+ * чем требует сессия чтения (ReadRouting): свои записи, версии под ETag'ом, сброшенный кэш.
+ * Запись и чтения, которым ни одна реплика не подходит, — с основной.
+ * Без реплик всё работает как раньше, через primary.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    /** Пулы реплик; закрываются вместе с контекстом. */
+    public static class ReplicaPools implements DisposableBean {
+        private final List<HikariDataSource> pools;
+
+        ReplicaPools(List<HikariDataSource> pools) {
+            this.pools = pools;
+        }
+
+        public List<HikariDataSource> pools() {
+            return pools;
+        }
+
+        @Override
+        public void destroy() {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    public ReplicaPools replicaPools(DataSourceProperties primary, ReplicaProperties properties) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        int n = 1;
+        for (ReplicaProperties.Replica r : properties.replicas()) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("replica-" + n++);
+            ds.setJdbcUrl(r.url());
+            ds.setUsername(r.username() != null ? r.username() : primary.determineUsername());
+            ds.setPassword(r.password() != null ? r.password() : primary.determinePassword());
+            ds.setReadOnly(true);
+            pools.add(ds);
+        }
+        return new ReplicaPools(pools);
+    }
+
+    @Bean
+    public ReplicaLag replicaLag(ReplicaPools replicaPools, ReplicaProperties properties) {
+        return new ReplicaLag(replicaPools.pools(), properties.lagCheck());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPools replicaPools, ReplicaLag replicaLag,
+                                 MeterRegistry registry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicaPools.pools(),
+                replicaLag, registry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,123 @@
+package com.autoservice.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Какие реплики годятся для чтения в этом потоке. Позиции WAL — числа (lsn - '0/0'):
+ * реплика годится, если применила WAL не меньше требуемой позиции (ReplicaRoutingDataSource).
+ *
+ * Требование живёт в сессии чтения (Scope): HTTP-запрос (ReadRoutingFilter, позиция своих
+ * прошлых записей приходит в cookie), сеанс консоли, пачка приёма заказов. Коммит записи
+ * в сессии поднимает требование до позиции этого коммита — дальнейшие чтения видят свою
+ * запись, а чтения других сессий на реплики не влияют. Вне сессии годится любая реплика
+ * с известной позицией. Сессия открывается и закрывается в одном потоке, try-with-resources.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    // Позиция последнего коммита записи через этот процесс в любом потоке
+    private static final AtomicLong LAST_COMMIT = new AtomicLong();
+
+    private ReadRouting() {
+    }
+
+    /** Сессия чтения поверх текущей; закрытие возвращает текущую. */
+    public static Scope open(long requiredLsn) {
+        return open(requiredLsn, null);
+    }
+
+    /** onCommit получает позицию каждого коммита записи в сессии (например, чтобы отдать её клиенту). */
+    public static Scope open(long requiredLsn, LongConsumer onCommit) {
+        Scope scope = new Scope(CURRENT.get(), requiredLsn, onCommit);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** Дальнейшие чтения сессии — не старше позиции lsn. Вне сессии ничего не делает. */
+    public static void requireLsn(long lsn) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.require(lsn);
+        }
+    }
+
+    /** read на реплике не старше lsn (или с primary); требование сессии после read прежнее. */
+    public static <T> T withMinLsn(long lsn, Supplier<T> read) {
+        try (Scope scope = open(lsn)) {
+            return read.get();
+        }
+    }
+
+    /** Позиция последнего коммита записи в текущей сессии; 0 — записей не было. */
+    public static long commitLsn() {
+        Scope scope = CURRENT.get();
+        return scope == null ? 0 : scope.committed;
+    }
+
+    /** Позиция последнего коммита записи через этот процесс; 0 — записей не было. */
+    public static long lastCommitLsn() {
+        return LAST_COMMIT.get();
+    }
+
+    static long requiredLsn() {
+        Scope scope = CURRENT.get();
+        return scope == null ? 0 : scope.required;
+    }
+
+    static void committed(long lsn) {
+        LAST_COMMIT.accumulateAndGet(lsn, Math::max);
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.committed(lsn);
+        }
+    }
+
+    /** Позицию коммита узнать не удалось: сессия до конца читает с primary. */
+    static void commitUnknown() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.require(Long.MAX_VALUE);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final LongConsumer onCommit;
+        private long required;
+        private long committed;
+
+        private Scope(Scope parent, long required, LongConsumer onCommit) {
+            this.parent = parent;
+            this.onCommit = onCommit;
+            this.required = Math.max(required, parent == null ? 0 : parent.required);
+        }
+
+        private void require(long lsn) {
+            required = Math.max(required, lsn);
+        }
+
+        private void committed(long lsn) {
+            committed = Math.max(committed, lsn);
+            require(lsn);
+            if (onCommit != null) {
+                onCommit.accept(lsn);
+            }
+            // Коммит во вложенной сессии — и коммит объемлющей
+            if (parent != null) {
+                parent.committed(lsn);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.autoservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Сессия чтения (ReadRouting) на HTTP-запрос. Позиция WAL последней своей записи
+ * ходит в cookie autoservice-lsn: следующий запрос того же клиента читает с реплики,
+ * только если она уже применила эту запись. Клиенты без cookie видят свои записи
+ * в пределах одного запроса.
+ */
+@Component
+public class ReadRoutingFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "autoservice-lsn";
+
+    /** Set-Cookie с позицией коммита — для ответов, которые уходят не из потока запроса. */
+    public static String cookie(long lsn) {
+        return ResponseCookie.from(COOKIE, Long.toString(lsn)).path("/").httpOnly(true).sameSite("Lax")
+                .build().toString();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (ReadRouting.Scope session = ReadRouting.open(requiredLsn(request), lsn -> {
+            if (!response.isCommitted()) {
+                response.addHeader(HttpHeaders.SET_COOKIE, cookie(lsn));
+            }
+        })) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static long requiredLsn(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie c : cookies) {
+                if (COOKIE.equals(c.getName())) {
+                    try {
+                        return Long.parseLong(c.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
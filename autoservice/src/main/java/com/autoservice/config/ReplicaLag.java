@@ -0,0 +1,86 @@
+package com.autoservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Сколько WAL применила каждая реплика (pg_last_wal_replay_lsn), раз в lag-check.
+ * Позиция только растёт, так что прочитанная — нижняя граница: реплика, применившая
+ * позицию коммита, точно видит этот коммит. Чтения сравнивают её с требованием своей
+ * сессии (ReadRouting). Реплика, которая не отвечает, не годится никому.
+ */
+public class ReplicaLag implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLag.class);
+    static final long UNKNOWN = -1;
+
+    // Указанная "реплика" может оказаться самой основной БД — тогда у неё всё применено
+    private static final String APPLIED_SQL = "SELECT (CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn()"
+            + " ELSE pg_current_wal_lsn() END - '0/0')::bigint";
+
+    private final List<JdbcTemplate> replicas;
+    private final AtomicLongArray applied;
+    private final boolean[] failing;
+    private final ScheduledExecutorService checker;
+
+    public ReplicaLag(List<? extends DataSource> replicas, Duration interval) {
+        this.replicas = replicas.stream().map(JdbcTemplate::new).toList();
+        this.applied = new AtomicLongArray(replicas.size());
+        this.failing = new boolean[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            applied.set(i, UNKNOWN);
+        }
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!replicas.isEmpty() && interval.toMillis() > 0) {
+            checker.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Применённая позиция WAL реплики; UNKNOWN — ещё не знаем или реплика не отвечает. */
+    long applied(int replica) {
+        return applied.get(replica);
+    }
+
+    void update(int replica, long lsn) {
+        applied.set(replica, lsn);
+    }
+
+    private void check() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try {
+                Long lsn = replicas.get(i).queryForObject(APPLIED_SQL, Long.class);
+                update(i, lsn == null ? UNKNOWN : lsn);
+                if (failing[i]) {
+                    failing[i] = false;
+                    log.info("Реплика {} снова отвечает", i + 1);
+                }
+            } catch (DataAccessException e) {
+                update(i, UNKNOWN);
+                if (!failing[i]) {
+                    failing[i] = true;
+                    log.warn("Реплика {} не отвечает, чтения идут мимо неё", i + 1, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        checker.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.autoservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Реплики для чтения: autoservice.datasource.replicas[i].url (+ username/password,
+ * по умолчанию как у основной БД). Пустой список — всё идёт в основную.
+ * lagCheck — как часто перечитывать применённые позиции WAL реплик (ReplicaLag).
+ */
+@ConfigurationProperties("autoservice.datasource")
+public record ReplicaProperties(List<Replica> replicas, Duration lagCheck) {
+
+    public ReplicaProperties {
+        replicas = replicas == null ? List.of() : List.copyOf(replicas);
+        lagCheck = lagCheck == null ? Duration.ofMillis(100) : lagCheck;
+    }
+
+    public record Replica(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.autoservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выбор пула на момент получения соединения: транзакции readOnly = true — по кругу
+ * по репликам, применившим WAL до позиции, которую требует сессия чтения (ReadRouting),
+ * всё остальное — в primary. Подходящих нет — тоже primary: лучше нагрузить основную,
+ * чем вернуть данные старше своей же записи.
+ *
+ * После коммита записи позиция WAL читается с того же соединения и уходит в ReadRouting —
+ * раньше остальных afterCommit, чтобы те (кэши, ответ клиенту) уже её видели.
+ * Работает только под LazyConnectionDataSourceProxy: тот берёт соединение при первом
+ * запросе, когда флаг readOnly транзакции уже выставлен.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String LSN_SQL = "SELECT (pg_current_wal_lsn() - '0/0')::bigint";
+
+    private final DataSource primary;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final ReplicaLag lag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routed = new HashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, ReplicaLag lag,
+                                    MeterRegistry registry) {
+        this.primary = primary;
+        this.lag = lag;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + (i + 1);
+            targets.put(key, replicas.get(i));
+            replicaKeys.add(key);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        for (Object key : targets.keySet()) {
+            routed.put((String) key, registry.counter("autoservice.datasource.route", "target", (String) key));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection con = super.getConnection();
+        // Без реплик позиции коммитов никому не нужны
+        if (!replicaKeys.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new CommitLsn(con));
+        }
+        return con;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = choose();
+        routed.get(key).increment();
+        return key;
+    }
+
+    private String choose() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+        long required = ReadRouting.requiredLsn();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            int replica = Math.floorMod(start + i, replicaKeys.size());
+            long applied = lag.applied(replica);
+            if (applied != ReplicaLag.UNKNOWN && applied >= required) {
+                return replicaKeys.get(replica);
+            }
+        }
+        return PRIMARY;
+    }
+
+    /** Позиция WAL сразу после коммита записи: коммит в ней точно есть. */
+    private final class CommitLsn implements TransactionSynchronization, Ordered {
+
+        private final Connection con;
+
+        CommitLsn(Connection con) {
+            this.con = con;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                ReadRouting.committed(currentLsn(con));
+                return;
+            } catch (SQLException e) {
+                log.debug("Позиция WAL на соединении транзакции не прочиталась, берём новое", e);
+            }
+            // Позиция на другом соединении не меньше — требование лишь чуть строже
+            try (Connection fresh = primary.getConnection()) {
+                ReadRouting.committed(currentLsn(fresh));
+            } catch (SQLException e) {
+                log.warn("Не удалось узнать позицию WAL после коммита, сессия дочитывает с primary", e);
+                ReadRouting.commitUnknown();
+            }
+        }
+
+        private static long currentLsn(Connection con) throws SQLException {
+            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(LSN_SQL)) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.autoservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Фоновые задачи по расписанию (@Scheduled), например перенос заказов в архив.
+ * autoservice.scheduling.enabled=false — задачи не запускаются (консоль --cli рядом с сервером).
+ */
+@Configuration
+@ConditionalOnProperty(name = "autoservice.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+@EnableScheduling
+public class SchedulingConfig {
+}
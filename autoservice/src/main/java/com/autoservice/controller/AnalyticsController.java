@@ -0,0 +1,52 @@
+package com.autoservice.controller;
+
+import com.autoservice.analytics.AnalyticsGroupBy;
+import com.autoservice.analytics.OrderFilter;
+import com.autoservice.dto.AnalyticsReport;
+import com.autoservice.dto.AnalyticsSnapshotInfo;
+import com.autoservice.dto.AnalyticsSort;
+import com.autoservice.entity.OrderStatus;
+import com.autoservice.service.AnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService service;
+
+    public AnalyticsController(AnalyticsService service) {
+        this.service = service;
+    }
+
+    /**
+     * ?groupBy=NONE|STATUS|CLIENT|EMPLOYEE|DAY|MONTH&from=2024-01-01&to=2024-12-31
+     * &status=DONE,IN_PROGRESS&clientId=&employeeId=&sort=KEY|ORDERS|REVENUE&limit=100.
+     * Период по created_at, обе даты включительно; без фильтров — вся история с архивом.
+     */
+    @GetMapping("/orders")
+    public AnalyticsReport orders(@RequestParam(defaultValue = "NONE") AnalyticsGroupBy groupBy,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                  @RequestParam(required = false) List<OrderStatus> status,
+                                  @RequestParam(required = false) Integer clientId,
+                                  @RequestParam(required = false) Integer employeeId,
+                                  @RequestParam(defaultValue = "KEY") AnalyticsSort sort,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        return service.query(OrderFilter.of(from, to, status, clientId, employeeId), groupBy, sort, limit);
+    }
+
+    @GetMapping("/snapshot")
+    public AnalyticsSnapshotInfo snapshot() {
+        return service.getSnapshotInfo();
+    }
+
+    @PostMapping("/snapshot/rebuild")
+    public AnalyticsSnapshotInfo rebuild() {
+        return service.rebuild();
+    }
+}
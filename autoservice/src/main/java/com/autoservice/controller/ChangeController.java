@@ -0,0 +1,32 @@
+package com.autoservice.controller;
+
+import com.autoservice.change.ChangeFeed;
+import com.autoservice.change.TrackedTable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+    private final ChangeFeed feed;
+
+    public ChangeController(ChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Живой поток изменений (text/event-stream) вместо опроса таблиц.
+     * События: ready — подписка открыта; change — {seq, table, type, id, at};
+     * reset — часть событий потеряна, перечитай данные и продолжай отсюда.
+     * ?table=CLIENTS|ORDERS — одна таблица; ?since=seq или заголовок
+     * Last-Event-ID (браузерный EventSource шлёт его сам) — продолжить с места обрыва.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) TrackedTable table,
+                             @RequestParam(required = false) Long since,
+                             @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return feed.subscribe(table, since, lastEventId);
+    }
+}
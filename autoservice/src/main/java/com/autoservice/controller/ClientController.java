@@ -1,28 +1,179 @@
 package com.autoservice.controller;
 
+import com.autoservice.cache.CacheStats;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.ClientDeleteReport;
+import com.autoservice.dto.ClientDeleteRequest;
+import com.autoservice.dto.ClientOrders;
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.DuplicateCluster;
+import com.autoservice.dto.DuplicateMatch;
+import com.autoservice.dto.ImportReport;
 import com.autoservice.entity.Client;
+import com.autoservice.index.PhoneMatch;
+import com.autoservice.service.ClientImportService;
 import com.autoservice.service.ClientService;
+import com.autoservice.service.ExportFormat;
+import com.autoservice.service.ImportFormat;
+import com.autoservice.service.OrderService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/clients")
 public class ClientController {
 
     private final ClientService service;
+    private final ClientImportService importService;
+    private final OrderService orderService;
+    private final VersionEtags etags;
 
-    public ClientController(ClientService service) {
+    public ClientController(ClientService service, ClientImportService importService, OrderService orderService,
+                            VersionEtags etags) {
         this.service = service;
+        this.importService = importService;
+        this.orderService = orderService;
+        this.etags = etags;
     }
 
+    // Во всех GET ниже: таблица не менялась -> 304 без обращения к БД (null = ответ уже готов)
+
     @GetMapping
-    public List<Client> getAll() {
-        return service.getAllClients();
+    public CursorPage<Client> getAll(@RequestParam(required = false) Integer after,
+                                     @RequestParam(required = false) Integer limit,
+                                     WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.CLIENTS, after, limit))) {
+            return null;
+        }
+        return service.getClientsPage(after, limit);
+    }
+
+    /**
+     * Полный список клиентов для интеграций (?format=ndjson|json|csv):
+     * пишется в ответ по мере чтения из курсора БД, без накопления в памяти.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        WebRequest request) {
+        ExportFormat exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        if (request.checkNotModified(etags.of(TrackedTable.CLIENTS, "export", exportFormat))) {
+            return null;
+        }
+        StreamingResponseBody body = out -> service.exportClients(out, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"clients." + exportFormat.extension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    public List<Client> search(@RequestParam(required = false) String name,
+                               @RequestParam(required = false) String phone,
+                               @RequestParam(required = false) Integer limit,
+                               WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.CLIENTS, "search", name, phone, limit))) {
+            return null;
+        }
+        return service.search(name, phone, limit);
+    }
+
+    @GetMapping("/by-phone")
+    public List<Client> findByPhone(@RequestParam String number,
+                                    @RequestParam(required = false) PhoneMatch match,
+                                    @RequestParam(required = false) Integer limit) {
+        return service.findByPhone(number, match, limit);
+    }
+
+    /** Клиент-360: клиент, итоги и последние ?limit заказов. */
+    @GetMapping("/{id}/orders")
+    public ClientOrders clientOrders(@PathVariable Integer id,
+                                     @RequestParam(required = false) Integer limit,
+                                     WebRequest request) {
+        if (request.checkNotModified(etags.of(EnumSet.allOf(TrackedTable.class), id, limit))) {
+            return null;
+        }
+        return orderService.getClientOrders(id, limit);
     }
 
+    /** То же для списка: ?ids=1,2,3&limit=5 — постоянное число запросов к БД на любой размер списка. */
+    @GetMapping("/orders")
+    public List<ClientOrders> clientsOrders(@RequestParam List<Integer> ids,
+                                            @RequestParam(required = false) Integer limit,
+                                            WebRequest request) {
+        if (request.checkNotModified(etags.of(EnumSet.allOf(TrackedTable.class), ids, limit))) {
+            return null;
+        }
+        return orderService.getClientsOrders(ids, limit);
+    }
+
+    /**
+     * Отчёт о дублях по всей таблице (?weak=true — ещё и по одному ФИО или
+     * логину email, шумнее). Строится по индексу в памяти, БД не трогает.
+     */
+    @GetMapping("/duplicates")
+    public List<DuplicateCluster> duplicates(@RequestParam(defaultValue = "false") boolean weak,
+                                             @RequestParam(required = false) Integer limit,
+                                             WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.CLIENTS, "duplicates", weak, limit))) {
+            return null;
+        }
+        return service.getDuplicateClusters(weak, limit);
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStats cacheStats() {
+        return service.getCacheStats();
+    }
+
+    @PostMapping("/phone-digits/backfill")
+    public int backfillPhoneDigits() {
+        return service.backfillPhoneDigits();
+    }
+
+    /** Похожие существующие клиенты (политика WARN) — в заголовке X-Possible-Duplicates: id через запятую. */
     @PostMapping
-    public Client create(@RequestBody Client client) {
-        return service.createClient(client);
+    public ResponseEntity<Client> create(@RequestBody Client client) {
+        Client saved = service.createClient(client);
+        List<DuplicateMatch> similar = service.findDuplicates(saved);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!similar.isEmpty()) {
+            response.header("X-Possible-Duplicates",
+                    similar.stream().map(m -> String.valueOf(m.clientId())).collect(Collectors.joining(",")));
+        }
+        return response.body(saved);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Integer id) {
+        return service.deleteClientById(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Пакетное удаление одним SQL: {"ids": [..]} и/или {"withoutOrders": true}.
+     * Режим (hard/soft) и судьба заказов — из autoservice.clients.delete.*.
+     */
+    @DeleteMapping
+    public ClientDeleteReport deleteMany(@RequestBody ClientDeleteRequest request) {
+        return service.deleteClients(request.ids(), Boolean.TRUE.equals(request.withoutOrders()));
+    }
+
+    /**
+     * Потоковый импорт: Content-Type text/csv (с заголовком) или application/x-ndjson.
+     */
+    @PostMapping(path = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ImportReport importClients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                      InputStream body) throws IOException {
+        return importService.importClients(body, ImportFormat.fromContentType(contentType));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.autoservice.controller;
+
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.EmployeeLoad;
+import com.autoservice.dto.EmployeeRequest;
+import com.autoservice.entity.Employee;
+import com.autoservice.service.EmployeeService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/employees")
+public class EmployeeController {
+
+    private final EmployeeService service;
+
+    public EmployeeController(EmployeeService service) {
+        this.service = service;
+    }
+
+    @GetMapping
+    public CursorPage<Employee> getAll(@RequestParam(required = false) Integer after,
+                                       @RequestParam(required = false) Integer limit) {
+        return service.getEmployeesPage(after, limit);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Employee> getById(@PathVariable Integer id) {
+        return ResponseEntity.of(service.getEmployeeById(id));
+    }
+
+    @PostMapping
+    public Employee create(@RequestBody EmployeeRequest request) {
+        return service.createEmployee(request.fullName(), request.skills());
+    }
+
+    @PutMapping("/{id}/active")
+    public Employee activate(@PathVariable Integer id) {
+        return service.setActive(id, true);
+    }
+
+    @DeleteMapping("/{id}/active")
+    public Employee deactivate(@PathVariable Integer id) {
+        return service.setActive(id, false);
+    }
+
+    /** Самые свободные сотрудники: ?skill=electrics&limit=10. Из памяти, без БД. */
+    @GetMapping("/workload")
+    public List<EmployeeLoad> workload(@RequestParam(required = false) String skill,
+                                       @RequestParam(required = false) Integer limit) {
+        return service.getWorkload(skill, limit);
+    }
+}
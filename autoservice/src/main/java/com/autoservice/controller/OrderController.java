@@ -0,0 +1,189 @@
+package com.autoservice.controller;
+
+import com.autoservice.change.TrackedTable;
+import com.autoservice.config.ReadRouting;
+import com.autoservice.config.ReadRoutingFilter;
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.OrderBoard;
+import com.autoservice.dto.OrderRequest;
+import com.autoservice.dto.PartReservation;
+import com.autoservice.dto.RangePage;
+import com.autoservice.dto.StatusChangeRequest;
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import com.autoservice.service.ExportFormat;
+import com.autoservice.service.OrderArchiveService;
+import com.autoservice.service.OrderIntakeService;
+import com.autoservice.service.OrderService;
+import com.autoservice.service.PartService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/orders")
+public class OrderController {
+
+    private final OrderService service;
+    private final OrderIntakeService intake;
+    private final OrderArchiveService archive;
+    private final PartService parts;
+    private final VersionEtags etags;
+
+    public OrderController(OrderService service, OrderIntakeService intake, OrderArchiveService archive,
+                           PartService parts, VersionEtags etags) {
+        this.service = service;
+        this.intake = intake;
+        this.archive = archive;
+        this.parts = parts;
+        this.etags = etags;
+    }
+
+    // Во всех GET ниже: заказы не менялись -> 304 без обращения к БД (null = ответ уже готов)
+
+    /** Горячая таблица по id; завершённые заказы из архива — через /range, /board/{status} и /export. */
+    @GetMapping
+    public CursorPage<Order> getAll(@RequestParam(required = false) Integer after,
+                                    @RequestParam(required = false) Integer limit,
+                                    WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.ORDERS, after, limit))) {
+            return null;
+        }
+        return service.getOrdersPage(after, limit);
+    }
+
+    /**
+     * Заказы по дате создания: ?from=2024-01-01T00:00&to=2024-02-01T00:00, страницы
+     * по курсору ?after=<nextCursor>. Старые периоды прозрачно читаются из архива.
+     */
+    @GetMapping("/range")
+    public RangePage<Order> range(@RequestParam(required = false)
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                  @RequestParam(required = false)
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Integer limit,
+                                  WebRequest request) {
+        // Перенос в архив тоже пишет в ChangeTracker (DELETED), так что версия заказов его учитывает
+        if (request.checkNotModified(etags.of(TrackedTable.ORDERS, "range", from, to, after, limit))) {
+            return null;
+        }
+        return service.getOrdersCreatedBetween(from, to, after, limit);
+    }
+
+    /** Перенести в архив всё, что пора, не дожидаясь расписания. Возвращает число заказов. */
+    @PostMapping("/archive/run")
+    public int runArchive() {
+        return archive.archive();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Order> getById(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.ORDERS, id))) {
+            return null;
+        }
+        return ResponseEntity.of(service.getOrderById(id));
+    }
+
+    @PostMapping
+    public Order create(@RequestBody OrderRequest request) {
+        return service.createSimpleOrder(request.clientId(), request.status(), request.totalCost(),
+                request.skill(), request.estimatedHours());
+    }
+
+    /**
+     * Приём заказа через очередь с групповым коммитом. Поток сервлета не держится:
+     * ответ уходит, когда пачка с заказом закоммичена. Очередь полна -> 503.
+     */
+    @PostMapping("/intake")
+    public CompletableFuture<ResponseEntity<Order>> intake(@RequestBody OrderRequest request) {
+        return intake.submit(request.clientId(), request.status(), request.totalCost(),
+                        request.skill(), request.estimatedHours())
+                .thenApply(order -> {
+                    ResponseEntity.BodyBuilder created = ResponseEntity.status(HttpStatus.CREATED);
+                    // Продолжение идёт в потоке приёма, в сессии пачки: позиция её коммита —
+                    // клиенту, как ReadRoutingFilter делает для обычных запросов
+                    long lsn = ReadRouting.commitLsn();
+                    if (lsn > 0) {
+                        created.header(HttpHeaders.SET_COOKIE, ReadRoutingFilter.cookie(lsn));
+                    }
+                    return created.body(order);
+                });
+    }
+
+    @PatchMapping("/{id}/status")
+    public Order changeStatus(@PathVariable Integer id, @RequestBody StatusChangeRequest request) {
+        return service.changeStatus(id, request.status());
+    }
+
+    @GetMapping("/{id}/parts")
+    public List<PartReservation> getParts(@PathVariable Integer id) {
+        return parts.getReservations(id);
+    }
+
+    /**
+     * Резерв запчастей: [{"partId": 7, "quantity": 2}, ...] — всё или ничего.
+     * Не хватает -> 409. DONE списывает резерв со склада, CANCELED возвращает.
+     */
+    @PostMapping("/{id}/parts")
+    public List<PartReservation> reserveParts(@PathVariable Integer id, @RequestBody List<PartReservation> lines) {
+        return parts.reserve(id, lines);
+    }
+
+    @DeleteMapping("/{id}/parts/{partId}")
+    public ResponseEntity<Void> releasePart(@PathVariable Integer id, @PathVariable Integer partId) {
+        parts.releaseReservation(id, partId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Счётчики по статусам; ?statuses=CREATED,IN_PROGRESS — только открытые.
+     * DONE и CANCELED считаются вместе с архивом.
+     */
+    @GetMapping("/board")
+    public OrderBoard board(@RequestParam(required = false) List<OrderStatus> statuses, WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.ORDERS, "board", statuses))) {
+            return null;
+        }
+        return service.getBoard(statuses);
+    }
+
+    @GetMapping("/board/{status}")
+    public CursorPage<Order> byStatus(@PathVariable OrderStatus status,
+                                      @RequestParam(required = false) Integer after,
+                                      @RequestParam(required = false) Integer limit,
+                                      WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.ORDERS, status, after, limit))) {
+            return null;
+        }
+        return service.getOrdersByStatus(status, after, limit);
+    }
+
+    /**
+     * Полная выгрузка заказов, включая архив (?format=ndjson|csv). Строки пишутся
+     * в ответ по мере чтения из курсора БД, без накопления в памяти.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        WebRequest request) {
+        ExportFormat exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        if (request.checkNotModified(etags.of(TrackedTable.ORDERS, "export", exportFormat))) {
+            return null;
+        }
+        StreamingResponseBody body = out -> service.exportOrders(out, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.extension() + "\"")
+                .body(body);
+    }
+}
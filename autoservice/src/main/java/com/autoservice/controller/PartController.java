@@ -0,0 +1,68 @@
+package com.autoservice.controller;
+
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.PartRequest;
+import com.autoservice.dto.StockChangeRequest;
+import com.autoservice.dto.StockLevel;
+import com.autoservice.entity.Part;
+import com.autoservice.service.PartService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/parts")
+public class PartController {
+
+    private final PartService service;
+    private final VersionEtags etags;
+
+    public PartController(PartService service, VersionEtags etags) {
+        this.service = service;
+        this.etags = etags;
+    }
+
+    @GetMapping
+    public CursorPage<Part> getAll(@RequestParam(required = false) Integer after,
+                                   @RequestParam(required = false) Integer limit,
+                                   WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.PARTS, after, limit))) {
+            return null;
+        }
+        return service.getPartsPage(after, limit);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Part> getById(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(etags.of(TrackedTable.PARTS, id))) {
+            return null;
+        }
+        return ResponseEntity.of(service.getPartById(id));
+    }
+
+    @PostMapping
+    public Part create(@RequestBody PartRequest request) {
+        return service.createPart(request.sku(), request.name(), request.price(), request.onHand());
+    }
+
+    /** Остаток и свободное количество — из памяти, без обращения к БД. */
+    @GetMapping("/{id}/stock")
+    public StockLevel stock(@PathVariable Integer id) {
+        return service.getStock(id);
+    }
+
+    /** ?ids=1,2,3 — остатки нескольких запчастей разом. */
+    @GetMapping("/stock")
+    public List<StockLevel> stock(@RequestParam List<Integer> ids) {
+        return service.getStock(ids);
+    }
+
+    /** Приход {"quantity": 10} или списание {"quantity": -2}. */
+    @PostMapping("/{id}/stock")
+    public StockLevel adjust(@PathVariable Integer id, @RequestBody StockChangeRequest request) {
+        return service.adjustStock(id, request.quantity());
+    }
+}
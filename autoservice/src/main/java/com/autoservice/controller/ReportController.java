@@ -0,0 +1,43 @@
+package com.autoservice.controller;
+
+import com.autoservice.dto.PeriodReport;
+import com.autoservice.dto.RebuildReport;
+import com.autoservice.dto.ReportPeriod;
+import com.autoservice.repository.RollupRepository;
+import com.autoservice.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    private final ReportService service;
+
+    public ReportController(ReportService service) {
+        this.service = service;
+    }
+
+    /** ?period=DAY|WEEK|MONTH&from=2024-01-01&to=2024-12-31; по умолчанию последние 30 дней. */
+    @GetMapping("/orders")
+    public List<PeriodReport> orders(@RequestParam(defaultValue = "DAY") ReportPeriod period,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(30) : from;
+        return service.getOrdersReport(period, start, end);
+    }
+
+    @GetMapping("/clients")
+    public List<RollupRepository.ClientRow> topClients(@RequestParam(defaultValue = "20") int limit) {
+        return service.getTopClients(limit);
+    }
+
+    @PostMapping("/rollups/rebuild")
+    public RebuildReport rebuild() {
+        return service.rebuildRollups();
+    }
+}
@@ -0,0 +1,60 @@
+package com.autoservice.controller;
+
+import com.autoservice.change.TableVersions;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.config.ReadRouting;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Сильные ETag для коллекций из общих версий таблиц (TableVersions) и хэша
+ * параметров запроса (страница, фильтр, формат). Версии сдвигает каждая запись
+ * в своей транзакции, поэтому запись через любой экземпляр сервера меняет ETag
+ * на всех (на соседних — не позже опроса TableVersions). Версии берутся из памяти:
+ * If-None-Match проверяется без единого запроса к БД. Данные под ETag читаются
+ * с реплики, только если она уже применила WAL до позиции, где версия была видна.
+ *
+ * Пока версия таблицы неизвестна (своя запись в неё только что закоммичена и ещё
+ * не перечитана) — ETag'а нет вовсе: ответ 200 без ETag, 304 на старые данные
+ * после своей записи не бывает.
+ */
+@Component
+public class VersionEtags {
+
+    private final TableVersions versions;
+
+    public VersionEtags(TableVersions versions) {
+        this.versions = versions;
+    }
+
+    public String of(TrackedTable table, Object... params) {
+        return of(EnumSet.of(table), params);
+    }
+
+    /** null — версии сейчас неизвестны; checkNotModified(null) отдаёт ответ без ETag. */
+    public String of(Set<TrackedTable> tables, Object... params) {
+        StringBuilder sb = new StringBuilder();
+        long lsn = 0;
+        for (TrackedTable t : TrackedTable.values()) {
+            if (tables.contains(t)) {
+                Optional<TableVersions.Version> v = versions.current(t);
+                if (v.isEmpty()) {
+                    return null;
+                }
+                sb.append(t.name().charAt(0)).append(v.get().value()).append('-');
+                lsn = Math.max(lsn, v.get().lsn());
+            }
+        }
+        // Данные под этот ETag — с реплики, уже видящей все записи под версией, или с primary
+        ReadRouting.requireLsn(lsn);
+        return sb.append(hash(params)).toString();
+    }
+
+    private static String hash(Object[] params) {
+        return Integer.toHexString(Arrays.deepHashCode(params));
+    }
+}
@@ -0,0 +1,15 @@
+package com.autoservice.dto;
+
+import com.autoservice.analytics.AnalyticsGroupBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** Ответ аналитики: итог по всем отобранным заказам и первые limit групп. */
+public record AnalyticsReport(AnalyticsGroupBy groupBy,
+                              long orderCount,
+                              BigDecimal revenue,
+                              int groupCount,
+                              List<AnalyticsRow> groups,
+                              long tookMicros) {
+}
@@ -0,0 +1,11 @@
+package com.autoservice.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Одна группа аналитики. key — статус, id клиента или исполнителя, день или
+ * месяц; null — итог без группировки или заказы без исполнителя.
+ * revenue и averageTicket без отменённых заказов, как в отчётах.
+ */
+public record AnalyticsRow(Object key, long orderCount, BigDecimal revenue, BigDecimal averageTicket) {
+}
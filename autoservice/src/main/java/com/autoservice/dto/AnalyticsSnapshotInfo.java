@@ -0,0 +1,8 @@
+package com.autoservice.dto;
+
+import java.time.LocalDateTime;
+
+/** Состояние аналитического снимка: заказы, память колонок, когда обновлён. */
+public record AnalyticsSnapshotInfo(int orders, int tombstones, long columnBytes,
+                                    LocalDateTime refreshedAt, long lastRefreshMs) {
+}
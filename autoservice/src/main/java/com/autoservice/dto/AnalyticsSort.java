@@ -0,0 +1,8 @@
+package com.autoservice.dto;
+
+/** Порядок групп в аналитике: KEY — по ключу по возрастанию, остальные — по убыванию. */
+public enum AnalyticsSort {
+    KEY,
+    ORDERS,
+    REVENUE
+}
@@ -0,0 +1,15 @@
+package com.autoservice.dto;
+
+import com.autoservice.service.ClientDeleteMode;
+import com.autoservice.service.ClientOrdersPolicy;
+
+/**
+ * Итог удаления: deleted — удалено клиентов, skippedWithOrders — пропущено
+ * из-за заказов (политика RESTRICT), ordersAffected — удалено или отменено заказов.
+ */
+public record ClientDeleteReport(ClientDeleteMode mode,
+                                 ClientOrdersPolicy ordersPolicy,
+                                 int deleted,
+                                 int skippedWithOrders,
+                                 int ordersAffected) {
+}
@@ -0,0 +1,10 @@
+package com.autoservice.dto;
+
+import java.util.List;
+
+/**
+ * Фильтр пакетного удаления: ids и/или withoutOrders (клиенты без единого заказа).
+ * Пустой фильтр не принимается — случайно удалить всех нельзя.
+ */
+public record ClientDeleteRequest(List<Integer> ids, Boolean withoutOrders) {
+}
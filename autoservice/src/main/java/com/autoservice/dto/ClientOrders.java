@@ -0,0 +1,16 @@
+package com.autoservice.dto;
+
+import com.autoservice.entity.Client;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Клиент-360: клиент, итоги по всем его заказам (из роллапов, выручка без
+ * отменённых) и последние заказы, новые первыми.
+ */
+public record ClientOrders(Client client,
+                           long orderCount,
+                           BigDecimal revenue,
+                           List<OrderSummary> recentOrders) {
+}
@@ -0,0 +1,13 @@
+package com.autoservice.dto;
+
+/**
+ * Клиент для выгрузки: JPQL-проекция через конструктор, не сущность —
+ * в контекст персистентности не попадает и память не копит.
+ */
+public record ClientView(Integer id,
+                         String fullName,
+                         String phone,
+                         String phoneDigits,
+                         String email,
+                         String notes) {
+}
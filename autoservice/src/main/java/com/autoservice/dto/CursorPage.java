@@ -0,0 +1,31 @@
+package com.autoservice.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации: элементы + курсор для следующего запроса.
+ * nextCursor == null, если дальше ничего нет.
+ */
+public record CursorPage<T>(List<T> items, Integer nextCursor) {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** Размер страницы из запроса, зажатый в [1, MAX_PAGE_SIZE]. */
+    public static int pageSize(Integer requested) {
+        return requested == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * rows должны быть выбраны с лимитом size + 1: лишняя строка значит,
+     * что есть следующая страница.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Integer> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> page = List.copyOf(rows.subList(0, size));
+        return new CursorPage<>(page, cursorOf.apply(page.get(size - 1)));
+    }
+}
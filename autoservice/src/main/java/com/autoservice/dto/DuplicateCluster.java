@@ -0,0 +1,10 @@
+package com.autoservice.dto;
+
+import com.autoservice.index.DuplicateReason;
+
+import java.util.List;
+import java.util.Set;
+
+/** Группа клиентов, связанных совпадениями ключей (транзитивно), и сами ключи. */
+public record DuplicateCluster(List<Integer> clientIds, Set<DuplicateReason> reasons) {
+}
@@ -0,0 +1,9 @@
+package com.autoservice.dto;
+
+import com.autoservice.index.DuplicateReason;
+
+import java.util.Set;
+
+/** Возможный дубль: существующий клиент и ключи, по которым он совпал. */
+public record DuplicateMatch(int clientId, boolean strong, Set<DuplicateReason> reasons) {
+}
@@ -0,0 +1,7 @@
+package com.autoservice.dto;
+
+import java.math.BigDecimal;
+
+/** Текущая нагрузка сотрудника: открытые заказы и их оценка в часах. */
+public record EmployeeLoad(int employeeId, int openOrders, BigDecimal hours) {
+}
@@ -0,0 +1,7 @@
+package com.autoservice.dto;
+
+import java.util.List;
+
+/** Тело POST /employees. skills — теги навыков ("engine", "electrics"...). */
+public record EmployeeRequest(String fullName, List<String> skills) {
+}
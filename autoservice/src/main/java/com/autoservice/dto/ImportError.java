@@ -0,0 +1,5 @@
+package com.autoservice.dto;
+
+/** Ошибка импорта в конкретной строке файла (нумерация с 1, заголовок CSV тоже строка). */
+public record ImportError(long line, String message) {
+}
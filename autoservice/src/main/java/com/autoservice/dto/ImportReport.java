@@ -0,0 +1,11 @@
+package com.autoservice.dto;
+
+import java.util.List;
+
+/**
+ * Итог импорта. errors хранит не больше ClientImportService.MAX_REPORTED_ERRORS
+ * штук, failed — полное число отбракованных строк, duplicates — загруженных
+ * строк, похожих на существующих клиентов (политика дублей WARN).
+ */
+public record ImportReport(long total, long imported, long failed, long duplicates, List<ImportError> errors) {
+}
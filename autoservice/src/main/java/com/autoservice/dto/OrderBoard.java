@@ -0,0 +1,9 @@
+package com.autoservice.dto;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.util.Map;
+
+/** Счётчики заказов по статусам для доски мастерской. */
+public record OrderBoard(Map<OrderStatus, Long> counts, long total) {
+}
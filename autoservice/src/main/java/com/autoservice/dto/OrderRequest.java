@@ -0,0 +1,13 @@
+package com.autoservice.dto;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Тело POST /orders. status можно не указывать — будет CREATED.
+ * skill — нужный навык исполнителя (необязательно), estimatedHours — оценка в часах.
+ */
+public record OrderRequest(Integer clientId, OrderStatus status, BigDecimal totalCost,
+                           String skill, BigDecimal estimatedHours) {
+}
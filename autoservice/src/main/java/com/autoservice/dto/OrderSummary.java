@@ -0,0 +1,14 @@
+package com.autoservice.dto;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Заказ в карточке клиента: только нужные поля, без управляемой сущности. */
+public record OrderSummary(int id,
+                           OrderStatus status,
+                           LocalDateTime createdAt,
+                           LocalDateTime finishedAt,
+                           BigDecimal totalCost) {
+}
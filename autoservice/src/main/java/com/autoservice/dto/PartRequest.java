@@ -0,0 +1,7 @@
+package com.autoservice.dto;
+
+import java.math.BigDecimal;
+
+/** Тело POST /parts. onHand — начальный остаток, по умолчанию 0. */
+public record PartRequest(String sku, String name, BigDecimal price, Integer onHand) {
+}
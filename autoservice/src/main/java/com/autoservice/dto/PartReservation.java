@@ -0,0 +1,5 @@
+package com.autoservice.dto;
+
+/** Резерв запчасти под заказ; строка тела POST /orders/{id}/parts (orderId там не нужен). */
+public record PartReservation(Integer orderId, Integer partId, Integer quantity) {
+}
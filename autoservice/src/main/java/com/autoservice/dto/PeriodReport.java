@@ -0,0 +1,18 @@
+package com.autoservice.dto;
+
+import com.autoservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Один бакет отчёта. revenue и averageTicket считаются без отменённых заказов,
+ * orderCount — все заказы, созданные в периоде.
+ */
+public record PeriodReport(LocalDate periodStart,
+                           long orderCount,
+                           BigDecimal revenue,
+                           BigDecimal averageTicket,
+                           Map<OrderStatus, Long> countByStatus) {
+}
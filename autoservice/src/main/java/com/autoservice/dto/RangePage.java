@@ -0,0 +1,20 @@
+package com.autoservice.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница выборки по периоду: как CursorPage, но курсор — строка TimeCursor.
+ * nextCursor == null, если дальше ничего нет.
+ */
+public record RangePage<T>(List<T> items, String nextCursor) {
+
+    /** rows выбраны с лимитом size + 1, см. CursorPage.of. */
+    public static <T> RangePage<T> of(List<T> rows, int size, Function<T, TimeCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new RangePage<>(rows, null);
+        }
+        List<T> page = List.copyOf(rows.subList(0, size));
+        return new RangePage<>(page, cursorOf.apply(page.get(size - 1)).toString());
+    }
+}
@@ -0,0 +1,5 @@
+package com.autoservice.dto;
+
+/** Итог пересчёта роллапов: сколько бакетов разошлось с историей до пересчёта. */
+public record RebuildReport(int dayBucketsFixed, int clientBucketsFixed, long durationMs) {
+}
@@ -0,0 +1,18 @@
+package com.autoservice.dto;
+
+/** Размер бакета отчёта; sqlUnit — аргумент date_trunc. */
+public enum ReportPeriod {
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    private final String sqlUnit;
+
+    ReportPeriod(String sqlUnit) {
+        this.sqlUnit = sqlUnit;
+    }
+
+    public String sqlUnit() {
+        return sqlUnit;
+    }
+}
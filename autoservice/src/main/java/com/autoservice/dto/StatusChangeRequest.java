@@ -0,0 +1,7 @@
+package com.autoservice.dto;
+
+import com.autoservice.entity.OrderStatus;
+
+/** Тело PATCH /orders/{id}/status. */
+public record StatusChangeRequest(OrderStatus status) {
+}
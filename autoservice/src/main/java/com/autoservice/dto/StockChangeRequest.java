@@ -0,0 +1,5 @@
+package com.autoservice.dto;
+
+/** Тело POST /parts/{id}/stock: приход (> 0) или списание (< 0). */
+public record StockChangeRequest(Integer quantity) {
+}
@@ -0,0 +1,12 @@
+package com.autoservice.dto;
+
+/**
+ * Остаток запчасти: onHand на складе, из них reserved обещано заказам.
+ * version растёт на каждое изменение — из двух снимков свежее тот, где он больше.
+ */
+public record StockLevel(int partId, int onHand, int reserved, long version) {
+
+    public int available() {
+        return onHand - reserved;
+    }
+}
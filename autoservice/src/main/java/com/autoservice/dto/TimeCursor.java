@@ -0,0 +1,26 @@
+package com.autoservice.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Курсор keyset-пагинации по (created_at, id): "2024-05-01T10:15:30.123456_1234".
+ * id разводит строки с одинаковым временем.
+ */
+public record TimeCursor(LocalDateTime createdAt, int id) {
+
+    public static TimeCursor parse(String cursor) {
+        int sep = cursor.lastIndexOf('_');
+        try {
+            return new TimeCursor(LocalDateTime.parse(cursor.substring(0, sep)),
+                    Integer.parseInt(cursor.substring(sep + 1)));
+        } catch (IndexOutOfBoundsException | DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return createdAt + "_" + id;
+    }
+}
@@ -1,14 +1,21 @@
 package com.autoservice.entity;
 
+import com.autoservice.util.PhoneNumbers;
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 
+// Мягко удалённые (deleted_at заполнен) не видны ни в одной выборке через JPA
 @Entity
 @Table(name = "clients")
+@SQLRestriction("deleted_at IS NULL")
 public class Client {
 
+    // Последовательность с шагом 50 (pooled): Hibernate берёт id пачкой
+    // и может батчить INSERT'ы, с IDENTITY это невозможно
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private int id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_id_seq")
+    @SequenceGenerator(name = "clients_id_seq", sequenceName = "clients_id_seq", allocationSize = 50)
+    private Integer id;
 
     @Column(name = "full_name", nullable = false)
     private String fullName;
@@ -16,6 +23,10 @@ public class Client {
     @Column(name = "phone")
     private String phone;
 
+    // Нормализованный телефон (E.164 без '+'), заполняется при каждой записи
+    @Column(name = "phone_digits")
+    private String phoneDigits;
+
     @Column(name = "email")
     private String email;
 
@@ -25,7 +36,7 @@ public class Client {
     public Client() {
     }
 
-    public Client(int id, String fullName, String phone, String email, String notes) {
+    public Client(Integer id, String fullName, String phone, String email, String notes) {
         this.id = id;
         this.fullName = fullName;
         this.phone = phone;
@@ -33,11 +44,11 @@ public class Client {
         this.notes = notes;
     }
 
-    public int getId() {
+    public Integer getId() {
         return id;
     }
 
-    public void setId(int id) {
+    public void setId(Integer id) {
         this.id = id;
     }
 
@@ -57,6 +68,14 @@ public class Client {
         this.phone = phone;
     }
 
+    public String getPhoneDigits() {
+        return phoneDigits;
+    }
+
+    public void setPhoneDigits(String phoneDigits) {
+        this.phoneDigits = phoneDigits;
+    }
+
     public String getEmail() {
         return email;
     }
@@ -72,4 +91,10 @@ public class Client {
     public void setNotes(String notes) {
         this.notes = notes;
     }
+
+    @PrePersist
+    @PreUpdate
+    void normalizePhone() {
+        this.phoneDigits = PhoneNumbers.normalize(phone);
+    }
 }
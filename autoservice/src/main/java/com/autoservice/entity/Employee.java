@@ -0,0 +1,71 @@
+package com.autoservice.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Entity
+@Table(name = "employees")
+public class Employee {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_id_seq")
+    @SequenceGenerator(name = "employees_id_seq", sequenceName = "employees_id_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "full_name", nullable = false)
+    private String fullName;
+
+    // Теги навыков через запятую, в нижнем регистре; см. skillList()
+    @Column(name = "skills", nullable = false)
+    private String skills = "";
+
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+
+    public Employee() {
+    }
+
+    public Employee(Integer id, String fullName, String skills) {
+        this.id = id;
+        this.fullName = fullName;
+        this.skills = skills;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public String getSkills() {
+        return skills;
+    }
+
+    public void setSkills(String skills) {
+        this.skills = skills;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public List<String> skillList() {
+        return skills == null || skills.isEmpty() ? List.of() : Arrays.asList(skills.split(","));
+    }
+}
@@ -10,14 +10,16 @@ import java.time.LocalDateTime;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "client_id", nullable = false)
     private Integer clientId;
 
+    @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
-    private String status;
+    private OrderStatus status;
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
@@ -28,10 +30,21 @@ public class Order {
     @Column(name = "total_cost")
     private BigDecimal totalCost;
 
+    // Исполнитель; null — никого подходящего не нашлось
+    @Column(name = "employee_id")
+    private Integer employeeId;
+
+    // Нужный навык; null — подойдёт любой сотрудник
+    @Column(name = "skill")
+    private String skill;
+
+    @Column(name = "estimated_hours")
+    private BigDecimal estimatedHours;
+
     public Order() {
     }
 
-    public Order(Integer id, Integer clientId, String status,
+    public Order(Integer id, Integer clientId, OrderStatus status,
                  LocalDateTime createdAt, LocalDateTime finishedAt, BigDecimal totalCost) {
         this.id = id;
         this.clientId = clientId;
@@ -57,11 +70,11 @@ public class Order {
         this.clientId = clientId;
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
@@ -88,4 +101,28 @@ public class Order {
     public void setTotalCost(BigDecimal totalCost) {
         this.totalCost = totalCost;
     }
+
+    public Integer getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(Integer employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getSkill() {
+        return skill;
+    }
+
+    public void setSkill(String skill) {
+        this.skill = skill;
+    }
+
+    public BigDecimal getEstimatedHours() {
+        return estimatedHours;
+    }
+
+    public void setEstimatedHours(BigDecimal estimatedHours) {
+        this.estimatedHours = estimatedHours;
+    }
 }
@@ -0,0 +1,47 @@
+package com.autoservice.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Статусы заказа и допустимые переходы:
+ * CREATED -> IN_PROGRESS | CANCELED, IN_PROGRESS -> DONE | CANCELED.
+ * DONE и CANCELED — конечные.
+ */
+public enum OrderStatus {
+    CREATED("создан"),
+    IN_PROGRESS("в работе"),
+    DONE("выполнен"),
+    CANCELED("отменён");
+
+    private final String title;
+
+    OrderStatus(String title) {
+        this.title = title;
+    }
+
+    public String title() {
+        return title;
+    }
+
+    public boolean isTerminal() {
+        return this == DONE || this == CANCELED;
+    }
+
+    /** С каких статусов можно завести новый заказ. */
+    public boolean isInitial() {
+        return this == CREATED || this == IN_PROGRESS;
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return allowedNext().contains(next);
+    }
+
+    public Set<OrderStatus> allowedNext() {
+        return switch (this) {
+            case CREATED -> EnumSet.of(IN_PROGRESS, CANCELED);
+            case IN_PROGRESS -> EnumSet.of(DONE, CANCELED);
+            case DONE, CANCELED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.autoservice.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Запчасть на складе. Остатки (onHand, reserved, version) JPA только читает и
+ * вставляет: меняются они условными UPDATE'ами в StockRepository, и сохранение
+ * сущности со старыми значениями не должно их затереть.
+ */
+@Entity
+@Table(name = "parts")
+public class Part {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parts_id_seq")
+    @SequenceGenerator(name = "parts_id_seq", sequenceName = "parts_id_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "sku", nullable = false)
+    private String sku;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "price")
+    private BigDecimal price;
+
+    @Column(name = "on_hand", nullable = false, updatable = false)
+    private int onHand;
+
+    @Column(name = "reserved", nullable = false, updatable = false)
+    private int reserved;
+
+    @Column(name = "version", nullable = false, updatable = false)
+    private long version;
+
+    public Part() {
+    }
+
+    public Part(Integer id, String sku, String name, BigDecimal price, int onHand) {
+        this.id = id;
+        this.sku = sku;
+        this.name = name;
+        this.price = price;
+        this.onHand = onHand;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public int getOnHand() {
+        return onHand;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
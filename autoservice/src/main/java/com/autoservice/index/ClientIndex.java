@@ -0,0 +1,16 @@
+package com.autoservice.index;
+
+import com.autoservice.entity.Client;
+
+/**
+ * Индекс по клиентам в памяти. Наполняется и обновляется через ClientIndexes,
+ * сам в БД не ходит.
+ */
+interface ClientIndex {
+
+    void clear();
+
+    void put(Client client);
+
+    void remove(int id);
+}
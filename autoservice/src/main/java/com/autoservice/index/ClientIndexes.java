@@ -0,0 +1,135 @@
+package com.autoservice.index;
+
+import com.autoservice.entity.Client;
+import com.autoservice.repository.ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Все индексы клиентов разом: один проход по таблице при старте (или при первом
+ * поиске, если autoservice.clients.indexes.preload=false), дальше точечные
+ * обновления из ClientService.
+ */
+@Component
+public class ClientIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientIndexes.class);
+    private static final int LOAD_BATCH = 1000;
+
+    private final ClientRepository repository;
+    private final List<ClientIndex> indexes;
+    private final boolean preload;
+
+    // write — полная загрузка, read — точечные обновления (индексы синхронизируются сами)
+    private final ReadWriteLock loadLock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public ClientIndexes(ClientRepository repository, ClientSearchIndex searchIndex, PhoneIndex phoneIndex,
+                         DuplicateIndex duplicateIndex,
+                         @Value("${autoservice.clients.indexes.preload:true}") boolean preload) {
+        this.repository = repository;
+        this.indexes = List.of(searchIndex, phoneIndex, duplicateIndex);
+        this.preload = preload;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onStartup() {
+        if (preload) {
+            ensureLoaded();
+        }
+    }
+
+    public void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            long started = System.currentTimeMillis();
+            indexes.forEach(ClientIndex::clear);
+
+            int after = 0;
+            int total = 0;
+            List<Client> batch;
+            do {
+                batch = repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(LOAD_BATCH));
+                for (Client c : batch) {
+                    for (ClientIndex index : indexes) {
+                        index.put(c);
+                    }
+                    after = c.getId();
+                }
+                total += batch.size();
+            } while (batch.size() == LOAD_BATCH);
+
+            loaded = true;
+            log.info("Индексы клиентов построены: {} записей за {} мс",
+                    total, System.currentTimeMillis() - started);
+        } finally {
+            loadLock.writeLock().unlock();
+        }
+    }
+
+    /** Построить заново, если уже построены: точечные обновления могли пропасть. */
+    public void reload() {
+        if (!loaded) {
+            return;
+        }
+        loadLock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            loadLock.writeLock().unlock();
+        }
+        ensureLoaded();
+    }
+
+    public void put(Client client) {
+        loadLock.readLock().lock();
+        try {
+            if (!loaded) {
+                // Полная загрузка всё равно подтянет его из БД
+                return;
+            }
+            for (ClientIndex index : indexes) {
+                index.put(client);
+            }
+        } finally {
+            loadLock.readLock().unlock();
+        }
+    }
+
+    /** Перечитать клиента из БД: изменение сделал другой процесс (сервер рядом с консолью --cli). */
+    public void refresh(int id) {
+        if (!loaded) {
+            return;
+        }
+        repository.findById(id).ifPresentOrElse(this::put, () -> remove(id));
+    }
+
+    public void remove(int id) {
+        loadLock.readLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            for (ClientIndex index : indexes) {
+                index.remove(id);
+            }
+        } finally {
+            loadLock.readLock().unlock();
+        }
+    }
+}
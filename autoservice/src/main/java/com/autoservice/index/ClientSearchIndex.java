@@ -0,0 +1,224 @@
+package com.autoservice.index;
+
+import com.autoservice.entity.Client;
+import com.autoservice.util.PhoneNumbers;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поиск клиентов по подстроке ФИО / телефона без похода в БД.
+ * Держит в памяти копии клиентов и триграммный индекс по full_name
+ * и нормализованному телефону.
+ */
+@Component
+public class ClientSearchIndex implements ClientIndex {
+
+    private static final Comparator<Hit> BY_RANK =
+            Comparator.comparingInt(Hit::rank).thenComparingInt(h -> h.client().getId());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // По id: id идут пачками по 50 (pooled) и редеют после удалений — массив по id
+    // был бы в основном из дыр
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final TrigramIndex byName = new TrigramIndex();
+    private final TrigramIndex byPhone = new TrigramIndex();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byName.clear();
+            byPhone.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Client client) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(client.getId());
+            putLocked(client);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Клиенты, у которых ФИО содержит name и телефон содержит phone
+     * (пустой/null критерий не учитывается). Сначала точные совпадения и
+     * совпадения с начала строки, потом по позиции вхождения, потом по id.
+     */
+    public List<Client> search(String name, String phone, int limit) {
+        String qName = TrigramIndex.normalize(name);
+        String qPhone = PhoneNumbers.normalizeFragment(phone);
+        if (qPhone.isEmpty() && phone != null && !phone.isBlank()) {
+            // В запросе по телефону нет ни одной цифры
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = intersect(byName.candidates(qName), byPhone.candidates(qPhone));
+
+            // Худший из лучших — наверху, держим не больше limit штук
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, BY_RANK.reversed());
+            if (candidates != null) {
+                for (int id : candidates) {
+                    offer(top, match(entries.get(id), qName, qPhone), limit);
+                }
+            } else {
+                // Оба запроса короче триграммы: индекс не сужает, проверяем всех —
+                // куча всё равно держит только limit лучших, порядок тот же, что у индексного пути
+                for (Entry e : entries.values()) {
+                    offer(top, match(e, qName, qPhone), limit);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(BY_RANK);
+            List<Client> result = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                result.add(hit.client());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putLocked(Client c) {
+        String phoneDigits = PhoneNumbers.normalize(c.getPhone());
+        Entry e = new Entry(copyOf(c), TrigramIndex.normalize(c.getFullName()), phoneDigits == null ? "" : phoneDigits);
+        entries.put(c.getId(), e);
+        byName.add(c.getId(), e.name());
+        byPhone.add(c.getId(), e.phone());
+    }
+
+    private void removeLocked(int id) {
+        Entry old = entries.remove(id);
+        if (old == null) {
+            return;
+        }
+        byName.remove(id, old.name());
+        byPhone.remove(id, old.phone());
+    }
+
+    /** Клиенты по списку id в том же порядке; отсутствующие пропускаются. */
+    public List<Client> getAll(int[] ids) {
+        lock.readLock().lock();
+        try {
+            List<Client> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                Entry e = entries.get(id);
+                if (e != null) {
+                    result.add(e.client());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int limit) {
+        if (hit == null) {
+            return;
+        }
+        top.add(hit);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Hit match(Entry e, String qName, String qPhone) {
+        if (e == null) {
+            return null;
+        }
+        int rank = 0;
+        if (!qName.isEmpty()) {
+            int r = rank(e.name(), qName);
+            if (r < 0) {
+                return null;
+            }
+            rank += r;
+        }
+        if (!qPhone.isEmpty()) {
+            int r = rank(e.phone(), qPhone);
+            if (r < 0) {
+                return null;
+            }
+            rank += r;
+        }
+        return new Hit(e.client(), rank);
+    }
+
+    /** -1 — нет вхождения; 0 — полное совпадение; дальше чем хуже, тем больше. */
+    private static int rank(String text, String q) {
+        int pos = text.indexOf(q);
+        if (pos < 0) {
+            return -1;
+        }
+        if (pos == 0) {
+            return text.length() == q.length() ? 0 : 1;
+        }
+        boolean wordStart = !Character.isLetterOrDigit(text.charAt(pos - 1));
+        return (wordStart ? 2 : 1000) + pos;
+    }
+
+    private static Client copyOf(Client c) {
+        Client copy = new Client(c.getId(), c.getFullName(), c.getPhone(), c.getEmail(), c.getNotes());
+        copy.setPhoneDigits(PhoneNumbers.normalize(c.getPhone()));
+        return copy;
+    }
+
+    private record Entry(Client client, String name, String phone) {
+    }
+
+    private record Hit(Client client, int rank) {
+    }
+}
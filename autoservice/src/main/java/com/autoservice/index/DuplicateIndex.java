@@ -0,0 +1,206 @@
+package com.autoservice.index;
+
+import com.autoservice.dto.DuplicateCluster;
+import com.autoservice.dto.DuplicateMatch;
+import com.autoservice.entity.Client;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс ключей блокировки (DuplicateKeys) для поиска дублей клиентов.
+ * Проверка нового клиента — несколько обращений к хэш-таблице, отчёт по
+ * всей таблице — union-find по спискам ключей, почти линейно от числа клиентов.
+ */
+@Component
+public class DuplicateIndex implements ClientIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntPostings> postings = new HashMap<>();
+    private final Map<Integer, String[]> keysById = new HashMap<>();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            keysById.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Client client) {
+        String[] keys = DuplicateKeys.of(client).toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            removeLocked(client.getId());
+            keysById.put(client.getId(), keys);
+            for (String key : keys) {
+                postings.computeIfAbsent(key, k -> new IntPostings()).add(client.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Сильные ключи клиента — для сверки строк внутри одной пачки импорта. */
+    public List<String> strongKeys(Client client) {
+        List<String> keys = DuplicateKeys.of(client);
+        keys.removeIf(k -> !DuplicateReason.ofKey(k).isStrong());
+        return keys;
+    }
+
+    /**
+     * Клиенты, совпавшие с client хотя бы по одному ключу (кроме него самого):
+     * сначала сильные совпадения, потом по числу ключей; не больше limit.
+     * Списки длиннее maxBlock (частые имена, общие номера) пропускаются.
+     */
+    public List<DuplicateMatch> find(Client client, int limit, int maxBlock) {
+        int self = client.getId() == null ? 0 : client.getId();
+        Map<Integer, Set<DuplicateReason>> found = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String key : DuplicateKeys.of(client)) {
+                IntPostings ids = postings.get(key);
+                if (ids == null || ids.size() > maxBlock) {
+                    continue;
+                }
+                DuplicateReason reason = DuplicateReason.ofKey(key);
+                for (int id : ids.toArray()) {
+                    if (id != self) {
+                        found.computeIfAbsent(id, x -> EnumSet.noneOf(DuplicateReason.class)).add(reason);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<DuplicateMatch> matches = new ArrayList<>(found.size());
+        found.forEach((id, reasons) -> matches.add(
+                new DuplicateMatch(id, reasons.stream().anyMatch(DuplicateReason::isStrong), reasons)));
+        matches.sort(Comparator.comparing(DuplicateMatch::strong).reversed()
+                .thenComparing(m -> -m.reasons().size())
+                .thenComparingInt(DuplicateMatch::clientId));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * Группы дублей по всей таблице: клиенты с общим ключом склеиваются в
+     * union-find, группы транзитивны (A~B по телефону, B~C по email -> {A,B,C}).
+     * Слабые ключи учитываются только при includeWeak; списки длиннее maxBlock
+     * пропускаются, иначе частое имя склеит сотни разных людей.
+     * Сначала крупные группы, не больше limit.
+     */
+    public List<DuplicateCluster> clusters(boolean includeWeak, int maxBlock, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] ids = keysById.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] parent = new int[ids.length];
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = i;
+            }
+            // Какие ключи склеили группы: причина и индекс первого клиента в списке
+            List<DuplicateReason> usedReasons = new ArrayList<>();
+            List<Integer> usedFirst = new ArrayList<>();
+            for (Map.Entry<String, IntPostings> e : postings.entrySet()) {
+                IntPostings block = e.getValue();
+                if (block.size() < 2 || block.size() > maxBlock) {
+                    continue;
+                }
+                DuplicateReason reason = DuplicateReason.ofKey(e.getKey());
+                if (!includeWeak && !reason.isStrong()) {
+                    continue;
+                }
+                int[] members = block.toArray();
+                int first = Arrays.binarySearch(ids, members[0]);
+                for (int i = 1; i < members.length; i++) {
+                    union(parent, first, Arrays.binarySearch(ids, members[i]));
+                }
+                usedReasons.add(reason);
+                usedFirst.add(first);
+            }
+
+            int[] size = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                size[find(parent, i)]++;
+            }
+            Map<Integer, List<Integer>> groups = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                int root = find(parent, i);
+                if (size[root] > 1) {
+                    groups.computeIfAbsent(root, r -> new ArrayList<>(size[r])).add(ids[i]);
+                }
+            }
+            Map<Integer, Set<DuplicateReason>> reasons = new HashMap<>();
+            for (int k = 0; k < usedFirst.size(); k++) {
+                reasons.computeIfAbsent(find(parent, usedFirst.get(k)), r -> EnumSet.noneOf(DuplicateReason.class))
+                        .add(usedReasons.get(k));
+            }
+
+            List<DuplicateCluster> result = new ArrayList<>();
+            // ids отсортированы, так что и участники групп уже по возрастанию
+            groups.forEach((root, members) -> result.add(new DuplicateCluster(members, reasons.get(root))));
+            result.sort(Comparator.comparingInt((DuplicateCluster c) -> -c.clientIds().size())
+                    .thenComparingInt(c -> c.clientIds().get(0)));
+            return result.size() > limit ? result.subList(0, limit) : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            // Сжатие пути вдвое: дерево остаётся почти плоским
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            // Корень — меньший индекс: без рангов, но пути всё равно сжимаются в find
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    private void removeLocked(int id) {
+        String[] old = keysById.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String key : old) {
+            IntPostings ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.autoservice.index;
+
+import com.autoservice.entity.Client;
+import com.autoservice.util.PhoneNumbers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ключи блокировки для поиска дублей. Два клиента — кандидаты в дубли, если
+ * у них совпал хотя бы один ключ, так что сравнивать всех со всеми не нужно.
+ * Ключ — префикс вида (DuplicateReason.prefix) + значение.
+ */
+final class DuplicateKeys {
+
+    // Кириллица -> латиница, упрощённый ГОСТ; "ё" совпадает с "е"
+    private static final String[] TRANSLIT = new String[32];
+
+    static {
+        String[] letters = {"a", "b", "v", "g", "d", "e", "zh", "z", "i", "i", "k", "l", "m", "n", "o", "p",
+                "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"};
+        System.arraycopy(letters, 0, TRANSLIT, 0, letters.length);
+    }
+
+    private DuplicateKeys() {
+    }
+
+    static List<String> of(Client c) {
+        List<String> keys = new ArrayList<>(5);
+        String phone = phoneKey(c.getPhone());
+        if (phone != null) {
+            keys.add(DuplicateReason.PHONE.prefix() + phone);
+        }
+        String email = email(c.getEmail());
+        String local = email == null ? null : email.substring(0, email.indexOf('@'));
+        if (email != null) {
+            keys.add(DuplicateReason.EMAIL.prefix() + email);
+        }
+        String name = nameKey(c.getFullName());
+        if (name != null) {
+            keys.add(DuplicateReason.NAME.prefix() + name);
+            if (local != null) {
+                keys.add(DuplicateReason.NAME_AND_EMAIL_LOCAL.prefix() + name + '|' + local);
+            }
+        }
+        if (local != null && local.length() >= 3) {
+            keys.add(DuplicateReason.EMAIL_LOCAL.prefix() + local);
+        }
+        return keys;
+    }
+
+    /** Последние 10 цифр нормализованного номера: "+7 912..." и "912..." совпадут. */
+    static String phoneKey(String raw) {
+        String d = PhoneNumbers.normalize(raw);
+        if (d == null || d.length() < 7) {
+            return null;
+        }
+        return d.length() > 10 ? d.substring(d.length() - 10) : d;
+    }
+
+    /** Адрес в нижнем регистре без "+метки" в локальной части; null — не похоже на email. */
+    static String email(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String e = raw.trim().toLowerCase(Locale.ROOT);
+        int at = e.lastIndexOf('@');
+        if (at <= 0 || at == e.length() - 1) {
+            return null;
+        }
+        String local = e.substring(0, at);
+        int plus = local.indexOf('+');
+        if (plus > 0) {
+            local = local.substring(0, plus);
+        }
+        return local + e.substring(at);
+    }
+
+    /**
+     * Фонетический ключ ФИО: каждое слово транслитерируется и сжимается
+     * (см. phonetic), отчества отбрасываются, слова сортируются —
+     * "Иванов Иван Петрович", "Ivan Ivanoff" и "иванов иван" дают один ключ.
+     */
+    static String nameKey(String fullName) {
+        if (fullName == null) {
+            return null;
+        }
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        String lower = fullName.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++) {
+            char ch = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetter(ch)) {
+                word.append(ch);
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (words.size() >= 3) {
+            words.removeIf(DuplicateKeys::isPatronymic);
+        }
+        List<String> codes = new ArrayList<>(words.size());
+        for (String w : words) {
+            String code = phonetic(transliterate(w));
+            if (code.length() >= 2) {
+                codes.add(code);
+            }
+        }
+        if (codes.isEmpty()) {
+            return null;
+        }
+        codes.sort(null);
+        return String.join(" ", codes);
+    }
+
+    private static boolean isPatronymic(String w) {
+        return w.endsWith("вич") || w.endsWith("вна") || w.endsWith("ична") || w.endsWith("ьич")
+                || w.endsWith("vich") || w.endsWith("vna") || w.endsWith("ichna");
+    }
+
+    static String transliterate(String word) {
+        StringBuilder sb = new StringBuilder(word.length() + 4);
+        for (int i = 0; i < word.length(); i++) {
+            char ch = word.charAt(i);
+            if (ch >= 'а' && ch <= 'я') {
+                sb.append(TRANSLIT[ch - 'а']);
+            } else if (ch == 'ё') {
+                sb.append('e');
+            } else if (ch >= 'a' && ch <= 'z') {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Грубый фонетический код латинского слова: разные записи одного звука
+     * сводятся к одной букве (sch/shch, kh/h, ts/tz, ph/f, w/v, x/ks...),
+     * после первой буквы выкидываются гласные, повторы схлопываются.
+     * Ivanov/Ivanoff -> "ivnv", Yulia/Julia/Юлия -> "ul".
+     */
+    static String phonetic(String latin) {
+        String s = latin
+                .replace("shch", "S").replace("sch", "S").replace("sh", "S")
+                .replace("tch", "C").replace("ch", "C")
+                .replace("zh", "Z").replace("kh", "h")
+                .replace("ts", "T").replace("tz", "T")
+                .replace("ph", "f").replace("ck", "k").replace("x", "ks")
+                .replace("yu", "u").replace("ju", "u").replace("iu", "u")
+                .replace("ya", "a").replace("ja", "a").replace("ia", "a")
+                .replace("ye", "e").replace("je", "e")
+                .replace("q", "k").replace("w", "v").replace("f", "v")
+                .replace("ce", "se").replace("ci", "si").replace("c", "k")
+                .replace("T", "c");
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            boolean vowel = "aeiouyj".indexOf(ch) >= 0;
+            if (i > 0 && vowel) {
+                continue;
+            }
+            if (!sb.isEmpty() && sb.charAt(sb.length() - 1) == ch) {
+                continue;
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.autoservice.index;
+
+/**
+ * По какому ключу блокировки совпали два клиента. strong — совпадение почти
+ * наверняка означает того же человека; слабые только подсказывают.
+ */
+public enum DuplicateReason {
+    PHONE("p:", true),
+    EMAIL("e:", true),
+    NAME_AND_EMAIL_LOCAL("ne:", true),
+    NAME("n:", false),
+    EMAIL_LOCAL("l:", false);
+
+    private final String prefix;
+    private final boolean strong;
+
+    DuplicateReason(String prefix, boolean strong) {
+        this.prefix = prefix;
+        this.strong = strong;
+    }
+
+    String prefix() {
+        return prefix;
+    }
+
+    public boolean isStrong() {
+        return strong;
+    }
+
+    static DuplicateReason ofKey(String key) {
+        for (DuplicateReason r : values()) {
+            if (key.startsWith(r.prefix)) {
+                return r;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный ключ " + key);
+    }
+}
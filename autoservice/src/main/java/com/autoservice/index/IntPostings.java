@@ -0,0 +1,94 @@
+package com.autoservice.index;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный список id без боксинга. id клиентов растут,
+ * так что add почти всегда дописывает в конец.
+ */
+final class IntPostings {
+
+    private int[] ids = new int[4];
+    private int size;
+
+    void add(int id) {
+        if (size > 0 && ids[size - 1] < id) {
+            append(id);
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+    }
+
+    boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Оставляет в candidates только то, что есть в этом списке.
+     * Возвращает новую длину candidates.
+     */
+    int retainIn(int[] candidates, int length) {
+        int n = 0;
+        if (size > length * 8) {
+            // Список сильно длиннее кандидатов — дешевле бинарный поиск
+            for (int i = 0; i < length; i++) {
+                if (contains(candidates[i])) {
+                    candidates[n++] = candidates[i];
+                }
+            }
+            return n;
+        }
+        // Оба отсортированы — линейное слияние
+        int j = 0;
+        for (int i = 0; i < length && j < size; i++) {
+            int id = candidates[i];
+            while (j < size && ids[j] < id) {
+                j++;
+            }
+            if (j < size && ids[j] == id) {
+                candidates[n++] = id;
+            }
+        }
+        return n;
+    }
+
+    private void append(int id) {
+        ensureCapacity(size + 1);
+        ids[size++] = id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(capacity, ids.length * 2));
+        }
+    }
+}
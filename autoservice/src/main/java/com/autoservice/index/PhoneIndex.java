@@ -0,0 +1,138 @@
+package com.autoservice.index;
+
+import com.autoservice.entity.Client;
+import com.autoservice.util.PhoneNumbers;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс нормализованных телефонов для определения звонящего.
+ * Два упорядоченных словаря: по номеру и по перевёрнутому номеру,
+ * так что "начинается с" и "заканчивается на" — это диапазон в дереве:
+ * O(log n + k), где k — сколько вернули.
+ */
+@Component
+public class PhoneIndex implements ClientIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, int[]> forward = new TreeMap<>();
+    private final NavigableMap<String, int[]> reversed = new TreeMap<>();
+    private final Map<Integer, String> phoneById = new HashMap<>();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            forward.clear();
+            reversed.clear();
+            phoneById.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Client client) {
+        String digits = PhoneNumbers.normalize(client.getPhone());
+        lock.writeLock().lock();
+        try {
+            removeLocked(client.getId());
+            if (digits != null) {
+                phoneById.put(client.getId(), digits);
+                addId(forward, digits, client.getId());
+                addId(reversed, reverse(digits), client.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * id клиентов, чей номер совпадает с digits по правилу match,
+     * по возрастанию номера; не больше limit.
+     */
+    public int[] lookup(String digits, PhoneMatch match, int limit) {
+        if (digits == null || digits.isEmpty()) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            return switch (match) {
+                case EXACT -> {
+                    int[] ids = forward.get(digits);
+                    yield ids == null ? new int[0] : Arrays.copyOf(ids, Math.min(ids.length, limit));
+                }
+                case PREFIX -> collect(forward, digits, limit);
+                case SUFFIX -> collect(reversed, reverse(digits), limit);
+            };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        String old = phoneById.remove(id);
+        if (old != null) {
+            removeId(forward, old, id);
+            removeId(reversed, reverse(old), id);
+        }
+    }
+
+    private static int[] collect(NavigableMap<String, int[]> map, String prefix, int limit) {
+        int[] out = new int[limit];
+        int n = 0;
+        // Все ключи с этим префиксом лежат в [prefix, prefix + Character.MAX_VALUE)
+        for (int[] ids : map.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (int id : ids) {
+                if (n == limit) {
+                    return out;
+                }
+                out[n++] = id;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static void addId(NavigableMap<String, int[]> map, String key, int id) {
+        // У одного номера обычно один клиент, так что массивы крошечные
+        map.merge(key, new int[]{id}, (old, single) -> {
+            int[] grown = Arrays.copyOf(old, old.length + 1);
+            grown[old.length] = id;
+            return grown;
+        });
+    }
+
+    private static void removeId(NavigableMap<String, int[]> map, String key, int id) {
+        int[] ids = map.get(key);
+        if (ids == null) {
+            return;
+        }
+        int[] rest = Arrays.stream(ids).filter(x -> x != id).toArray();
+        if (rest.length == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, rest);
+        }
+    }
+
+    private static String reverse(String s) {
+        return new StringBuilder(s).reverse().toString();
+    }
+}
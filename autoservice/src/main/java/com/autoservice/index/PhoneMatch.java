@@ -0,0 +1,8 @@
+package com.autoservice.index;
+
+/** Как сравнивать набранные цифры с нормализованным номером клиента. */
+public enum PhoneMatch {
+    EXACT,
+    PREFIX,
+    SUFFIX
+}
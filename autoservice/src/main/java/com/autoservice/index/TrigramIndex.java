@@ -0,0 +1,88 @@
+package com.autoservice.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Инвертированный индекс по триграммам одного текстового поля.
+ * Не потокобезопасен — синхронизацию делает владелец.
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    private final Map<String, IntPostings> postings = new HashMap<>();
+
+    static String normalize(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    void add(int id, String normalized) {
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, g -> new IntPostings()).add(id);
+        }
+    }
+
+    void remove(int id, String normalized) {
+        for (String gram : grams(normalized)) {
+            IntPostings list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Кандидаты (отсортированные id), у которых есть все триграммы запроса.
+     * Совпадение подстроки кандидата всё равно нужно проверить.
+     * Для запросов короче GRAM возвращает null — индексом тут не помочь.
+     */
+    int[] candidates(String normalizedQuery) {
+        if (normalizedQuery.length() < GRAM) {
+            return null;
+        }
+        Set<String> grams = grams(normalizedQuery);
+        IntPostings smallest = null;
+        for (String gram : grams) {
+            IntPostings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            if (smallest == null || list.size() < smallest.size()) {
+                smallest = list;
+            }
+        }
+
+        int[] result = smallest.toArray();
+        int length = result.length;
+        for (String gram : grams) {
+            IntPostings list = postings.get(gram);
+            if (list != smallest) {
+                length = list.retainIn(result, length);
+                if (length == 0) {
+                    break;
+                }
+            }
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    private static Set<String> grams(String s) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++) {
+            grams.add(s.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,7 @@
+package com.autoservice.metrics;
+
+import java.time.Instant;
+
+/** HTTP-запрос, выполнивший больше SQL, чем допускает порог N+1. */
+public record FlaggedRequest(Instant at, String method, String uri, int statements) {
+}
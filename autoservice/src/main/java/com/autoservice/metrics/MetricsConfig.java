@@ -0,0 +1,76 @@
+package com.autoservice.metrics;
+
+import com.autoservice.cache.ClientCache;
+import com.autoservice.change.ChangeFeed;
+import com.autoservice.service.OrderIntakeService;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Метрики приложения: @Timed на сервисах, подсчёт SQL на запрос и счётчики кэша клиентов.
+ * Всё видно на /actuator/metrics (порт management.server.port, только localhost).
+ */
+@Configuration
+public class MetricsConfig {
+
+    /** Нужен, чтобы @Timed на ClientService/OrderService превращался в таймеры. */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /** Оборачивает основной DataSource (с маршрутизацией по репликам) в SqlStatementCounter. */
+    @Bean
+    public static BeanPostProcessor sqlStatementCounter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ds && "dataSource".equals(beanName)
+                        ? new SqlStatementCounter(ds) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder clientCacheMetrics(ClientCache cache) {
+        return registry -> {
+            Gauge.builder("autoservice.clients.cache.size", cache, c -> c.stats().size())
+                    .description("Клиентов в кэше")
+                    .register(registry);
+            FunctionCounter.builder("autoservice.clients.cache.requests", cache, c -> c.stats().hits())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("autoservice.clients.cache.requests", cache, c -> c.stats().misses())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("autoservice.clients.cache.removals", cache, c -> c.stats().evictions())
+                    .tag("cause", "size")
+                    .register(registry);
+            FunctionCounter.builder("autoservice.clients.cache.removals", cache, c -> c.stats().expirations())
+                    .tag("cause", "ttl")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder orderIntakeMetrics(OrderIntakeService intake) {
+        return registry -> Gauge.builder("autoservice.orders.intake.queued", intake, OrderIntakeService::queued)
+                .description("Заявок в очереди приёма заказов")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder changeFeedMetrics(ChangeFeed feed) {
+        return registry -> Gauge.builder("autoservice.changes.subscribers", feed, ChangeFeed::subscriberCount)
+                .description("Открытых SSE-подписок на изменения")
+                .register(registry);
+    }
+}
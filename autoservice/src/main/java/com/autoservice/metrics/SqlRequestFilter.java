@@ -0,0 +1,88 @@
+package com.autoservice.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Детектор N+1: считает SQL на каждый HTTP-запрос и предупреждает, если их
+ * больше autoservice.sql.n-plus-one-threshold. Распределение числа запросов
+ * по эндпоинтам — в метрике autoservice.sql.statements.per.request.
+ */
+@Component
+public class SqlRequestFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlRequestFilter.class);
+    private static final int MAX_FLAGGED = 100;
+
+    private final MeterRegistry registry;
+    private final int threshold;
+    private final Deque<FlaggedRequest> flagged = new ArrayDeque<>();
+
+    public SqlRequestFilter(MeterRegistry registry,
+                            @Value("${autoservice.sql.n-plus-one-threshold:20}") int threshold) {
+        this.registry = registry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.begin();
+        int statements;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements = SqlStatementCounter.end();
+        }
+
+        // Шаблон (/orders/{id}), а не сам путь — иначе теги метрики разрастаются
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("autoservice.sql.statements.per.request")
+                .description("SQL-запросов на один HTTP-запрос")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(statements);
+
+        if (statements > threshold) {
+            log.warn("Возможный N+1: {} {} выполнил {} SQL (порог {})",
+                    request.getMethod(), request.getRequestURI(), statements, threshold);
+            registry.counter("autoservice.sql.n-plus-one", "method", request.getMethod(), "uri", uri).increment();
+            remember(new FlaggedRequest(Instant.now(), request.getMethod(), request.getRequestURI(), statements));
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /** Последние запросы, превысившие порог, новые первыми. */
+    public synchronized List<FlaggedRequest> recentFlagged() {
+        return new ArrayList<>(flagged);
+    }
+
+    private synchronized void remember(FlaggedRequest r) {
+        if (flagged.size() == MAX_FLAGGED) {
+            flagged.removeLast();
+        }
+        flagged.addFirst(r);
+    }
+}
@@ -0,0 +1,86 @@
+package com.autoservice.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Считает SQL-запросы в рамках текущего HTTP-запроса (см. SqlRequestFilter) на уровне JDBC:
+ * обёртка над DataSource, поэтому в счёт идёт и Hibernate, и JdbcTemplate. Запрос — это
+ * выполнение statement'а (execute*), пакет executeBatch — один запрос.
+ * Вне запроса (CLI, фоновые потоки) ничего не считает и соединения не оборачивает.
+ */
+public class SqlStatementCounter extends DelegatingDataSource {
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    public SqlStatementCounter(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    static void begin() {
+        CURRENT.set(new int[1]);
+    }
+
+    /** Завершает подсчёт и возвращает число запросов. */
+    static int end() {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    private static Connection counting(Connection con) {
+        if (CURRENT.get() == null) {
+            return con;
+        }
+        return (Connection) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(con, method, args);
+                    // createStatement / prepareStatement / prepareCall
+                    if (result instanceof Statement st && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(),
+                                new Class<?>[]{method.getReturnType()}, new CountingStatement(st));
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private record CountingStatement(Statement target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().startsWith("execute")) {
+                int[] count = CURRENT.get();
+                if (count != null) {
+                    count[0]++;
+                }
+            }
+            return SqlStatementCounter.invoke(target, method, args);
+        }
+    }
+}
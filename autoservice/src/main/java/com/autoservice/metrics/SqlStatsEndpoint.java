@@ -0,0 +1,86 @@
+package com.autoservice.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /actuator/sql — статистика Hibernate по запросам: сколько раз, сколько строк,
+ * среднее/максимальное/суммарное время, самые тяжёлые сверху. Плюс счётчики по
+ * сущностям и последние запросы с подозрением на N+1.
+ * DELETE /actuator/sql — обнулить статистику (замер "до/после").
+ */
+@Component
+@Endpoint(id = "sql")
+public class SqlStatsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    public record QueryRow(String query, long executions, long rows,
+                           double avgMs, long maxMs, long totalMs) {
+    }
+
+    public record EntityRow(String entity, long loads, long fetches, long inserts, long updates, long deletes) {
+    }
+
+    public record SqlReport(long statementsPrepared, long queryExecutions, long slowestQueryMs, String slowestQuery,
+                            long transactions, int nPlusOneThreshold, List<QueryRow> queries,
+                            List<EntityRow> entities, List<FlaggedRequest> flaggedRequests) {
+    }
+
+    private final Statistics statistics;
+    private final SqlRequestFilter requests;
+
+    public SqlStatsEndpoint(EntityManagerFactory emf, SqlRequestFilter requests) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        this.requests = requests;
+    }
+
+    @ReadOperation
+    public SqlReport report(@Nullable Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, limit);
+
+        List<QueryRow> queries = new ArrayList<>();
+        for (String q : statistics.getQueries()) {
+            QueryStatistics qs = statistics.getQueryStatistics(q);
+            queries.add(new QueryRow(q, qs.getExecutionCount(), qs.getExecutionRowCount(),
+                    qs.getExecutionAvgTimeAsDouble(), qs.getExecutionMaxTime(), qs.getExecutionTotalTime()));
+        }
+        queries.sort(Comparator.comparingLong(QueryRow::totalMs).reversed());
+        if (queries.size() > size) {
+            queries = new ArrayList<>(queries.subList(0, size));
+        }
+
+        List<EntityRow> entities = new ArrayList<>();
+        for (String name : statistics.getEntityNames()) {
+            var es = statistics.getEntityStatistics(name);
+            entities.add(new EntityRow(name, es.getLoadCount(), es.getFetchCount(),
+                    es.getInsertCount(), es.getUpdateCount(), es.getDeleteCount()));
+        }
+
+        return new SqlReport(statistics.getPrepareStatementCount(), statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(), statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getTransactionCount(), requests.getThreshold(), queries, entities,
+                requests.recentFlagged());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> reset() {
+        statistics.clear();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cleared", true);
+        return result;
+    }
+}
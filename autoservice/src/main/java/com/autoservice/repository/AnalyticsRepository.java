@@ -0,0 +1,80 @@
+package com.autoservice.repository;
+
+import com.autoservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Заказы для аналитического снимка: построчно, без сущностей и без
+ * BigDecimal/LocalDateTime — время и стоимость приходят уже числами.
+ * История — горячие заказы плюс архив, как в роллапах.
+ */
+@Repository
+public class AnalyticsRepository {
+
+    /** Получатель строк; employeeId 0 — без исполнителя, cost в копейках, noCost — total_cost IS NULL. */
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(int id, int clientId, int employeeId, OrderStatus status, long createdAt, long cost, boolean noCost);
+    }
+
+    // created_at — секунды локального времени, как будто это UTC (timestamp без зоны так и считается)
+    private static final String COLUMNS = """
+            id, client_id, coalesce(employee_id, 0) AS employee_id, status,
+            floor(extract(epoch FROM created_at))::bigint AS created_at,
+            (total_cost * 100)::bigint AS cost
+            """;
+
+    // Полная загрузка идёт курсором, иначе драйвер держит в памяти весь результат
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbc;
+
+    public AnalyticsRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Все заказы, включая архив. Вызывать в транзакции: без неё PostgreSQL не отдаёт курсор частями. */
+    public void streamAll(RowSink sink) {
+        String sql = "SELECT " + COLUMNS + " FROM orders UNION ALL SELECT " + COLUMNS + " FROM orders_archive";
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, handler(sink));
+    }
+
+    /** Горячие заказы с created_at не раньше since (по индексу orders_created_id_idx). */
+    public void streamCreatedSince(LocalDateTime since, RowSink sink) {
+        jdbc.query("SELECT " + COLUMNS + " FROM orders WHERE created_at >= ?", handler(sink), since);
+    }
+
+    /** Заказы с этими id, где бы они ни были; кого нет в ответе — удалены. */
+    public void streamByIds(Collection<Integer> ids, RowSink sink) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Integer[] array = ids.toArray(new Integer[0]);
+        jdbc.query("SELECT " + COLUMNS + " FROM orders WHERE id = ANY(?::int[])"
+                        + " UNION ALL SELECT " + COLUMNS + " FROM orders_archive WHERE id = ANY(?::int[])",
+                handler(sink), array, array);
+    }
+
+    private static RowCallbackHandler handler(RowSink sink) {
+        return rs -> accept(rs, sink);
+    }
+
+    private static void accept(ResultSet rs, RowSink sink) throws SQLException {
+        long cost = rs.getLong("cost");
+        boolean noCost = rs.wasNull();
+        sink.accept(rs.getInt("id"), rs.getInt("client_id"), rs.getInt("employee_id"),
+                OrderStatus.valueOf(rs.getString("status")), rs.getLong("created_at"), cost, noCost);
+    }
+}
@@ -0,0 +1,69 @@
+package com.autoservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Исполнители заказов: нагрузка сотрудников по открытым заказам и передача
+ * ещё не начатого заказа другому сотруднику.
+ */
+@Repository
+public class AssignmentRepository {
+
+    /** Открытые заказы сотрудника: число и сумма часов (без оценки — defaultHours). */
+    public record OpenLoad(int employeeId, int orders, BigDecimal hours) {
+    }
+
+    /** Заказ, который можно передать: id и его часы. */
+    public record Movable(int orderId, BigDecimal hours) {
+    }
+
+    // Самый давний ещё не начатый заказ, который получатель умеет делать и который
+    // не перегрузит его сверх отдающего. SKIP LOCKED: заказ, который прямо сейчас
+    // отменяют или переводят в работу, не ждём, а пропускаем
+    private static final String MOVABLE = """
+            SELECT id, coalesce(estimated_hours, ?) AS hours FROM orders
+            WHERE employee_id = ? AND status = 'CREATED'
+              AND (skill IS NULL OR skill = ANY(?::text[]))
+              AND coalesce(estimated_hours, ?) <= ?
+            ORDER BY created_at
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public AssignmentRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public List<OpenLoad> findOpenLoads(BigDecimal defaultHours) {
+        return jdbc.query("""
+                        SELECT employee_id, count(*) AS orders, sum(coalesce(estimated_hours, ?)) AS hours
+                        FROM orders
+                        WHERE status IN ('CREATED', 'IN_PROGRESS') AND employee_id IS NOT NULL
+                        GROUP BY employee_id
+                        """,
+                (rs, i) -> new OpenLoad(rs.getInt("employee_id"), rs.getInt("orders"), rs.getBigDecimal("hours")),
+                defaultHours);
+    }
+
+    /** Находит и блокирует до конца транзакции заказ donorId, который можно отдать. */
+    public Optional<Movable> lockMovable(int donorId, Collection<String> skills, BigDecimal maxHours,
+                                         BigDecimal defaultHours) {
+        return jdbc.query(MOVABLE, (rs, i) -> new Movable(rs.getInt("id"), rs.getBigDecimal("hours")),
+                        defaultHours, donorId, (Object) skills.toArray(new String[0]), defaultHours, maxHours)
+                .stream().findFirst();
+    }
+
+    /** Передаёт заказ; false — он уже не у fromId или уже начат. */
+    public boolean reassign(int orderId, int fromId, int toId) {
+        return jdbc.update("UPDATE orders SET employee_id = ? WHERE id = ? AND employee_id = ? AND status = 'CREATED'",
+                toId, orderId, fromId) == 1;
+    }
+}
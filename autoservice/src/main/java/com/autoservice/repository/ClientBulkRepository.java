@@ -0,0 +1,117 @@
+package com.autoservice.repository;
+
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Пакетное удаление клиентов одним SQL-оператором (DELETE/UPDATE ... RETURNING)
+ * вместо existsById + deleteById на каждого. Живые клиенты — deleted_at IS NULL.
+ */
+@Repository
+public class ClientBulkRepository {
+
+    /** Клиент, попавший под фильтр: removed = удалён, иначе пропущен из-за заказов. */
+    public record Target(int id, boolean removed) {
+    }
+
+    /** Заказ, затронутый каскадом, и его статус до изменения. */
+    public record AffectedOrder(Order order, OrderStatus previous) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    public ClientBulkRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Удаляет (soft — помечает deleted_at) клиентов под фильтром одним оператором.
+     * skipWithOrders — клиентов с заказами не трогать, вернуть их как removed = false.
+     */
+    public List<Target> deleteClients(Collection<Integer> ids, boolean withoutOrders,
+                                      boolean soft, boolean skipWithOrders) {
+        Filter f = new Filter(ids, withoutOrders);
+        String remove = soft
+                ? "UPDATE clients SET deleted_at = now() WHERE id IN (SELECT id FROM target WHERE NOT skip) RETURNING id"
+                : "DELETE FROM clients WHERE id IN (SELECT id FROM target WHERE NOT skip) RETURNING id";
+        String skip = skipWithOrders ? HAS_ORDERS : "false";
+        String sql = "WITH target AS (SELECT c.id, " + skip + " AS skip FROM clients c WHERE " + f.where + " FOR UPDATE), "
+                + "removed AS (" + remove + ") "
+                + "SELECT t.id, (t.id IN (SELECT id FROM removed)) AS removed FROM target t";
+        return jdbc.query(sql, (rs, i) -> new Target(rs.getInt("id"), rs.getBoolean("removed")), f.args());
+    }
+
+    /** Каскад для HARD: удаляет все заказы клиентов под фильтром, и горячие, и архивные. */
+    public List<AffectedOrder> deleteOrdersOf(Collection<Integer> ids, boolean withoutOrders) {
+        Filter f = new Filter(ids, withoutOrders);
+        String target = "client_id IN (SELECT c.id FROM clients c WHERE " + f.where + ")";
+        String returning = " RETURNING id, client_id, status AS previous, status, created_at, finished_at, total_cost,"
+                + " employee_id, estimated_hours";
+        String sql = "WITH hot AS (DELETE FROM orders WHERE " + target + returning + "), "
+                + "cold AS (DELETE FROM orders_archive WHERE " + target + returning + ") "
+                + "SELECT * FROM hot UNION ALL SELECT * FROM cold";
+        List<Object> args = new ArrayList<>(f.args);
+        args.addAll(f.args);
+        return jdbc.query(sql, AFFECTED, args.toArray());
+    }
+
+    /** Каскад для SOFT: отменяет открытые заказы клиентов под фильтром. */
+    public List<AffectedOrder> cancelOpenOrdersOf(Collection<Integer> ids, boolean withoutOrders) {
+        Filter f = new Filter(ids, withoutOrders);
+        String sql = "UPDATE orders o SET status = 'CANCELED', finished_at = now() "
+                + "FROM (SELECT id, status FROM orders WHERE status IN ('CREATED', 'IN_PROGRESS') "
+                + "      AND client_id IN (SELECT c.id FROM clients c WHERE " + f.where + ") FOR UPDATE) p "
+                + "WHERE o.id = p.id "
+                + "RETURNING o.id, o.client_id, p.status AS previous, o.status, o.created_at, o.finished_at, o.total_cost, "
+                + "o.employee_id, o.estimated_hours";
+        return jdbc.query(sql, AFFECTED, f.args());
+    }
+
+    // Заказы клиента могут лежать и в архиве (см. OrderArchiveRepository)
+    private static final String HAS_ORDERS = "(EXISTS (SELECT 1 FROM orders o WHERE o.client_id = c.id) "
+            + "OR EXISTS (SELECT 1 FROM orders_archive a WHERE a.client_id = c.id))";
+
+    private static final RowMapper<AffectedOrder> AFFECTED = (rs, i) -> {
+        Order o = new Order();
+        o.setId(rs.getInt("id"));
+        o.setClientId(rs.getInt("client_id"));
+        o.setStatus(OrderStatus.valueOf(rs.getString("status")));
+        o.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        var finished = rs.getTimestamp("finished_at");
+        o.setFinishedAt(finished == null ? null : finished.toLocalDateTime());
+        o.setTotalCost(rs.getBigDecimal("total_cost"));
+        // исполнителю нужно вернуть нагрузку открытых заказов
+        o.setEmployeeId(rs.getObject("employee_id", Integer.class));
+        o.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
+        return new AffectedOrder(o, OrderStatus.valueOf(rs.getString("previous")));
+    };
+
+    /** WHERE по клиентам: всегда только живые, плюс ids и/или "без заказов". */
+    private static final class Filter {
+        final String where;
+        final List<Object> args = new ArrayList<>();
+
+        Filter(Collection<Integer> ids, boolean withoutOrders) {
+            StringBuilder sb = new StringBuilder("c.deleted_at IS NULL");
+            if (ids != null && !ids.isEmpty()) {
+                sb.append(" AND c.id = ANY(?::int[])");
+                args.add(ids.toArray(new Integer[0]));
+            }
+            if (withoutOrders) {
+                sb.append(" AND NOT ").append(HAS_ORDERS);
+            }
+            this.where = sb.toString();
+        }
+
+        Object[] args() {
+            return args.toArray();
+        }
+    }
+}
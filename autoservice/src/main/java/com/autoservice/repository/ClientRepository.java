@@ -1,20 +1,40 @@
 package com.autoservice.repository;
 
+import com.autoservice.dto.ClientView;
 import com.autoservice.entity.Client;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Integer> {
 
     List<Client> findAllByOrderByIdAsc();
 
-    public boolean existsById(Integer id);
+    // Keyset-пагинация: WHERE id > ? ORDER BY id LIMIT ? — идёт по PK-индексу
+    List<Client> findByIdGreaterThanOrderByIdAsc(Integer afterId, Limit limit);
 
-    public void deleteById(Integer id);
+    // Проверка существования пачкой: только id, без загрузки сущностей
+    @Query("select c.id from Client c where c.id in :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
 
-    public Optional<Client> findById(Integer id);
+    // Потоковая выгрузка: курсор БД по 1000 строк, сразу в record-проекцию.
+    // Читать только внутри транзакции — иначе драйвер PostgreSQL вытянет всё разом
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.autoservice.dto.ClientView(c.id, c.fullName, c.phone, c.phoneDigits, c.email, c.notes) "
+            + "from Client c order by c.id")
+    Stream<ClientView> streamAllViews();
 }
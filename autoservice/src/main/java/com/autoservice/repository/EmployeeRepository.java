@@ -0,0 +1,16 @@
+package com.autoservice.repository;
+
+import com.autoservice.entity.Employee;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
+
+    List<Employee> findByActiveTrue();
+
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Integer afterId, Limit limit);
+}
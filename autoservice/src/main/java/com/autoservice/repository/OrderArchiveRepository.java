@@ -0,0 +1,152 @@
+package com.autoservice.repository;
+
+import com.autoservice.dto.TimeCursor;
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Горячая таблица orders и архив orders_archive: перенос завершённых заказов
+ * в архив и выборки по периоду, которые при необходимости смотрят в обе таблицы.
+ */
+@Repository
+public class OrderArchiveRepository {
+
+    /** Перенесённый заказ: id и дата создания (для границы архива). */
+    public record Moved(int id, LocalDateTime createdAt) {
+    }
+
+    private static final String COLUMNS =
+            "id, client_id, status, created_at, finished_at, total_cost, employee_id, skill, estimated_hours";
+
+    // Одним оператором: DELETE ... RETURNING из горячей таблицы прямо в INSERT архива.
+    // SKIP LOCKED — параллельный перенос (второй экземпляр приложения) берёт другие строки
+    private static final String MOVE = """
+            WITH moved AS (
+                DELETE FROM orders WHERE id IN (
+                    SELECT id FROM orders
+                    WHERE status IN ('DONE', 'CANCELED') AND finished_at < ?
+                    ORDER BY finished_at LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING %1$s)
+            INSERT INTO orders_archive (%1$s) SELECT %1$s FROM moved
+            RETURNING id, created_at
+            """.formatted(COLUMNS);
+
+    // Полная выгрузка идёт курсором, иначе драйвер держит в памяти весь результат
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    public OrderArchiveRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Переносит до limit заказов, завершённых раньше finishedBefore. */
+    public List<Moved> moveFinishedBefore(LocalDateTime finishedBefore, int limit) {
+        return jdbc.query(MOVE, (rs, i) -> new Moved(rs.getInt("id"), rs.getTimestamp("created_at").toLocalDateTime()),
+                Timestamp.valueOf(finishedBefore), limit);
+    }
+
+    /** Самый поздний created_at в архиве; пусто — архив пуст. */
+    public Optional<LocalDateTime> findArchiveHorizon() {
+        Timestamp max = jdbc.queryForObject("SELECT max(created_at) FROM orders_archive", Timestamp.class);
+        return Optional.ofNullable(max).map(Timestamp::toLocalDateTime);
+    }
+
+    public Optional<Order> findArchivedById(int id) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM orders_archive WHERE id = ?", ORDER, id)
+                .stream().findFirst();
+    }
+
+    /**
+     * Все заказы по id; withArchive — вместе с архивом, одним курсором (MergeAppend
+     * по первичным ключам обеих таблиц). Поток закрывать; только внутри транзакции:
+     * без неё PostgreSQL не отдаёт курсор частями.
+     */
+    public Stream<Order> streamAll(boolean withArchive) {
+        String sql = withArchive
+                ? "SELECT " + COLUMNS + " FROM orders UNION ALL SELECT " + COLUMNS + " FROM orders_archive ORDER BY id"
+                : "SELECT " + COLUMNS + " FROM orders ORDER BY id";
+        return jdbc.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, ORDER);
+    }
+
+    /**
+     * Заказы в статусе status с id после afterId, по id, не больше limit.
+     * withArchive — статус завершённый и архив не пуст: по limit строк из каждой
+     * таблицы по индексу (status, id), затем общий порядок.
+     */
+    public List<Order> findByStatus(OrderStatus status, int afterId, int limit, boolean withArchive) {
+        String select = "SELECT " + COLUMNS + " FROM %s WHERE status = ? AND id > ? ORDER BY id LIMIT ?";
+        if (!withArchive) {
+            return jdbc.query(select.formatted("orders"), ORDER, status.name(), afterId, limit);
+        }
+        String sql = "(" + select.formatted("orders") + ") UNION ALL (" + select.formatted("orders_archive")
+                + ") ORDER BY id LIMIT ?";
+        return jdbc.query(sql, ORDER, status.name(), afterId, limit, status.name(), afterId, limit, limit);
+    }
+
+    /**
+     * Заказы с created_at в [from, to) после курсора, по (created_at, id), не больше limit.
+     * withArchive — период заходит в архив: по limit строк из каждой таблицы по
+     * индексу (created_at, id), затем общий порядок. Иначе архив не трогается.
+     */
+    public List<Order> findCreatedBetween(LocalDateTime from, LocalDateTime to, TimeCursor after,
+                                          int limit, boolean withArchive) {
+        List<Object> args = new ArrayList<>();
+        String hot = rangeSelect("orders", from, to, after, limit, args);
+        if (!withArchive) {
+            return jdbc.query(hot, ORDER, args.toArray());
+        }
+        String cold = rangeSelect("orders_archive", from, to, after, limit, args);
+        args.add(limit);
+        String sql = "(" + hot + ") UNION ALL (" + cold + ") ORDER BY created_at, id LIMIT ?";
+        return jdbc.query(sql, ORDER, args.toArray());
+    }
+
+    private static String rangeSelect(String table, LocalDateTime from, LocalDateTime to, TimeCursor after,
+                                      int limit, List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM " + table + " WHERE true");
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) > (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at, id LIMIT ?");
+        args.add(limit);
+        return sql.toString();
+    }
+
+    private static final RowMapper<Order> ORDER = (rs, i) -> {
+        Timestamp finished = rs.getTimestamp("finished_at");
+        Order o = new Order(rs.getInt("id"), rs.getInt("client_id"), OrderStatus.valueOf(rs.getString("status")),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                finished == null ? null : finished.toLocalDateTime(),
+                rs.getBigDecimal("total_cost"));
+        o.setEmployeeId(rs.getObject("employee_id", Integer.class));
+        o.setSkill(rs.getString("skill"));
+        o.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
+        return o;
+    };
+}
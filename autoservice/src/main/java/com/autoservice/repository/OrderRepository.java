@@ -1,9 +1,36 @@
 package com.autoservice.repository;
 
 import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Integer afterId, Limit limit);
+
+    // WHERE status = ? AND id > ? ORDER BY id — ровно по индексу (status, id)
+    List<Order> findByStatusAndIdGreaterThanOrderByIdAsc(OrderStatus status, Integer afterId, Limit limit);
+
+    // Каждая строка: [OrderStatus, Long]
+    @Query("select o.status, count(o) from Order o where o.status in :statuses group by o.status")
+    List<Object[]> countByStatus(@Param("statuses") Collection<OrderStatus> statuses);
+
+    // Смена статуса как compare-and-set: 0 строк — статус уже успели поменять
+    @Modifying
+    @Query("update Order o set o.status = :next, o.finishedAt = :finishedAt " +
+            "where o.id = :id and o.status = :expected")
+    int updateStatus(@Param("id") Integer id,
+                     @Param("expected") OrderStatus expected,
+                     @Param("next") OrderStatus next,
+                     @Param("finishedAt") LocalDateTime finishedAt);
 }
@@ -0,0 +1,70 @@
+package com.autoservice.repository;
+
+import com.autoservice.dto.OrderSummary;
+import com.autoservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Последние заказы сразу для многих клиентов — одним запросом, в DTO, вместе с архивом.
+ * Order связан с клиентом только голым client_id, так что идём мимо JPA.
+ */
+@Repository
+public class OrderSummaryRepository {
+
+    // LATERAL: для каждого клиента — свой top-N по индексам (client_id, created_at, id)
+    // горячей таблицы и архива, не читая всю историю клиента. Заказ лежит ровно в одной
+    // из них (перенос — одна транзакция), так что из N + N строк берём первые N
+    private static final String RECENT_BY_CLIENTS = """
+            SELECT c.client_id, o.id, o.status, o.created_at, o.finished_at, o.total_cost
+            FROM unnest(?::int[]) AS c(client_id)
+            CROSS JOIN LATERAL (
+                SELECT * FROM (
+                    (SELECT id, status, created_at, finished_at, total_cost
+                     FROM orders
+                     WHERE client_id = c.client_id
+                     ORDER BY created_at DESC, id DESC
+                     LIMIT ?)
+                    UNION ALL
+                    (SELECT id, status, created_at, finished_at, total_cost
+                     FROM orders_archive
+                     WHERE client_id = c.client_id
+                     ORDER BY created_at DESC, id DESC
+                     LIMIT ?)
+                ) recent
+                ORDER BY created_at DESC, id DESC
+                LIMIT ?
+            ) o
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public OrderSummaryRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** До perClient последних заказов на каждого клиента; ключ — client_id. */
+    public Map<Integer, List<OrderSummary>> findRecentByClients(Collection<Integer> clientIds, int perClient) {
+        Map<Integer, List<OrderSummary>> result = new HashMap<>();
+        if (clientIds.isEmpty()) {
+            return result;
+        }
+        jdbc.query(RECENT_BY_CLIENTS, rs -> {
+            Timestamp finished = rs.getTimestamp("finished_at");
+            OrderSummary o = new OrderSummary(rs.getInt("id"),
+                    OrderStatus.valueOf(rs.getString("status")),
+                    rs.getTimestamp("created_at").toLocalDateTime(),
+                    finished == null ? null : finished.toLocalDateTime(),
+                    rs.getBigDecimal("total_cost"));
+            result.computeIfAbsent(rs.getInt("client_id"), k -> new ArrayList<>()).add(o);
+        }, clientIds.toArray(new Integer[0]), perClient, perClient, perClient);
+        return result;
+    }
+}
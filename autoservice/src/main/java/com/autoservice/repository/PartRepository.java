@@ -0,0 +1,17 @@
+package com.autoservice.repository;
+
+import com.autoservice.entity.Part;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PartRepository extends JpaRepository<Part, Integer> {
+
+    boolean existsBySku(String sku);
+
+    // Keyset-пагинация по PK, как у клиентов и заказов
+    List<Part> findByIdGreaterThanOrderByIdAsc(Integer afterId, Limit limit);
+}
@@ -0,0 +1,65 @@
+package com.autoservice.repository;
+
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Накопленные изменения роллапов за одну транзакцию: по дню создания, клиенту
+ * и статусу — из этого ключа складываются и дневные, и клиентские роллапы.
+ */
+public class RollupDeltas {
+
+    record Key(LocalDate day, int clientId, OrderStatus status) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = day.compareTo(o.day);
+            if (c == 0) {
+                c = Integer.compare(clientId, o.clientId);
+            }
+            return c != 0 ? c : status.compareTo(o.status);
+        }
+    }
+
+    static final class Delta {
+        long count;
+        BigDecimal revenue = BigDecimal.ZERO;
+    }
+
+    final Map<Key, Delta> byKey = new TreeMap<>();
+
+    /** Заказ появился в статусе status. */
+    public RollupDeltas added(Order o, OrderStatus status) {
+        apply(o, status, 1);
+        return this;
+    }
+
+    /** Заказ удалён. */
+    public RollupDeltas removed(Order o) {
+        apply(o, o.getStatus(), -1);
+        return this;
+    }
+
+    /** Заказ перешёл из from в его текущий статус. */
+    public RollupDeltas moved(Order o, OrderStatus from) {
+        apply(o, from, -1);
+        apply(o, o.getStatus(), 1);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return byKey.isEmpty();
+    }
+
+    private void apply(Order o, OrderStatus status, int sign) {
+        BigDecimal cost = o.getTotalCost() == null ? BigDecimal.ZERO : o.getTotalCost();
+        Delta d = byKey.computeIfAbsent(new Key(o.getCreatedAt().toLocalDate(), o.getClientId(), status),
+                k -> new Delta());
+        d.count += sign;
+        d.revenue = d.revenue.add(sign > 0 ? cost : cost.negate());
+    }
+}
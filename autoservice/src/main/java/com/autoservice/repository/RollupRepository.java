@@ -0,0 +1,223 @@
+package com.autoservice.repository;
+
+import com.autoservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблицы роллапов заказов. Не сущности: пишем upsert'ами с прибавлением,
+ * читаем агрегатами — поэтому JdbcTemplate, а не JPA.
+ *
+ * Запись заказа только добавляет строки в order_rollup_deltas — ни одной общей
+ * строки, параллельные заказы друг друга не ждут. Строки роллапов (за сегодня —
+ * одна на всех) обновляет свёртка fold в фоне. Чтения складывают роллапы с ещё
+ * не свёрнутыми дельтами, так что отчёты точны сразу после коммита заказа.
+ */
+@Repository
+public class RollupRepository {
+
+    public record BucketRow(LocalDate periodStart, OrderStatus status, long orderCount, BigDecimal revenue) {
+    }
+
+    public record ClientRow(int clientId, long orderCount, BigDecimal revenue) {
+    }
+
+    private static final String INSERT_DELTA = """
+            INSERT INTO order_rollup_deltas (day, client_id, status, order_count, revenue) VALUES (?, ?, ?, ?, ?)
+            """;
+
+    // Дельты уходят из таблицы и прибавляются к роллапам одним оператором: свёртка
+    // либо прошла целиком, либо нет. SKIP LOCKED — соседний экземпляр сворачивает другие
+    private static final String FOLD = """
+            WITH moved AS (
+                DELETE FROM order_rollup_deltas
+                WHERE id IN (SELECT id FROM order_rollup_deltas ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING day, client_id, status, order_count, revenue
+            ), days AS (
+                INSERT INTO order_daily_rollup (day, status, order_count, revenue)
+                SELECT day, status, sum(order_count), sum(revenue) FROM moved GROUP BY 1, 2 ORDER BY 1, 2
+                ON CONFLICT (day, status) DO UPDATE
+                SET order_count = order_daily_rollup.order_count + EXCLUDED.order_count,
+                    revenue     = order_daily_rollup.revenue + EXCLUDED.revenue
+            ), clients AS (
+                INSERT INTO client_order_rollup (client_id, status, order_count, revenue)
+                SELECT client_id, status, sum(order_count), sum(revenue) FROM moved GROUP BY 1, 2 ORDER BY 1, 2
+                ON CONFLICT (client_id, status) DO UPDATE
+                SET order_count = client_order_rollup.order_count + EXCLUDED.order_count,
+                    revenue     = client_order_rollup.revenue + EXCLUDED.revenue
+            )
+            SELECT count(*) FROM moved
+            """;
+
+    // Роллапы вместе с несвёрнутыми дельтами
+    private static final String DAILY = """
+            (SELECT day, status, order_count, revenue FROM order_daily_rollup
+             UNION ALL
+             SELECT day, status, order_count, revenue FROM order_rollup_deltas) r
+            """;
+
+    private static final String BY_CLIENT = """
+            (SELECT client_id, status, order_count, revenue FROM client_order_rollup
+             UNION ALL
+             SELECT client_id, status, order_count, revenue FROM order_rollup_deltas) r
+            """;
+
+    // История — это горячие заказы плюс архив
+    private static final String ALL_ORDERS = """
+            (SELECT client_id, status, created_at, total_cost FROM orders
+             UNION ALL
+             SELECT client_id, status, created_at, total_cost FROM orders_archive) o
+            """;
+
+    private static final String DAY_FROM_HISTORY = """
+            SELECT created_at::date AS day, status, count(*) AS order_count, coalesce(sum(total_cost), 0) AS revenue
+            FROM %s GROUP BY 1, 2
+            """.formatted(ALL_ORDERS);
+
+    private static final String CLIENT_FROM_HISTORY = """
+            SELECT client_id, status, count(*) AS order_count, coalesce(sum(total_cost), 0) AS revenue
+            FROM %s GROUP BY 1, 2
+            """.formatted(ALL_ORDERS);
+
+    private final JdbcTemplate jdbc;
+
+    public RollupRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Записывает дельты; вызывать в той же транзакции, что и запись заказа. */
+    public void apply(RollupDeltas deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<RollupDeltas.Key, RollupDeltas.Delta> e : deltas.byKey.entrySet()) {
+            if (!isZero(e.getValue())) {
+                RollupDeltas.Key k = e.getKey();
+                rows.add(new Object[]{Date.valueOf(k.day()), k.clientId(), k.status().name(),
+                        e.getValue().count, e.getValue().revenue});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(INSERT_DELTA, rows);
+        }
+    }
+
+    /** Сворачивает до limit самых старых дельт в роллапы. Возвращает, сколько свернула. */
+    public int fold(int limit) {
+        Integer n = jdbc.queryForObject(FOLD, Integer.class, limit);
+        return n == null ? 0 : n;
+    }
+
+    /**
+     * Бакеты за период: unit — 'day' / 'week' / 'month' (аргумент date_trunc).
+     * Недели и месяцы складываются из дневных строк: стоимость O(дней), не O(заказов).
+     */
+    public List<BucketRow> findBuckets(String unit, LocalDate from, LocalDate to) {
+        return jdbc.query("""
+                        SELECT date_trunc(?, day)::date AS period_start, status,
+                               sum(order_count) AS order_count, sum(revenue) AS revenue
+                        FROM %s
+                        WHERE day BETWEEN ? AND ?
+                        GROUP BY 1, 2
+                        ORDER BY 1, 2
+                        """.formatted(DAILY),
+                (rs, i) -> new BucketRow(rs.getDate("period_start").toLocalDate(),
+                        OrderStatus.valueOf(rs.getString("status")),
+                        rs.getLong("order_count"),
+                        rs.getBigDecimal("revenue")),
+                unit, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Заказы по статусам за всю историю, включая архив: сумма дневных строк,
+     * O(дней), а не O(заказов). Статусов без заказов в ответе нет.
+     */
+    public Map<OrderStatus, Long> countByStatus(Collection<OrderStatus> statuses) {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        jdbc.query("SELECT status, sum(order_count) FROM " + DAILY + " WHERE status = ANY(?::varchar[]) GROUP BY status",
+                (RowCallbackHandler) rs -> counts.put(OrderStatus.valueOf(rs.getString(1)), rs.getLong(2)),
+                (Object) statuses.stream().map(OrderStatus::name).toArray(String[]::new));
+        return counts;
+    }
+
+    /** Клиенты по убыванию выручки (отменённые заказы в выручку не идут). */
+    public List<ClientRow> findTopClients(int limit) {
+        return jdbc.query("""
+                        SELECT client_id, sum(order_count) AS order_count,
+                               coalesce(sum(revenue) FILTER (WHERE status <> 'CANCELED'), 0) AS revenue
+                        FROM %s
+                        GROUP BY client_id
+                        HAVING sum(order_count) > 0
+                        ORDER BY revenue DESC, client_id
+                        LIMIT ?
+                        """.formatted(BY_CLIENT),
+                (rs, i) -> new ClientRow(rs.getInt("client_id"), rs.getLong("order_count"), rs.getBigDecimal("revenue")),
+                limit);
+    }
+
+    /** Итоги по заданным клиентам; клиентов без заказов в ответе нет. */
+    public List<ClientRow> findClientTotals(Collection<Integer> clientIds) {
+        if (clientIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query("""
+                        SELECT client_id, sum(order_count) AS order_count,
+                               coalesce(sum(revenue) FILTER (WHERE status <> 'CANCELED'), 0) AS revenue
+                        FROM %s
+                        WHERE client_id = ANY(?::int[])
+                        GROUP BY client_id
+                        """.formatted(BY_CLIENT),
+                (rs, i) -> new ClientRow(rs.getInt("client_id"), rs.getLong("order_count"), rs.getBigDecimal("revenue")),
+                (Object) clientIds.toArray(new Integer[0]));
+    }
+
+    /** Сколько бакетов расходится с историей заказов. */
+    public int countDayMismatches() {
+        return countMismatches(DAY_FROM_HISTORY, DAILY, "day");
+    }
+
+    public int countClientMismatches() {
+        return countMismatches(CLIENT_FROM_HISTORY, BY_CLIENT, "client_id");
+    }
+
+    /**
+     * Блокирует дельты и роллапы до конца транзакции: новые дельты и свёртка
+     * подождут пересчёта и не посчитаются дважды. Дельты — первыми, как их берёт fold.
+     */
+    public void lockForRebuild() {
+        jdbc.execute("LOCK TABLE order_rollup_deltas, order_daily_rollup, client_order_rollup IN EXCLUSIVE MODE");
+    }
+
+    /** Пересчёт роллапов с нуля по orders и orders_archive; несвёрнутые дельты в нём уже учтены. */
+    public void rebuild() {
+        jdbc.update("DELETE FROM order_rollup_deltas");
+        jdbc.update("DELETE FROM order_daily_rollup");
+        jdbc.update("INSERT INTO order_daily_rollup (day, status, order_count, revenue) " + DAY_FROM_HISTORY);
+        jdbc.update("DELETE FROM client_order_rollup");
+        jdbc.update("INSERT INTO client_order_rollup (client_id, status, order_count, revenue) " + CLIENT_FROM_HISTORY);
+    }
+
+    private int countMismatches(String historySql, String current, String keyColumn) {
+        String totals = "(SELECT " + keyColumn + ", status, sum(order_count) AS order_count, sum(revenue) AS revenue"
+                + " FROM " + current + " GROUP BY 1, 2) r";
+        Integer n = jdbc.queryForObject(
+                "SELECT count(*) FROM (" + historySql + ") h " +
+                        "FULL JOIN " + totals + " ON r." + keyColumn + " = h." + keyColumn + " AND r.status = h.status " +
+                        "WHERE coalesce(h.order_count, 0) <> coalesce(r.order_count, 0) " +
+                        "OR coalesce(h.revenue, 0) <> coalesce(r.revenue, 0)",
+                Integer.class);
+        return n == null ? 0 : n;
+    }
+
+    private static boolean isZero(RollupDeltas.Delta d) {
+        return d.count == 0 && d.revenue.signum() == 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.autoservice.repository;
+
+import com.autoservice.dto.PartReservation;
+import com.autoservice.dto.StockLevel;
+import com.autoservice.entity.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Остатки и резервы запчастей. Всё — условными UPDATE'ами без SELECT ... FOR UPDATE:
+ * проверка "хватает ли" и списание делаются одним оператором, поэтому параллельные
+ * резервы одной запчасти не могут продать больше, чем есть (страхует ещё и
+ * CHECK reserved <= on_hand в схеме). Каждый оператор возвращает новый остаток
+ * с version — для кэша остатков в памяти.
+ */
+@Repository
+public class StockRepository {
+
+    private static final String LEVEL = "id, on_hand, reserved, version";
+
+    private static final String RESERVE = """
+            UPDATE parts SET reserved = reserved + ?, version = version + 1
+            WHERE id = ? AND on_hand - reserved >= ?
+            RETURNING %s
+            """.formatted(LEVEL);
+
+    private static final String ADD_RESERVATION = """
+            INSERT INTO part_reservations (order_id, part_id, quantity) VALUES (?, ?, ?)
+            ON CONFLICT (order_id, part_id) DO UPDATE
+            SET quantity = part_reservations.quantity + EXCLUDED.quantity
+            """;
+
+    // Списание не уводит остаток ниже обещанного заказам
+    private static final String ADJUST = """
+            UPDATE parts SET on_hand = on_hand + ?, version = version + 1
+            WHERE id = ? AND on_hand + ? >= reserved
+            RETURNING %s
+            """.formatted(LEVEL);
+
+    // Строки резерва уходят одним оператором; сумма по запчастям (у нескольких заказов
+    // может быть одна и та же) собирается уже в памяти
+    private static final String DELETE_RESERVATIONS = "DELETE FROM part_reservations WHERE %s RETURNING part_id, quantity";
+
+    // Резерв вернулся в свободные
+    private static final String RELEASE = """
+            UPDATE parts SET reserved = reserved - ?, version = version + 1
+            WHERE id = ? AND reserved >= ?
+            RETURNING %s
+            """.formatted(LEVEL);
+
+    // Заказ выполнен: зарезервированное ушло со склада
+    private static final String CONSUME = """
+            UPDATE parts SET reserved = reserved - ?, on_hand = on_hand - ?, version = version + 1
+            WHERE id = ? AND reserved >= ?
+            RETURNING %s
+            """.formatted(LEVEL);
+
+    private final JdbcTemplate jdbc;
+
+    public StockRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public Optional<StockLevel> find(int partId) {
+        return jdbc.query("SELECT " + LEVEL + " FROM parts WHERE id = ?", STOCK, partId).stream().findFirst();
+    }
+
+    public List<StockLevel> findAll() {
+        return jdbc.query("SELECT " + LEVEL + " FROM parts", STOCK);
+    }
+
+    /**
+     * Статус заказа из горячей таблицы; пусто — нет такого (или он уже в архиве).
+     * FOR SHARE держит статус до конца транзакции: перевод в DONE/CANCELED
+     * дождётся коммита резерва и снимет его, а не оставит висеть.
+     * Резервы под разные заказы друг друга не ждут.
+     */
+    public Optional<OrderStatus> lockOrder(int orderId) {
+        return jdbc.queryForList("SELECT status FROM orders WHERE id = ? FOR SHARE", String.class, orderId)
+                .stream().findFirst().map(OrderStatus::valueOf);
+    }
+
+    public void addReservation(int orderId, int partId, int quantity) {
+        jdbc.update(ADD_RESERVATION, orderId, partId, quantity);
+    }
+
+    /** Резервирует quantity штук, если столько свободно; пусто — не хватает (или нет запчасти). */
+    public Optional<StockLevel> reserve(int partId, int quantity) {
+        return jdbc.query(RESERVE, STOCK, quantity, partId, quantity).stream().findFirst();
+    }
+
+    /** Приход (delta > 0) или списание; пусто — нет запчасти или списание задело резерв. */
+    public Optional<StockLevel> adjust(int partId, int delta) {
+        return jdbc.query(ADJUST, STOCK, delta, partId, delta).stream().findFirst();
+    }
+
+    /** Заказ выполнен: его резервы уходят со склада. */
+    public List<StockLevel> consumeOrder(int orderId) {
+        return release(true, "order_id = ?", orderId);
+    }
+
+    /** Заказы отменены или удалены: их резервы снова свободны. */
+    public List<StockLevel> releaseOrders(Collection<Integer> orderIds) {
+        return release(false, "order_id = ANY(?::int[])", (Object) orderIds.toArray(new Integer[0]));
+    }
+
+    public List<StockLevel> releaseLine(int orderId, int partId) {
+        return release(false, "order_id = ? AND part_id = ?", orderId, partId);
+    }
+
+    /**
+     * Удаляет строки резерва и возвращает их количество остаткам — по одному
+     * условному UPDATE на запчасть, по возрастанию id, как reserve в PartService:
+     * встречные резерв и снятие берут строки parts в одном порядке и не попадают в дедлок.
+     */
+    private List<StockLevel> release(boolean consume, String where, Object... args) {
+        Map<Integer, Integer> total = new TreeMap<>();
+        jdbc.query(DELETE_RESERVATIONS.formatted(where),
+                (RowCallbackHandler) rs -> total.merge(rs.getInt("part_id"), rs.getInt("quantity"), Integer::sum),
+                args);
+        List<StockLevel> levels = new ArrayList<>(total.size());
+        total.forEach((partId, quantity) -> levels.add((consume
+                ? jdbc.query(CONSUME, STOCK, quantity, quantity, partId, quantity)
+                : jdbc.query(RELEASE, STOCK, quantity, partId, quantity)).stream().findFirst()
+                // Резерв без покрытия в parts.reserved — данные разошлись, откатываем
+                .orElseThrow(() -> new IllegalStateException("Резерв " + quantity
+                        + " шт. запчасти id=" + partId + " больше записанного в остатке"))));
+        return levels;
+    }
+
+    public List<PartReservation> findReservations(int orderId) {
+        return jdbc.query("SELECT order_id, part_id, quantity FROM part_reservations WHERE order_id = ? ORDER BY part_id",
+                (rs, i) -> new PartReservation(rs.getInt("order_id"), rs.getInt("part_id"), rs.getInt("quantity")),
+                orderId);
+    }
+
+    private static final RowMapper<StockLevel> STOCK = (rs, i) ->
+            new StockLevel(rs.getInt("id"), rs.getInt("on_hand"), rs.getInt("reserved"), rs.getLong("version"));
+}
@@ -0,0 +1,269 @@
+package com.autoservice.service;
+
+import com.autoservice.analytics.AnalyticsGroupBy;
+import com.autoservice.analytics.GroupTable;
+import com.autoservice.analytics.OrderFilter;
+import com.autoservice.analytics.OrderSnapshot;
+import com.autoservice.change.ChangeBatch;
+import com.autoservice.change.ChangeEvent;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.AnalyticsReport;
+import com.autoservice.dto.AnalyticsRow;
+import com.autoservice.dto.AnalyticsSnapshotInfo;
+import com.autoservice.dto.AnalyticsSort;
+import com.autoservice.repository.AnalyticsRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ad-hoc аналитика по заказам (выручка по клиентам, средний чек по месяцам,
+ * распределение по статусам и т.п.) на колоночном снимке в памяти вместо
+ * выборки сущностей. Снимок строится из БД при первом запросе, дальше
+ * обновляется инкрементально: заказы из ChangeTracker перечитываются по id,
+ * новые заказы других экземпляров — по created_at не раньше самого позднего
+ * в снимке минус new-orders-overlap; уже известные id при этом пропускаются.
+ * По id так искать нельзя: последовательность раздаёт id пачками по 50, и
+ * другой экземпляр создаёт заказы с id меньше нашего максимума. Перекрытие
+ * покрывает время от created_at до коммита и расхождение часов; что
+ * закоммичено позже — и правки чужих заказов — подтянет полная пересборка
+ * раз в rebuild-interval, это и есть предел отставания для них.
+ */
+@Service
+@Timed(value = "autoservice.service", histogram = true)
+public class AnalyticsService {
+
+    public static final int MAX_GROUPS = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+    // Надгробий больше четверти живых строк — пора ужать снимок
+    private static final int COMPACT_RATIO = 4;
+
+    private final AnalyticsRepository repository;
+    private final ChangeTracker changes;
+    private final TransactionTemplate tx;
+    private final ForkJoinPool pool;
+    private final long maxStalenessNanos;
+    private final long overlapSeconds;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    // null — ещё не загружен
+    private volatile OrderSnapshot snapshot;
+    private volatile long refreshedNanos;
+    private volatile LocalDateTime refreshedAt;
+    private volatile long lastRefreshMs;
+    // Обновление упало на полпути: следующее — полная загрузка (под refreshLock)
+    private boolean reload;
+
+    public AnalyticsService(AnalyticsRepository repository, ChangeTracker changes, TransactionTemplate tx,
+                            @Value("${autoservice.analytics.parallelism:0}") int parallelism,
+                            @Value("${autoservice.analytics.max-staleness:5s}") Duration maxStaleness,
+                            @Value("${autoservice.analytics.new-orders-overlap:10s}") Duration newOrdersOverlap) {
+        this.repository = repository;
+        this.changes = changes;
+        this.tx = tx;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.overlapSeconds = newOrdersOverlap.toSeconds();
+    }
+
+    public AnalyticsReport query(OrderFilter filter, AnalyticsGroupBy groupBy, AnalyticsSort sort, int limit) {
+        long started = System.nanoTime();
+        GroupTable table = current().aggregate(filter, groupBy, pool);
+
+        List<Group> groups = new ArrayList<>(table.size());
+        long[] totals = new long[3];
+        table.forEach((key, orders, paid, revenue) -> {
+            groups.add(new Group(key, orders, paid, revenue));
+            totals[0] += orders;
+            totals[1] += paid;
+            totals[2] += revenue;
+        });
+        Comparator<Group> order = switch (sort) {
+            case KEY -> Comparator.comparingLong(Group::key);
+            case ORDERS -> Comparator.comparingLong(Group::orders).reversed().thenComparingLong(Group::key);
+            case REVENUE -> Comparator.comparingLong(Group::revenue).reversed().thenComparingLong(Group::key);
+        };
+
+        int n = Math.max(1, Math.min(limit, MAX_GROUPS));
+        List<AnalyticsRow> rows = new ArrayList<>(Math.min(n, groups.size()));
+        for (Group g : top(groups, order, n)) {
+            BigDecimal revenue = money(g.revenue());
+            rows.add(new AnalyticsRow(groupBy.present(g.key()), g.orders(), revenue, average(revenue, g.paid())));
+        }
+        return new AnalyticsReport(groupBy, totals[0], money(totals[2]), groups.size(), rows,
+                (System.nanoTime() - started) / 1000);
+    }
+
+    public AnalyticsSnapshotInfo getSnapshotInfo() {
+        return info(current());
+    }
+
+    /** Строит снимок заново из БД. */
+    public AnalyticsSnapshotInfo rebuild() {
+        refreshLock.lock();
+        try {
+            long started = System.nanoTime();
+            return info(install(load(), started));
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // Незагруженный снимок не строим: аналитикой, может, никто не пользуется
+    @Scheduled(fixedDelayString = "${autoservice.analytics.rebuild-interval:PT1H}",
+            initialDelayString = "${autoservice.analytics.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Снимок не старше max-staleness и со всеми изменениями этого процесса. */
+    private OrderSnapshot current() {
+        OrderSnapshot s = snapshot;
+        if (s != null && !isStale(s)) {
+            return s;
+        }
+        refreshLock.lock();
+        try {
+            s = snapshot;
+            if (s != null && !isStale(s)) {
+                // Пока ждали, обновил другой поток
+                return s;
+            }
+            long started = System.nanoTime();
+            return install(s == null || reload ? load() : refresh(s), started);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isStale(OrderSnapshot s) {
+        return s.seq() < changes.version(TrackedTable.ORDERS)
+                || System.nanoTime() - refreshedNanos > maxStalenessNanos;
+    }
+
+    private OrderSnapshot install(OrderSnapshot next, long started) {
+        snapshot = next;
+        refreshedNanos = System.nanoTime();
+        refreshedAt = LocalDateTime.now();
+        lastRefreshMs = (refreshedNanos - started) / 1_000_000;
+        return next;
+    }
+
+    private OrderSnapshot load() {
+        long started = System.currentTimeMillis();
+        // seq до чтения: что изменится во время загрузки, следующее обновление перечитает
+        long seq = changes.lastSeq();
+        OrderSnapshot.Editor editor = OrderSnapshot.empty().edit();
+        tx.executeWithoutResult(status -> repository.streamAll(sink(editor)));
+        OrderSnapshot loaded = editor.publish(seq);
+        reload = false;
+        log.info("Аналитический снимок: {} заказов, {} КБ колонок, {} мс",
+                loaded.orders(), loaded.columnBytes() / 1024, System.currentTimeMillis() - started);
+        return loaded;
+    }
+
+    private OrderSnapshot refresh(OrderSnapshot base) {
+        ChangeBatch batch = changes.changesSince(base.seq(), TrackedTable.ORDERS);
+        if (!batch.complete() || base.maxCreatedAt() == Long.MIN_VALUE) {
+            // Изменений больше, чем помнит буфер (или снимок пуст): дешевле перечитать всё
+            return load();
+        }
+        LocalDateTime since = LocalDateTime.ofEpochSecond(base.maxCreatedAt() - overlapSeconds, 0, ZoneOffset.UTC);
+        Set<Integer> dirty = new HashSet<>();
+        for (ChangeEvent e : batch.events()) {
+            dirty.add(e.id());
+        }
+
+        OrderSnapshot.Editor editor = base.edit();
+        Set<Integer> found = new HashSet<>();
+        AnalyticsRepository.RowSink put = sink(editor);
+        // Пока редактор не опубликован, карта id -> строка уже может разойтись со снимком
+        reload = true;
+        tx.executeWithoutResult(status -> {
+            repository.streamByIds(dirty, (id, clientId, employeeId, orderStatus, createdAt, cost, noCost) -> {
+                found.add(id);
+                put.accept(id, clientId, employeeId, orderStatus, createdAt, cost, noCost);
+            });
+            repository.streamCreatedSince(since, (id, clientId, employeeId, orderStatus, createdAt, cost, noCost) -> {
+                // Перекрытие снова приносит известные заказы: их правки — через ChangeTracker выше
+                if (!editor.contains(id)) {
+                    put.accept(id, clientId, employeeId, orderStatus, createdAt, cost, noCost);
+                }
+            });
+        });
+        for (Integer id : dirty) {
+            if (!found.contains(id)) {
+                editor.delete(id);
+            }
+        }
+        OrderSnapshot next = editor.publish(batch.lastSeq());
+        reload = false;
+        return next.tombstones() > next.orders() / COMPACT_RATIO ? next.compacted() : next;
+    }
+
+    private static AnalyticsRepository.RowSink sink(OrderSnapshot.Editor editor) {
+        return (id, clientId, employeeId, status, createdAt, cost, noCost) ->
+                editor.put(id, clientId, employeeId, status, createdAt, noCost ? OrderSnapshot.NO_COST : cost);
+    }
+
+    private AnalyticsSnapshotInfo info(OrderSnapshot s) {
+        return new AnalyticsSnapshotInfo(s.orders(), s.tombstones(), s.columnBytes(), refreshedAt, lastRefreshMs);
+    }
+
+    /** Первые n групп в порядке order; групп бывает по числу клиентов, сортировать все незачем. */
+    private static List<Group> top(List<Group> groups, Comparator<Group> order, int n) {
+        if (groups.size() <= n) {
+            groups.sort(order);
+            return groups;
+        }
+        PriorityQueue<Group> worst = new PriorityQueue<>(n + 1, order.reversed());
+        for (Group g : groups) {
+            worst.add(g);
+            if (worst.size() > n) {
+                worst.poll();
+            }
+        }
+        List<Group> result = new ArrayList<>(worst);
+        result.sort(order);
+        return result;
+    }
+
+    private static BigDecimal money(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    private static BigDecimal average(BigDecimal revenue, long paid) {
+        return paid == 0 ? BigDecimal.ZERO : revenue.divide(BigDecimal.valueOf(paid), 2, RoundingMode.HALF_UP);
+    }
+
+    private record Group(long key, long orders, long paid, long revenue) {
+    }
+}
@@ -0,0 +1,245 @@
+package com.autoservice.service;
+
+import com.autoservice.assignment.Workload;
+import com.autoservice.assignment.WorkloadQueues;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.EmployeeLoad;
+import com.autoservice.entity.Employee;
+import com.autoservice.entity.Order;
+import com.autoservice.repository.AssignmentRepository;
+import com.autoservice.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * Назначение исполнителей заказам. Нагрузка сотрудников (открытые заказы и их
+ * часы) живёт в памяти в WorkloadQueues: новый заказ получает самого свободного
+ * сотрудника с нужным навыком за O(log n), без запросов к БД и без общей блокировки.
+ * Нагрузка строится из БД при первом обращении и дальше меняется вместе с заказами:
+ * назначение — сразу (откат транзакции его возвращает), снятие — после коммита.
+ *
+ * Когда заказ закрывается, исполнитель может забрать ещё не начатый заказ у самого
+ * загруженного коллеги с общим навыком — если после передачи он не станет
+ * загруженнее отдающего.
+ */
+@Service
+public class AssignmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentService.class);
+    // Сколько самых загруженных коллег проверить при перебалансировке
+    private static final int REBALANCE_DONORS = 3;
+
+    private final WorkloadQueues queues = new WorkloadQueues();
+    private final EmployeeRepository employees;
+    private final AssignmentRepository repository;
+    private final ChangeTracker changes;
+    private final boolean enabled;
+    private final BigDecimal defaultHours;
+
+    private volatile boolean loaded;
+
+    public AssignmentService(EmployeeRepository employees, AssignmentRepository repository, ChangeTracker changes,
+                             @Value("${autoservice.assignment.enabled:true}") boolean enabled,
+                             @Value("${autoservice.assignment.default-hours:1.0}") BigDecimal defaultHours) {
+        this.employees = employees;
+        this.repository = repository;
+        this.changes = changes;
+        this.enabled = enabled;
+        this.defaultHours = defaultHours;
+    }
+
+    /** Навык заказа или сотрудника в каноническом виде; null — без навыка. */
+    public static String normalizeSkill(String skill) {
+        if (skill == null || skill.isBlank()) {
+            return null;
+        }
+        String s = skill.trim().toLowerCase(Locale.ROOT);
+        if (s.length() > 64 || s.contains(",")) {
+            throw new IllegalArgumentException("Навык — одно слово до 64 символов без запятых: " + skill);
+        }
+        return s;
+    }
+
+    /**
+     * Назначает новому заказу исполнителя (order.employeeId). Вызывать в транзакции
+     * создания заказа. Подходящих сотрудников нет — заказ остаётся без исполнителя.
+     */
+    public void assign(Order order) {
+        if (!enabled) {
+            return;
+        }
+        ensureLoaded();
+        long centi = centiHours(order.getEstimatedHours());
+        String skill = order.getSkill() == null ? WorkloadQueues.ANY : order.getSkill();
+        OptionalInt employeeId = queues.assign(skill, centi);
+        if (employeeId.isEmpty()) {
+            return;
+        }
+        int id = employeeId.getAsInt();
+        order.setEmployeeId(id);
+        onRollback(() -> queues.release(id, centi));
+    }
+
+    /** Заказ закрыт (DONE/CANCELED) в текущей транзакции: снять нагрузку и перебалансировать. */
+    public void onOrderFinished(Order order) {
+        Integer employeeId = order.getEmployeeId();
+        if (!enabled || employeeId == null) {
+            return;
+        }
+        ensureLoaded();
+        long centi = centiHours(order.getEstimatedHours());
+        afterCommit(() -> queues.release(employeeId, centi));
+        rebalance(employeeId, centi);
+    }
+
+    /** Открытые заказы закрыты или удалены пакетно (каскад при удалении клиентов). */
+    public void onOrdersClosed(Collection<Order> orders) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        afterCommit(() -> {
+            for (Order o : orders) {
+                if (o.getEmployeeId() != null) {
+                    queues.release(o.getEmployeeId(), centiHours(o.getEstimatedHours()));
+                }
+            }
+        });
+    }
+
+    /** Новый или изменённый сотрудник встаёт в очереди после коммита. */
+    public void onEmployeeSaved(Employee employee) {
+        if (!loaded) {
+            // полная загрузка его и так подхватит
+            return;
+        }
+        afterCommit(() -> {
+            if (employee.isActive()) {
+                Workload load = queues.load(employee.getId()).orElse(null);
+                queues.register(employee.getId(), employee.skillList(),
+                        load == null ? 0 : load.openOrders(), load == null ? 0 : load.centiHours());
+            } else {
+                queues.unregister(employee.getId());
+            }
+        });
+    }
+
+    /** До limit самых свободных сотрудников с навыком skill (null — все). */
+    public List<EmployeeLoad> leastLoaded(String skill, int limit) {
+        ensureLoaded();
+        String key = skill == null ? WorkloadQueues.ANY : skill;
+        return queues.leastLoaded(key, limit).stream()
+                .map(w -> new EmployeeLoad(w.employeeId(), w.openOrders(),
+                        BigDecimal.valueOf(w.centiHours(), 2)))
+                .toList();
+    }
+
+    public void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long started = System.currentTimeMillis();
+            Map<Integer, AssignmentRepository.OpenLoad> open = new HashMap<>();
+            for (AssignmentRepository.OpenLoad l : repository.findOpenLoads(defaultHours)) {
+                open.put(l.employeeId(), l);
+            }
+            List<Employee> active = employees.findByActiveTrue();
+            for (Employee e : active) {
+                AssignmentRepository.OpenLoad l = open.get(e.getId());
+                queues.register(e.getId(), e.skillList(),
+                        l == null ? 0 : l.orders(), l == null ? 0 : centiHours(l.hours()));
+            }
+            loaded = true;
+            log.info("Нагрузка сотрудников загружена: {} сотрудников, {} с открытыми заказами, {} мс",
+                    active.size(), open.size(), System.currentTimeMillis() - started);
+        }
+    }
+
+    private void rebalance(int employeeId, long freedCenti) {
+        Set<String> skills = queues.skills(employeeId);
+        Workload mine = queues.load(employeeId).orElse(null);
+        if (mine == null) {
+            return;
+        }
+        long myCenti = Math.max(0, mine.centiHours() - freedCenti);
+        List<Workload> donors = skills.stream()
+                .map(queues::mostLoaded)
+                .flatMap(Optional::stream)
+                .filter(w -> w.employeeId() != employeeId && w.centiHours() > myCenti)
+                .distinct()
+                .sorted(Comparator.reverseOrder())
+                .limit(REBALANCE_DONORS)
+                .toList();
+        List<String> canDo = skills.stream().filter(s -> !s.equals(WorkloadQueues.ANY)).toList();
+        for (Workload donor : donors) {
+            // Берём заказ не больше половины разрыва: получатель не обгонит отдающего
+            BigDecimal maxHours = BigDecimal.valueOf((donor.centiHours() - myCenti) / 2, 2);
+            AssignmentRepository.Movable movable = repository
+                    .lockMovable(donor.employeeId(), canDo, maxHours, defaultHours).orElse(null);
+            if (movable == null || !repository.reassign(movable.orderId(), donor.employeeId(), employeeId)) {
+                continue;
+            }
+            long centi = centiHours(movable.hours());
+            afterCommit(() -> {
+                queues.release(donor.employeeId(), centi);
+                queues.add(employeeId, centi);
+            });
+            changes.record(TrackedTable.ORDERS, ChangeType.UPDATED, movable.orderId());
+            log.debug("Заказ {} передан от сотрудника {} сотруднику {}",
+                    movable.orderId(), donor.employeeId(), employeeId);
+            return;
+        }
+    }
+
+    private long centiHours(BigDecimal hours) {
+        BigDecimal h = hours == null ? defaultHours : hours;
+        return h.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
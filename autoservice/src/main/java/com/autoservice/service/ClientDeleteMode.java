@@ -0,0 +1,8 @@
+package com.autoservice.service;
+
+/** Как удаляются клиенты: физически или пометкой deleted_at. */
+public enum ClientDeleteMode {
+    HARD,
+    // Строка остаётся в БД, но пропадает из выборок, поиска и индексов (@SQLRestriction на Client)
+    SOFT
+}
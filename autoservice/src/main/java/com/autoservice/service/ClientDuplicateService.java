@@ -0,0 +1,95 @@
+package com.autoservice.service;
+
+import com.autoservice.dto.DuplicateCluster;
+import com.autoservice.dto.DuplicateMatch;
+import com.autoservice.entity.Client;
+import com.autoservice.index.ClientIndexes;
+import com.autoservice.index.DuplicateIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск дублей клиентов по индексу ключей блокировки в памяти.
+ * Проверка при создании — O(1) в среднем и без запросов к БД; она не
+ * атомарна с вставкой, так что два одновременных создания одного человека
+ * проскочат оба — такие пары потом покажет отчёт clusters().
+ */
+@Service
+public class ClientDuplicateService {
+
+    public static final int MAX_MATCHES = 10;
+    public static final int DEFAULT_CLUSTERS = 100;
+    public static final int MAX_CLUSTERS = 10000;
+
+    private static final Logger log = LoggerFactory.getLogger(ClientDuplicateService.class);
+
+    private final ClientIndexes indexes;
+    private final DuplicateIndex index;
+    private final DuplicatePolicy policy;
+    private final int maxBlock;
+
+    public ClientDuplicateService(ClientIndexes indexes, DuplicateIndex index,
+                                  @Value("${autoservice.clients.duplicates.policy:warn}") DuplicatePolicy policy,
+                                  @Value("${autoservice.clients.duplicates.max-block:50}") int maxBlock) {
+        this.indexes = indexes;
+        this.index = index;
+        this.policy = policy;
+        this.maxBlock = Math.max(2, maxBlock);
+    }
+
+    public DuplicatePolicy policy() {
+        return policy;
+    }
+
+    /** Похожие клиенты, сильные совпадения первыми; при политике OFF — пусто. */
+    public List<DuplicateMatch> find(Client client) {
+        if (policy == DuplicatePolicy.OFF) {
+            return List.of();
+        }
+        indexes.ensureLoaded();
+        return index.find(client, MAX_MATCHES, maxBlock);
+    }
+
+    /**
+     * Проверка перед созданием по политике: REJECT и сильное совпадение ->
+     * ConflictException, WARN -> запись в лог.
+     */
+    public void check(Client client) {
+        String strong = describeStrong(client);
+        if (strong == null) {
+            return;
+        }
+        if (policy == DuplicatePolicy.REJECT) {
+            throw new ConflictException("Похожий клиент уже есть: " + strong);
+        }
+        log.warn("Возможный дубль клиента '{}': {}", client.getFullName(), strong);
+    }
+
+    /** Сильные совпадения одной строкой ("id=12 [PHONE], ...") или null. */
+    public String describeStrong(Client client) {
+        List<DuplicateMatch> strong = find(client).stream().filter(DuplicateMatch::strong).toList();
+        if (strong.isEmpty()) {
+            return null;
+        }
+        return strong.stream()
+                .map(m -> "id=" + m.clientId() + " " + m.reasons())
+                .collect(Collectors.joining(", "));
+    }
+
+    /** Сильные ключи клиента — для сверки строк одного импорта между собой. */
+    public List<String> strongKeys(Client client) {
+        return index.strongKeys(client);
+    }
+
+    /** Отчёт по всей таблице: группы дублей, крупные первыми. */
+    public List<DuplicateCluster> clusters(boolean includeWeak, Integer limit) {
+        int size = limit == null ? DEFAULT_CLUSTERS : Math.max(1, Math.min(limit, MAX_CLUSTERS));
+        indexes.ensureLoaded();
+        return index.clusters(includeWeak, maxBlock, size);
+    }
+}
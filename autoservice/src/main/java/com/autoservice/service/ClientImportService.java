@@ -0,0 +1,321 @@
+package com.autoservice.service;
+
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.ImportError;
+import com.autoservice.dto.ImportReport;
+import com.autoservice.entity.Client;
+import com.autoservice.index.ClientIndexes;
+import com.autoservice.util.CsvLine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Массовый импорт клиентов из CSV / NDJSON.
+ * Файл читается потоково, строки копятся пачками по batch-size и пишутся
+ * одной транзакцией с JDBC-батчингом; память не зависит от размера файла.
+ */
+@Service
+public class ClientImportService {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(ClientImportService.class);
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ClientIndexes indexes;
+    private final ChangeTracker changes;
+    private final ClientDuplicateService duplicates;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ClientImportService(EntityManager entityManager,
+                               TransactionTemplate transactionTemplate,
+                               ClientIndexes indexes,
+                               ChangeTracker changes,
+                               ClientDuplicateService duplicates,
+                               ObjectMapper objectMapper,
+                               @Value("${autoservice.clients.import.batch-size:1000}") int batchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.indexes = indexes;
+        this.changes = changes;
+        this.duplicates = duplicates;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public ImportReport importClients(InputStream body, ImportFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Progress progress = new Progress();
+        long started = System.currentTimeMillis();
+
+        long lineNo = 0;
+        Function<String, Client> rowParser;
+        if (format == ImportFormat.CSV) {
+            String header = reader.readLine();
+            lineNo++;
+            if (header == null) {
+                return progress.toReport();
+            }
+            rowParser = csvRowParser(stripBom(header));
+        } else {
+            rowParser = this::parseJsonRow;
+        }
+
+        List<Row> batch = new ArrayList<>(batchSize);
+        // Сильные ключи строк текущей пачки -> номер строки: её строк ещё нет в индексе
+        Map<String, Long> batchKeys = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            progress.total++;
+            try {
+                Client c = rowParser.apply(lineNo == 1 ? stripBom(line) : line);
+                validate(c);
+                checkDuplicate(c, lineNo, batchKeys, progress);
+                batch.add(new Row(lineNo, c));
+            } catch (IllegalArgumentException e) {
+                progress.fail(lineNo, e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                writeBatch(batch, progress);
+                batchKeys.clear();
+            }
+        }
+        writeBatch(batch, progress);
+
+        log.info("Импорт клиентов: {} строк, загружено {}, ошибок {}, возможных дублей {}, {} мс",
+                progress.total, progress.imported, progress.failed, progress.duplicates,
+                System.currentTimeMillis() - started);
+        return progress.toReport();
+    }
+
+    /**
+     * Сверка строки с уже записанными клиентами (индекс) и с предыдущими
+     * строками пачки. REJECT -> IllegalArgumentException (строка в ошибки),
+     * WARN -> строка пишется, но считается в duplicates.
+     */
+    private void checkDuplicate(Client c, long lineNo, Map<String, Long> batchKeys, Progress progress) {
+        if (duplicates.policy() == DuplicatePolicy.OFF) {
+            return;
+        }
+        String duplicate = duplicates.describeStrong(c);
+        List<String> keys = duplicates.strongKeys(c);
+        for (int i = 0; duplicate == null && i < keys.size(); i++) {
+            Long earlier = batchKeys.get(keys.get(i));
+            if (earlier != null) {
+                duplicate = "строка " + earlier;
+            }
+        }
+        if (duplicate != null && duplicates.policy() == DuplicatePolicy.REJECT) {
+            throw new IllegalArgumentException("похожий клиент уже есть: " + duplicate);
+        }
+        for (String key : keys) {
+            batchKeys.putIfAbsent(key, lineNo);
+        }
+        if (duplicate != null) {
+            progress.duplicates++;
+        }
+    }
+
+    private void writeBatch(List<Row> batch, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            persist(batch);
+            progress.imported += batch.size();
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                progress.fail(batch.get(0).line(), rootMessage(e));
+            } else {
+                // Одна плохая строка не должна валить всю пачку: пишем по одной,
+                // в ошибки попадают только строки, которые не записались сами
+                log.warn("Пачка из {} строк не записана ({}), пишем по одной", batch.size(), rootMessage(e));
+                for (Row row : batch) {
+                    try {
+                        persist(List.of(row));
+                        progress.imported++;
+                    } catch (RuntimeException single) {
+                        progress.fail(row.line(), rootMessage(single));
+                    }
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    /** Одна транзакция на строки; индексы и журнал изменений — только после коммита. */
+    private void persist(List<Row> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.clear();
+            for (Row row : rows) {
+                // После отката пачки у сущности остался id из последовательности
+                row.client().setId(null);
+                entityManager.persist(row.client());
+            }
+            entityManager.flush();
+            // Сущности пачки больше не нужны — не даём контексту расти
+            entityManager.clear();
+            // Журнал публикует после коммита, а версию таблицы сдвигает в этой же транзакции
+            for (Row row : rows) {
+                changes.record(TrackedTable.CLIENTS, ChangeType.CREATED, row.client().getId());
+            }
+        });
+        for (Row row : rows) {
+            indexes.put(row.client());
+        }
+    }
+
+    private Function<String, Client> csvRowParser(String header) {
+        char delimiter = CsvLine.detectDelimiter(header);
+        List<String> columns = CsvLine.parse(header, delimiter);
+        int nameCol = -1, phoneCol = -1, emailCol = -1, notesCol = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columnKey(columns.get(i))) {
+                case "fullname", "name", "фио" -> nameCol = i;
+                case "phone", "телефон" -> phoneCol = i;
+                case "email", "почта" -> emailCol = i;
+                case "notes", "заметки" -> notesCol = i;
+                default -> {
+                    // лишние колонки игнорируем
+                }
+            }
+        }
+        if (nameCol < 0) {
+            throw new IllegalArgumentException("В заголовке CSV нет колонки full_name");
+        }
+
+        int fName = nameCol, fPhone = phoneCol, fEmail = emailCol, fNotes = notesCol;
+        return line -> {
+            List<String> f = CsvLine.parse(line, delimiter);
+            Client c = new Client();
+            c.setFullName(field(f, fName));
+            c.setPhone(field(f, fPhone));
+            c.setEmail(field(f, fEmail));
+            c.setNotes(field(f, fNotes));
+            return c;
+        };
+    }
+
+    private Client parseJsonRow(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("некорректный JSON: " + e.getOriginalMessage());
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("ожидался JSON-объект");
+        }
+        Client c = new Client();
+        c.setFullName(text(node, "fullName", "full_name"));
+        c.setPhone(text(node, "phone", "phone"));
+        c.setEmail(text(node, "email", "email"));
+        c.setNotes(text(node, "notes", "notes"));
+        return c;
+    }
+
+    private static void validate(Client c) {
+        if (c.getFullName() == null) {
+            throw new IllegalArgumentException("не заполнено ФИО");
+        }
+        checkLength("ФИО", c.getFullName());
+        checkLength("телефон", c.getPhone());
+        checkLength("email", c.getEmail());
+        checkLength("заметки", c.getNotes());
+        if (c.getEmail() != null && !c.getEmail().contains("@")) {
+            throw new IllegalArgumentException("некорректный email: " + c.getEmail());
+        }
+    }
+
+    private static void checkLength(String name, String value) {
+        if (value != null && value.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(name + " длиннее " + MAX_FIELD_LENGTH + " символов");
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        return blankToNull(fields.get(index));
+    }
+
+    private static String text(JsonNode node, String name, String altName) {
+        JsonNode value = node.has(name) ? node.get(name) : node.get(altName);
+        return value == null || value.isNull() ? null : blankToNull(value.asText());
+    }
+
+    private static String blankToNull(String s) {
+        if (s == null) {
+            return null;
+        }
+        String t = s.trim();
+        return t.isEmpty() || "-".equals(t) ? null : t;
+    }
+
+    private static String columnKey(String header) {
+        return header.trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+    }
+
+    private static String stripBom(String s) {
+        return !s.isEmpty() && s.charAt(0) == '\uFEFF' ? s.substring(1) : s;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private record Row(long line, Client client) {
+    }
+
+    private static final class Progress {
+        long total;
+        long imported;
+        long failed;
+        long duplicates;
+        final List<ImportError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(line, message));
+            }
+        }
+
+        ImportReport toReport() {
+            return new ImportReport(total, imported, failed, duplicates, errors);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.autoservice.service;
+
+/** Что делать с заказами удаляемого клиента. */
+public enum ClientOrdersPolicy {
+    // Клиентов с заказами не удалять (в пакетном удалении — пропустить)
+    RESTRICT,
+    // Удалить клиента, заказы оставить как есть
+    KEEP,
+    // HARD: удалить и заказы; SOFT: отменить открытые заказы, история остаётся
+    CASCADE
+}
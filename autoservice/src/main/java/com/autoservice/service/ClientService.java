@@ -1,63 +1,353 @@
 package com.autoservice.service;
 
+import com.autoservice.cache.CacheStats;
+import com.autoservice.cache.ClientCache;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.ClientDeleteReport;
+import com.autoservice.dto.ClientView;
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.DuplicateCluster;
+import com.autoservice.dto.DuplicateMatch;
 import com.autoservice.entity.Client;
+import com.autoservice.entity.Order;
+import com.autoservice.index.ClientIndexes;
+import com.autoservice.index.ClientSearchIndex;
+import com.autoservice.index.PhoneIndex;
+import com.autoservice.index.PhoneMatch;
+import com.autoservice.repository.ClientBulkRepository;
 import com.autoservice.repository.ClientRepository;
+import com.autoservice.util.CsvLine;
+import com.autoservice.util.PhoneNumbers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Comparator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Таймер autoservice.service с тегами class/method на каждый публичный метод
+@Timed(value = "autoservice.service", histogram = true)
 @Service
 public class ClientService {
 
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
+    private static final int BACKFILL_BATCH = 500;
+
     private final ClientRepository repository;
+    private final ClientBulkRepository bulk;
+    private final ReportService reportService;
+    private final ClientIndexes indexes;
+    private final ClientSearchIndex searchIndex;
+    private final PhoneIndex phoneIndex;
+    private final ClientCache cache;
+    private final ClientDuplicateService duplicates;
+    private final PartService parts;
+    private final AssignmentService assignments;
+    private final ChangeTracker changes;
+    private final ClientDeleteMode deleteMode;
+    private final ClientOrdersPolicy ordersPolicy;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
 
-    public ClientService(ClientRepository repository) {
+    public ClientService(ClientRepository repository, ClientBulkRepository bulk, ReportService reportService,
+                         ClientIndexes indexes, ClientSearchIndex searchIndex, PhoneIndex phoneIndex,
+                         ClientCache cache, ClientDuplicateService duplicates, PartService parts,
+                         AssignmentService assignments, ChangeTracker changes, ObjectMapper objectMapper,
+                         TransactionTemplate tx,
+                         @Value("${autoservice.clients.delete.mode:hard}") ClientDeleteMode deleteMode,
+                         @Value("${autoservice.clients.delete.orders:restrict}") ClientOrdersPolicy ordersPolicy) {
         this.repository = repository;
+        this.bulk = bulk;
+        this.reportService = reportService;
+        this.indexes = indexes;
+        this.searchIndex = searchIndex;
+        this.phoneIndex = phoneIndex;
+        this.cache = cache;
+        this.duplicates = duplicates;
+        this.parts = parts;
+        this.assignments = assignments;
+        this.changes = changes;
+        this.deleteMode = deleteMode;
+        this.ordersPolicy = ordersPolicy;
+        this.objectMapper = objectMapper;
+        this.tx = tx;
     }
 
+    @Transactional(readOnly = true)
     public List<Client> getAllClients() {
-        // Берём всех и сортируем по id сами
-        return repository.findAll().stream()
-                .sorted(Comparator.comparing(Client::getId))
-                .collect(Collectors.toList());
+        // Сортирует БД, а не мы
+        return repository.findAllByOrderByIdAsc();
+    }
+
+    /**
+     * Страница клиентов после id = afterId (null — с начала).
+     * Размер страницы ограничен CursorPage.MAX_PAGE_SIZE.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Client> getClientsPage(Integer afterId, Integer limit) {
+        int size = CursorPage.pageSize(limit);
+        int after = afterId == null ? 0 : afterId;
+
+        // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+        List<Client> rows = repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size + 1));
+        return CursorPage.of(rows, size, Client::getId);
+    }
+
+    /**
+     * Полный список клиентов в out по курсору БД, для интеграций. Строки читаются
+     * record-проекциями (в контекст персистентности не попадают, чистить нечего)
+     * и пишутся в ответ сразу — память не зависит от размера таблицы.
+     */
+    @Transactional(readOnly = true)
+    public long exportClients(OutputStream out, ExportFormat format) throws IOException {
+        try (Stream<ClientView> rows = repository.streamAllViews();
+             ExportWriter<ClientView> writer = new ExportWriter<>(out, format, objectMapper,
+                     "id,full_name,phone,phone_digits,email,notes", ClientService::writeCsvRow)) {
+            Iterator<ClientView> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+            }
+            writer.finish();
+            return writer.count();
+        }
+    }
+
+    private static void writeCsvRow(Writer w, ClientView c) throws IOException {
+        w.write(String.valueOf(c.id()));
+        w.write(',');
+        w.write(CsvLine.quote(c.fullName(), ','));
+        w.write(',');
+        w.write(CsvLine.quote(c.phone(), ','));
+        w.write(',');
+        w.write(CsvLine.quote(c.phoneDigits(), ','));
+        w.write(',');
+        w.write(CsvLine.quote(c.email(), ','));
+        w.write(',');
+        w.write(CsvLine.quote(c.notes(), ','));
+        w.write('\n');
     }
 
+    /**
+     * Создание с проверкой дублей по autoservice.clients.duplicates.policy:
+     * при REJECT и сильном совпадении — ConflictException.
+     */
+    @Transactional
     public Client createClient(Client client) {
-        return repository.save(client);
+        duplicates.check(client);
+        Client saved = repository.save(client);
+        afterCommit(() -> {
+            cache.invalidate(saved.getId());
+            indexes.put(saved);
+        });
+        changes.record(TrackedTable.CLIENTS, ChangeType.CREATED, saved.getId());
+        return saved;
     }
 
+    /**
+     * Удаление одного клиента тем же одним оператором, что и пакетное.
+     * false — клиента нет; ConflictException — есть заказы при политике RESTRICT.
+     */
+    @Transactional
     public boolean deleteClientById(Integer id) {
-        if (repository.existsById(id)) {
-            repository.deleteById(id);
-            return true;
+        ClientDeleteReport report = deleteClients(List.of(id), false);
+        if (report.skippedWithOrders() > 0) {
+            throw new ConflictException("У клиента " + id + " есть заказы, удаление запрещено политикой "
+                    + ordersPolicy);
         }
-        return false;
+        return report.deleted() > 0;
     }
 
+    /**
+     * Пакетное удаление: по списку id и/или всех клиентов без заказов. Клиенты
+     * удаляются (или помечаются deleted_at в режиме SOFT) одним оператором,
+     * заказы обрабатываются по политике autoservice.clients.delete.orders.
+     */
+    @Transactional
+    public ClientDeleteReport deleteClients(Collection<Integer> ids, boolean withoutOrders) {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        if (!hasIds && !withoutOrders) {
+            throw new IllegalArgumentException("Укажи ids и/или withoutOrders — удалять всех клиентов нельзя");
+        }
+        boolean soft = deleteMode == ClientDeleteMode.SOFT;
+
+        int ordersAffected = 0;
+        if (ordersPolicy == ClientOrdersPolicy.CASCADE && !withoutOrders) {
+            List<ClientBulkRepository.AffectedOrder> affected = soft
+                    ? bulk.cancelOpenOrdersOf(ids, false)
+                    : bulk.deleteOrdersOf(ids, false);
+            if (!affected.isEmpty()) {
+                reportService.onOrdersAffected(affected, !soft);
+                // Резервы открытых заказов возвращаются на склад, нагрузка — исполнителям
+                List<Order> open = affected.stream()
+                        .filter(a -> !a.previous().isTerminal())
+                        .map(ClientBulkRepository.AffectedOrder::order)
+                        .toList();
+                parts.releaseOrders(open.stream().map(Order::getId).toList());
+                assignments.onOrdersClosed(open);
+                ChangeType type = soft ? ChangeType.UPDATED : ChangeType.DELETED;
+                for (ClientBulkRepository.AffectedOrder a : affected) {
+                    changes.record(TrackedTable.ORDERS, type, a.order().getId());
+                }
+            }
+            ordersAffected = affected.size();
+        }
+
+        List<ClientBulkRepository.Target> targets = bulk.deleteClients(ids, withoutOrders, soft,
+                ordersPolicy == ClientOrdersPolicy.RESTRICT);
+        List<Integer> removed = new ArrayList<>();
+        for (ClientBulkRepository.Target t : targets) {
+            if (t.removed()) {
+                removed.add(t.id());
+                changes.record(TrackedTable.CLIENTS, ChangeType.DELETED, t.id());
+            }
+        }
+        // Кэш и индексы — после коммита: при откате клиенты остаются, а чтение,
+        // начатое до коммита, не вернёт удалённого клиента в кэш (generation)
+        afterCommit(() -> {
+            for (Integer id : removed) {
+                cache.invalidate(id);
+                indexes.remove(id);
+            }
+        });
+        int deleted = removed.size();
+        return new ClientDeleteReport(deleteMode, ordersPolicy, deleted, targets.size() - deleted, ordersAffected);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Client> getClientById(Integer id) {
-        return repository.findById(id);
+        // Кэш грузит с реплики, только если она видит все записи клиентов через этот процесс
+        return cache.get(id, () -> repository.findById(id));
     }
 
-    public List<Client> searchByName(String query) {
-        String q = query == null ? "" : query.toLowerCase();
+    /** Клиенты по списку id одним запросом (порядок не гарантируется). */
+    @Transactional(readOnly = true)
+    public List<Client> getClientsByIds(Collection<Integer> ids) {
+        return repository.findAllById(ids);
+    }
+
+    /** Похожие на client существующие клиенты (сам client не в счёт). */
+    public List<DuplicateMatch> findDuplicates(Client client) {
+        return duplicates.find(client);
+    }
+
+    /** Группы дублей по всей таблице; includeWeak — склеивать и по одному ФИО / логину email. */
+    public List<DuplicateCluster> getDuplicateClusters(boolean includeWeak, Integer limit) {
+        return duplicates.clusters(includeWeak, limit);
+    }
 
-        return repository.findAll().stream()
-                .filter(c -> c.getFullName() != null &&
-                        c.getFullName().toLowerCase().contains(q))
-                .sorted(Comparator.comparing(Client::getId))
-                .collect(Collectors.toList());
+    public CacheStats getCacheStats() {
+        return cache.stats();
     }
 
+    /** Лучшие DEFAULT_SEARCH_LIMIT совпадений; больше — через search с limit. */
+    public List<Client> searchByName(String query) {
+        return search(query, null, null);
+    }
+
+    /** Лучшие DEFAULT_SEARCH_LIMIT совпадений; больше — через search с limit. */
     public List<Client> searchByPhone(String query) {
-        String q = query == null ? "" : query.toLowerCase();
+        return search(null, query, null);
+    }
 
-        return repository.findAll().stream()
-                .filter(c -> c.getPhone() != null &&
-                        c.getPhone().toLowerCase().contains(q))
-                .sorted(Comparator.comparing(Client::getId))
-                .collect(Collectors.toList());
+    /**
+     * Поиск по подстроке ФИО и/или телефона через индекс в памяти.
+     * Результат ранжирован и обрезан до limit (не больше MAX_SEARCH_LIMIT).
+     */
+    public List<Client> search(String name, String phone, Integer limit) {
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        indexes.ensureLoaded();
+        return searchIndex.search(name, phone, size);
+    }
+
+    /**
+     * Определение клиента по номеру. match == null — "умный" режим для входящего
+     * звонка: сначала точное совпадение нормализованного номера, потом по
+     * последним 10 цифрам.
+     */
+    public List<Client> findByPhone(String number, PhoneMatch match, Integer limit) {
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        indexes.ensureLoaded();
+
+        int[] ids;
+        if (match == null) {
+            ids = phoneIndex.lookup(PhoneNumbers.normalize(number), PhoneMatch.EXACT, size);
+            String digits = PhoneNumbers.digits(number);
+            if (ids.length == 0 && digits.length() >= 10) {
+                ids = phoneIndex.lookup(digits.substring(digits.length() - 10), PhoneMatch.SUFFIX, size);
+            }
+        } else {
+            String digits = switch (match) {
+                case EXACT -> PhoneNumbers.normalize(number);
+                case PREFIX -> PhoneNumbers.normalizeFragment(number);
+                case SUFFIX -> PhoneNumbers.digits(number);
+            };
+            ids = phoneIndex.lookup(digits, match, size);
+        }
+        return searchIndex.getAll(ids);
+    }
+
+    /**
+     * Заполняет phone_digits у старых записей. Идёт по таблице страницами,
+     * сохраняет только изменившиеся строки. Возвращает число обновлённых.
+     */
+    public int backfillPhoneDigits() {
+        int updated = 0;
+        int after = 0;
+        List<Client> batch;
+        do {
+            batch = repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BACKFILL_BATCH));
+            List<Client> changed = new ArrayList<>();
+            for (Client c : batch) {
+                String digits = PhoneNumbers.normalize(c.getPhone());
+                if (!Objects.equals(digits, c.getPhoneDigits())) {
+                    c.setPhoneDigits(digits);
+                    changed.add(c);
+                }
+                after = c.getId();
+            }
+            if (!changed.isEmpty()) {
+                // Страница — одна транзакция: версия таблицы сдвигается вместе с её строками
+                tx.executeWithoutResult(status -> {
+                    repository.saveAll(changed);
+                    for (Client c : changed) {
+                        changes.record(TrackedTable.CLIENTS, ChangeType.UPDATED, c.getId());
+                    }
+                });
+                changed.forEach(c -> cache.invalidate(c.getId()));
+            }
+            updated += changed.size();
+        } while (batch.size() == BACKFILL_BATCH);
+        return updated;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,12 @@
+package com.autoservice.service;
+
+/**
+ * Операция противоречит текущему состоянию данных: недопустимый переход статуса,
+ * гонка условного обновления, дубль, нехватка остатка. В REST — 409.
+ */
+public class ConflictException extends IllegalStateException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
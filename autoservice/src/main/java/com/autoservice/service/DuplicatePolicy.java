@@ -0,0 +1,10 @@
+package com.autoservice.service;
+
+/** Что делать с новым клиентом, похожим на уже существующего. */
+public enum DuplicatePolicy {
+    OFF,
+    // Создать, но сообщить о возможных дублях (лог, заголовок ответа, счётчик импорта)
+    WARN,
+    // Не создавать при сильном совпадении: телефон, email или ФИО + локальная часть email
+    REJECT
+}
@@ -0,0 +1,79 @@
+package com.autoservice.service;
+
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.EmployeeLoad;
+import com.autoservice.entity.Employee;
+import com.autoservice.repository.EmployeeRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+
+@Service
+public class EmployeeService {
+
+    private final EmployeeRepository repository;
+    private final AssignmentService assignments;
+
+    public EmployeeService(EmployeeRepository repository, AssignmentService assignments) {
+        this.repository = repository;
+        this.assignments = assignments;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Employee> getEmployeesPage(Integer afterId, Integer limit) {
+        int size = CursorPage.pageSize(limit);
+        int after = afterId == null ? 0 : afterId;
+        return CursorPage.of(repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size + 1)), size,
+                Employee::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Employee> getEmployeeById(Integer id) {
+        return repository.findById(id);
+    }
+
+    @Transactional
+    public Employee createEmployee(String fullName, List<String> skills) {
+        if (fullName == null || fullName.isBlank()) {
+            throw new IllegalArgumentException("ФИО сотрудника обязательно");
+        }
+        String joined = String.join(",", normalizeSkills(skills));
+        if (joined.length() > 255) {
+            throw new IllegalArgumentException("Слишком много навыков");
+        }
+        Employee saved = repository.save(new Employee(null, fullName.trim(), joined));
+        assignments.onEmployeeSaved(saved);
+        return saved;
+    }
+
+    /** Включить/выключить сотрудника: выключенному новые заказы не назначаются, текущие остаются. */
+    @Transactional
+    public Employee setActive(Integer id, boolean active) {
+        Employee employee = repository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Сотрудник с id=" + id + " не найден"));
+        employee.setActive(active);
+        assignments.onEmployeeSaved(employee);
+        return employee;
+    }
+
+    /** Самые свободные сотрудники с навыком skill (null — все), по нагрузке из памяти. */
+    public List<EmployeeLoad> getWorkload(String skill, Integer limit) {
+        return assignments.leastLoaded(AssignmentService.normalizeSkill(skill), CursorPage.pageSize(limit));
+    }
+
+    // Канонический вид: нижний регистр, без повторов, по алфавиту
+    private static List<String> normalizeSkills(List<String> skills) {
+        if (skills == null) {
+            return List.of();
+        }
+        TreeSet<String> result = new TreeSet<>();
+        skills.stream().map(AssignmentService::normalizeSkill).filter(Objects::nonNull).forEach(result::add);
+        return List.copyOf(result);
+    }
+}
@@ -0,0 +1,26 @@
+package com.autoservice.service;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    // Один JSON-массив, элементы пишутся по мере чтения
+    JSON("application/json", "json"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return MediaType.parseMediaType(contentType + ";charset=UTF-8");
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
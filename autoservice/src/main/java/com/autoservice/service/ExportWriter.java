@@ -0,0 +1,83 @@
+package com.autoservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Построчная запись выгрузки в поток ответа: NDJSON, JSON-массив или CSV.
+ * Каждая строка сериализуется и уходит в буфер сразу — в памяти ничего не копится.
+ */
+final class ExportWriter<T> implements Closeable {
+
+    /** Пишет одну строку CSV (с переводом строки). */
+    interface CsvRow<T> {
+        void write(Writer w, T row) throws IOException;
+    }
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private final CsvRow<T> csv;
+    private long count;
+
+    ExportWriter(OutputStream out, ExportFormat format, ObjectMapper mapper,
+                 String csvHeader, CsvRow<T> csv) throws IOException {
+        this.format = format;
+        this.csv = csv;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.json = mapper.getFactory().createGenerator(writer);
+        // Поток закрывает сервлет, не мы
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Иначе close() сам допишет "]" и обрыв выгрузки превратится в валидный короткий массив
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        // Строки NDJSON разделяем сами переводом строки, без пробела Jackson между корневыми значениями
+        json.setRootValueSeparator(null);
+        switch (format) {
+            case JSON -> json.writeStartArray();
+            case CSV -> writer.write(csvHeader + "\n");
+            default -> {
+            }
+        }
+    }
+
+    void write(T row) throws IOException {
+        switch (format) {
+            case NDJSON -> {
+                json.writeObject(row);
+                json.flush();
+                writer.write('\n');
+            }
+            case JSON -> json.writeObject(row);
+            case CSV -> csv.write(writer, row);
+        }
+        count++;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /** Дописывает хвост (закрывающую скобку массива) и сбрасывает буферы. */
+    void finish() throws IOException {
+        if (format == ExportFormat.JSON) {
+            json.writeEndArray();
+        }
+        json.flush();
+        writer.flush();
+    }
+
+    // Без finish() — при ошибке посреди выгрузки массив остаётся незакрытым,
+    // и клиент видит обрыв, а не "валидный" неполный список
+    @Override
+    public void close() throws IOException {
+        json.close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.autoservice.service;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static ImportFormat fromContentType(String contentType) {
+        String ct = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (ct.startsWith("text/csv")) {
+            return CSV;
+        }
+        if (ct.startsWith("application/x-ndjson") || ct.startsWith("application/jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат импорта: " + contentType);
+    }
+}
@@ -0,0 +1,129 @@
+package com.autoservice.service;
+
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.repository.OrderArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Перенос завершённых заказов (DONE/CANCELED) старше autoservice.orders.archive.after
+ * из orders в orders_archive. Переносится пачками, каждая своей транзакцией,
+ * чтобы не держать блокировки на всю работу.
+ *
+ * Граница архива (самый поздний created_at в нём) хранится в памяти: выборка
+ * по периоду смотрит в архив, только если период начинается не позже неё.
+ * Граница перечитывается из БД при старте и на каждом запуске задачи, так что
+ * перенос, сделанный другим экземпляром, становится виден за один интервал.
+ * Без планировщика (консоль --cli) границу помечает устаревшей ServerChangeBridge,
+ * когда сервер удаляет заказы, и она перечитывается при следующей выборке.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    private final OrderArchiveRepository repository;
+    private final ChangeTracker changes;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration after;
+    private final int batchSize;
+
+    // null — архив пуст
+    private volatile LocalDateTime horizon;
+    private volatile boolean horizonStale;
+
+    public OrderArchiveService(OrderArchiveRepository repository, ChangeTracker changes, TransactionTemplate tx,
+                               @Value("${autoservice.orders.archive.enabled:true}") boolean enabled,
+                               @Value("${autoservice.orders.archive.after:90d}") Duration after,
+                               @Value("${autoservice.orders.archive.batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.changes = changes;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.after = after;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onStartup() {
+        refreshHorizon();
+    }
+
+    /** Заходит ли период, начинающийся с from (null — с начала времён), в архив. */
+    public boolean reachesArchive(LocalDateTime from) {
+        if (horizonStale) {
+            // Сброс до чтения: пометка, пришедшая во время чтения, не потеряется
+            horizonStale = false;
+            refreshHorizon();
+        }
+        LocalDateTime h = horizon;
+        return h != null && (from == null || !from.isAfter(h));
+    }
+
+    @Scheduled(fixedDelayString = "${autoservice.orders.archive.interval:PT1H}",
+            initialDelayString = "${autoservice.orders.archive.interval:PT1H}")
+    public void scheduledRun() {
+        if (enabled) {
+            archive();
+        } else {
+            refreshHorizon();
+        }
+    }
+
+    /** Переносит всё, что пора переносить. Возвращает число перенесённых заказов. */
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(after);
+        long started = System.currentTimeMillis();
+        int total = 0;
+        List<OrderArchiveRepository.Moved> moved;
+        do {
+            moved = tx.execute(status -> {
+                List<OrderArchiveRepository.Moved> batch = repository.moveFinishedBefore(cutoff, batchSize);
+                for (OrderArchiveRepository.Moved m : batch) {
+                    // Границу двигаем до коммита: пока он не прошёл, выборка лишний раз
+                    // заглянет в архив, но не пропустит строки, уже уехавшие туда
+                    advanceHorizon(m.createdAt());
+                    // Для горячей таблицы заказ исчез: окна и ETag'и должны это увидеть
+                    changes.record(TrackedTable.ORDERS, ChangeType.DELETED, m.id());
+                }
+                return batch;
+            });
+            total += moved.size();
+        } while (moved.size() == batchSize);
+
+        refreshHorizon();
+        if (total > 0) {
+            log.info("В архив перенесено {} заказов, завершённых до {}, за {} мс",
+                    total, cutoff, System.currentTimeMillis() - started);
+        }
+        return total;
+    }
+
+    /** Заказы ушли из горячей таблицы в другом процессе: перечитать границу при следующей выборке. */
+    public void invalidateHorizon() {
+        horizonStale = true;
+    }
+
+    private void refreshHorizon() {
+        horizon = repository.findArchiveHorizon().orElse(null);
+    }
+
+    private synchronized void advanceHorizon(LocalDateTime createdAt) {
+        if (horizon == null || createdAt.isAfter(horizon)) {
+            horizon = createdAt;
+        }
+    }
+}
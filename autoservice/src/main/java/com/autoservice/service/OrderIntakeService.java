@@ -0,0 +1,237 @@
+package com.autoservice.service;
+
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.config.ReadRouting;
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import com.autoservice.repository.ClientRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронный приём заказов с групповым коммитом. Заявки копятся в ограниченной
+ * очереди, один рабочий поток забирает всё накопившееся (до batch-size) и
+ * проводит пачку одной транзакцией: одна проверка клиентов через IN, батч-вставка
+ * заказов и роллапов. Чем больше нагрузка, тем крупнее пачки — число коммитов
+ * растёт медленнее числа заказов.
+ */
+@Service
+public class OrderIntakeService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakeService.class);
+
+    private record Request(Integer clientId, OrderStatus status, BigDecimal totalCost, String skill,
+                           BigDecimal estimatedHours, CompletableFuture<Order> result) {
+    }
+
+    private final ClientRepository clients;
+    private final ReportService reportService;
+    private final AssignmentService assignments;
+    private final ChangeTracker changes;
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+    private final BlockingQueue<Request> queue;
+    private final int batchSize;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OrderIntakeService(ClientRepository clients, ReportService reportService, AssignmentService assignments,
+                              ChangeTracker changes,
+                              EntityManager entityManager, TransactionTemplate tx,
+                              @Value("${autoservice.orders.intake.queue-capacity:10000}") int queueCapacity,
+                              @Value("${autoservice.orders.intake.batch-size:500}") int batchSize) {
+        this.clients = clients;
+        this.reportService = reportService;
+        this.assignments = assignments;
+        this.changes = changes;
+        this.entityManager = entityManager;
+        this.tx = tx;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Ставит заказ в очередь. Статус проверяется сразу, клиент — при проводке пачки.
+     * Очередь полна -> RejectedExecutionException, вызывающему стоит повторить позже.
+     */
+    public CompletableFuture<Order> submit(Integer clientId, OrderStatus status, BigDecimal totalCost) {
+        return submit(clientId, status, totalCost, null, null);
+    }
+
+    /** То же с навыком исполнителя и оценкой в часах (см. OrderService.createSimpleOrder). */
+    public CompletableFuture<Order> submit(Integer clientId, OrderStatus status, BigDecimal totalCost,
+                                           String skill, BigDecimal estimatedHours) {
+        OrderStatus initial = status == null ? OrderStatus.CREATED : status;
+        if (!initial.isInitial()) {
+            throw new IllegalArgumentException("Новый заказ не может быть в статусе " + initial);
+        }
+        if (clientId == null) {
+            throw new IllegalArgumentException("Не указан клиент");
+        }
+        OrderService.checkEstimatedHours(estimatedHours);
+        String normalizedSkill = AssignmentService.normalizeSkill(skill);
+        if (!running) {
+            throw new RejectedExecutionException("Приём заказов остановлен");
+        }
+        Request request = new Request(clientId, initial, totalCost, normalizedSkill, estimatedHours,
+                new CompletableFuture<>());
+        if (!queue.offer(request)) {
+            throw new RejectedExecutionException("Очередь приёма заказов переполнена, повтори позже");
+        }
+        return request.result();
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    // ===== Рабочий поток =====
+
+    private void runWorker() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // Пачка — сессия чтения: заявки завершаются в ней, и продолжения (ответ
+                // с cookie позиции коммита, см. OrderController.intake) видят её коммит
+                try (ReadRouting.Scope session = ReadRouting.open(0)) {
+                    process(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // process() сам завершает заявки; сюда попадает только неожиданное
+                log.error("Сбой в потоке приёма заказов", e);
+                failAll(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+        failAll(new ArrayList<>(queue), new RejectedExecutionException("Приём заказов остановлен"));
+    }
+
+    private void process(List<Request> batch) {
+        try {
+            commit(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // Одна плохая строка не должна валить всю пачку: проводим по одной
+            log.warn("Пачка из {} заказов не прошла ({}), проводим по одному", batch.size(), e.getMessage());
+            for (Request r : batch) {
+                try {
+                    commit(List.of(r));
+                } catch (RuntimeException single) {
+                    r.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /** Одна транзакция на пачку. Заявки завершаются только после коммита. */
+    private void commit(List<Request> batch) {
+        Set<Integer> clientIds = new HashSet<>();
+        for (Request r : batch) {
+            clientIds.add(r.clientId());
+        }
+
+        List<Request> accepted = new ArrayList<>(batch.size());
+        List<Order> saved = new ArrayList<>(batch.size());
+        tx.executeWithoutResult(status -> {
+            Set<Integer> existing = new HashSet<>(clients.findExistingIds(clientIds));
+            LocalDateTime now = LocalDateTime.now();
+            for (Request r : batch) {
+                if (!existing.contains(r.clientId())) {
+                    continue;
+                }
+                Order order = new Order();
+                order.setClientId(r.clientId());
+                order.setStatus(r.status());
+                order.setCreatedAt(now);
+                order.setTotalCost(r.totalCost());
+                order.setSkill(r.skill());
+                order.setEstimatedHours(r.estimatedHours());
+                // при откате пачки назначение вернётся само
+                assignments.assign(order);
+                entityManager.persist(order);
+                accepted.add(r);
+                saved.add(order);
+            }
+            entityManager.flush();
+            reportService.onOrdersCreated(saved);
+            for (Order order : saved) {
+                changes.record(TrackedTable.ORDERS, ChangeType.CREATED, order.getId());
+            }
+        });
+
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).result().complete(saved.get(i));
+        }
+        for (Request r : batch) {
+            if (!r.result().isDone()) {
+                r.result().completeExceptionally(
+                        new IllegalArgumentException("Клиент с id=" + r.clientId() + " не найден"));
+            }
+        }
+    }
+
+    private static void failAll(List<Request> requests, RuntimeException e) {
+        for (Request r : requests) {
+            r.result().completeExceptionally(e);
+        }
+    }
+
+    // ===== SmartLifecycle =====
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::runWorker, "order-intake");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Новые заявки больше не принимаются, уже поставленные проводятся до конца. */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -1,44 +1,336 @@
 package com.autoservice.service;
 
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.ClientOrders;
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.OrderBoard;
+import com.autoservice.dto.OrderSummary;
+import com.autoservice.dto.RangePage;
+import com.autoservice.dto.TimeCursor;
+import com.autoservice.entity.Client;
 import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import com.autoservice.repository.OrderArchiveRepository;
 import com.autoservice.repository.OrderRepository;
+import com.autoservice.repository.OrderSummaryRepository;
+import com.autoservice.repository.RollupRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// Таймер autoservice.service с тегами class/method на каждый публичный метод
+@Timed(value = "autoservice.service", histogram = true)
 @Service
 public class OrderService {
 
+    public static final int DEFAULT_RECENT_ORDERS = 10;
+    public static final int MAX_RECENT_ORDERS = 100;
+    public static final int MAX_CLIENTS_PER_REQUEST = 500;
+
     private final OrderRepository repository;
+    private final OrderSummaryRepository summaries;
+    private final OrderArchiveRepository history;
+    private final OrderArchiveService archive;
     private final ClientService clientService;
+    private final ReportService reportService;
+    private final PartService parts;
+    private final AssignmentService assignments;
+    private final ChangeTracker changes;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
-    public OrderService(OrderRepository repository, ClientService clientService) {
+    public OrderService(OrderRepository repository, OrderSummaryRepository summaries,
+                        OrderArchiveRepository history, OrderArchiveService archive, ClientService clientService,
+                        ReportService reportService, PartService parts, AssignmentService assignments,
+                        ChangeTracker changes, EntityManager entityManager, ObjectMapper objectMapper) {
         this.repository = repository;
+        this.summaries = summaries;
+        this.history = history;
+        this.archive = archive;
         this.clientService = clientService;
+        this.reportService = reportService;
+        this.parts = parts;
+        this.assignments = assignments;
+        this.changes = changes;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
     }
 
+    /** Вся история заказов по id, вместе с архивом. Для больших объёмов — exportOrders. */
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
-        return repository.findAll();
+        try (Stream<Order> rows = history.streamAll(archive.reachesArchive(null))) {
+            return rows.toList();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersByIds(Collection<Integer> ids) {
+        return repository.findAllById(ids);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getOrdersPage(Integer afterId, Integer limit) {
+        int size = CursorPage.pageSize(limit);
+        int after = afterId == null ? 0 : afterId;
+        List<Order> rows = repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size + 1));
+        return CursorPage.of(rows, size, Order::getId);
+    }
+
+    /**
+     * Выгрузка всех заказов, включая архив, в out по курсору БД. Строки читаются
+     * JDBC мимо контекста JPA, так что память не зависит от размера таблиц.
+     * Возвращает число выгруженных заказов.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(OutputStream out, ExportFormat format) throws IOException {
+        try (Stream<Order> rows = history.streamAll(archive.reachesArchive(null));
+             ExportWriter<Order> writer = new ExportWriter<>(out, format, objectMapper,
+                     "id,client_id,status,created_at,finished_at,total_cost", OrderService::writeCsvRow)) {
+            Iterator<Order> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+            }
+            writer.finish();
+            return writer.count();
+        }
     }
 
+    /** Заказ по id; не нашёлся в горячей таблице — ищем в архиве. */
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Integer id) {
-        return repository.findById(id);
+        return repository.findById(id).or(() -> history.findArchivedById(id));
+    }
+
+    /**
+     * Заказы, созданные в [from, to) (любая граница может быть null), по
+     * (created_at, id) с курсором after. Архив подключается, только если
+     * период начинается не позже самого свежего заказа в нём.
+     */
+    @Transactional(readOnly = true)
+    public RangePage<Order> getOrdersCreatedBetween(LocalDateTime from, LocalDateTime to, String after,
+                                                    Integer limit) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало периода должно быть раньше конца");
+        }
+        int size = CursorPage.pageSize(limit);
+        TimeCursor cursor = after == null ? null : TimeCursor.parse(after);
+        List<Order> rows = history.findCreatedBetween(from, to, cursor, size + 1, archive.reachesArchive(from));
+        return RangePage.of(rows, size, o -> new TimeCursor(o.getCreatedAt(), o.getId()));
+    }
+
+    @Transactional
+    public Order createSimpleOrder(Integer clientId, OrderStatus status, BigDecimal totalCost) {
+        return createSimpleOrder(clientId, status, totalCost, null, null);
     }
 
-    public Order createSimpleOrder(Integer clientId, String status, BigDecimal totalCost) {
+    /**
+     * Новый заказ. skill — нужный навык исполнителя (null — любой), estimatedHours —
+     * оценка трудоёмкости; исполнитель назначается сразу, самый свободный из подходящих.
+     */
+    @Transactional
+    public Order createSimpleOrder(Integer clientId, OrderStatus status, BigDecimal totalCost,
+                                   String skill, BigDecimal estimatedHours) {
+        OrderStatus initial = status == null ? OrderStatus.CREATED : status;
+        if (!initial.isInitial()) {
+            throw new IllegalArgumentException("Новый заказ не может быть в статусе " + initial);
+        }
+        checkEstimatedHours(estimatedHours);
         // Проверим, что клиент существует
         clientService.getClientById(clientId)
                 .orElseThrow(() -> new IllegalArgumentException("Клиент с id=" + clientId + " не найден"));
 
         Order order = new Order();
         order.setClientId(clientId);
-        order.setStatus(status);
+        order.setStatus(initial);
         order.setCreatedAt(LocalDateTime.now());
         order.setTotalCost(totalCost);
+        order.setSkill(AssignmentService.normalizeSkill(skill));
+        order.setEstimatedHours(estimatedHours);
+        assignments.assign(order);
+
+        Order saved = repository.save(order);
+        reportService.onOrderCreated(saved);
+        changes.record(TrackedTable.ORDERS, ChangeType.CREATED, saved.getId());
+        return saved;
+    }
+
+    /**
+     * Перевод заказа в новый статус по правилам OrderStatus.
+     * Обновление условное (WHERE status = текущий), так что два параллельных
+     * перевода не затрут друг друга: второй получит ConflictException.
+     */
+    @Transactional
+    public Order changeStatus(Integer orderId, OrderStatus next) {
+        if (next == null) {
+            throw new IllegalArgumentException("Не указан новый статус");
+        }
+        Order order = repository.findById(orderId)
+                .orElseThrow(() -> new NoSuchElementException("Заказ с id=" + orderId + " не найден"));
+        OrderStatus current = order.getStatus();
+        if (current == next) {
+            return order;
+        }
+        if (!current.canTransitionTo(next)) {
+            throw new ConflictException("Нельзя перевести заказ " + orderId + " из " + current + " в " + next
+                    + ", допустимо: " + current.allowedNext());
+        }
+
+        LocalDateTime finishedAt = next.isTerminal() ? LocalDateTime.now() : null;
+        if (repository.updateStatus(orderId, current, next, finishedAt) == 0) {
+            throw new ConflictException("Статус заказа " + orderId + " уже изменили, обнови и попробуй снова");
+        }
+        // Строку уже обновили запросом выше — сущность только отдаём наружу
+        entityManager.detach(order);
+        order.setStatus(next);
+        order.setFinishedAt(finishedAt);
+        reportService.onStatusChanged(order, current);
+        // DONE — резервы запчастей списываются со склада, CANCELED — возвращаются
+        parts.onOrderFinished(orderId, next);
+        if (next.isTerminal()) {
+            assignments.onOrderFinished(order);
+        }
+        changes.record(TrackedTable.ORDERS, ChangeType.UPDATED, orderId);
+        return order;
+    }
+
+    /** Оценка трудоёмкости: положительная и влезает в NUMERIC(6, 2). */
+    static void checkEstimatedHours(BigDecimal hours) {
+        if (hours != null && (hours.signum() <= 0 || hours.compareTo(new BigDecimal("9999.99")) > 0)) {
+            throw new IllegalArgumentException("Оценка в часах должна быть от 0.01 до 9999.99");
+        }
+    }
+
+    /** Карточка одного клиента с последними limit заказами. */
+    @Transactional(readOnly = true)
+    public ClientOrders getClientOrders(Integer clientId, Integer limit) {
+        Client client = clientService.getClientById(clientId)
+                .orElseThrow(() -> new NoSuchElementException("Клиент с id=" + clientId + " не найден"));
+        return assemble(List.of(client), recentLimit(limit)).get(0);
+    }
+
+    /**
+     * Карточки многих клиентов за постоянное число запросов: клиенты одним IN,
+     * последние заказы одним LATERAL-запросом, итоги одним запросом к роллапам.
+     * Порядок — как в ids, несуществующие id пропускаются.
+     */
+    @Transactional(readOnly = true)
+    public List<ClientOrders> getClientsOrders(Collection<Integer> clientIds, Integer perClient) {
+        if (clientIds == null || clientIds.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны id клиентов");
+        }
+        LinkedHashSet<Integer> ids = new LinkedHashSet<>(clientIds);
+        if (ids.size() > MAX_CLIENTS_PER_REQUEST) {
+            throw new IllegalArgumentException("Не больше " + MAX_CLIENTS_PER_REQUEST + " клиентов за запрос");
+        }
+        Map<Integer, Client> byId = new HashMap<>();
+        for (Client c : clientService.getClientsByIds(ids)) {
+            byId.put(c.getId(), c);
+        }
+        List<Client> clients = new ArrayList<>(byId.size());
+        for (Integer id : ids) {
+            Client c = byId.get(id);
+            if (c != null) {
+                clients.add(c);
+            }
+        }
+        return assemble(clients, recentLimit(perClient));
+    }
+
+    private List<ClientOrders> assemble(List<Client> clients, int perClient) {
+        List<Integer> ids = clients.stream().map(Client::getId).toList();
+        Map<Integer, List<OrderSummary>> recent = summaries.findRecentByClients(ids, perClient);
+        Map<Integer, RollupRepository.ClientRow> totals = reportService.getClientTotals(ids);
+
+        List<ClientOrders> result = new ArrayList<>(clients.size());
+        for (Client c : clients) {
+            RollupRepository.ClientRow t = totals.get(c.getId());
+            result.add(new ClientOrders(c,
+                    t == null ? 0 : t.orderCount(),
+                    t == null ? BigDecimal.ZERO : t.revenue(),
+                    recent.getOrDefault(c.getId(), List.of())));
+        }
+        return result;
+    }
+
+    private static int recentLimit(Integer limit) {
+        return limit == null ? DEFAULT_RECENT_ORDERS : Math.max(1, Math.min(limit, MAX_RECENT_ORDERS));
+    }
+
+    /**
+     * Счётчики по статусам (пустой список — по всем). Открытые считает БД через
+     * GROUP BY по горячей таблице, завершённые — по роллапам, вместе с уехавшими в
+     * архив: их число растёт, а стоимость запроса нет.
+     */
+    @Transactional(readOnly = true)
+    public OrderBoard getBoard(Collection<OrderStatus> statuses) {
+        Collection<OrderStatus> wanted = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(OrderStatus.class) : statuses;
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        EnumSet<OrderStatus> open = EnumSet.noneOf(OrderStatus.class);
+        EnumSet<OrderStatus> finished = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus st : wanted) {
+            counts.put(st, 0L);
+            (st.isTerminal() ? finished : open).add(st);
+        }
+        if (!open.isEmpty()) {
+            for (Object[] row : repository.countByStatus(open)) {
+                counts.put((OrderStatus) row[0], (Long) row[1]);
+            }
+        }
+        if (!finished.isEmpty()) {
+            counts.putAll(reportService.getStatusTotals(finished));
+        }
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        return new OrderBoard(counts, total);
+    }
+
+    /** Заказы в статусе по id; у завершённых — вместе с архивом. */
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getOrdersByStatus(OrderStatus status, Integer afterId, Integer limit) {
+        int size = CursorPage.pageSize(limit);
+        int after = afterId == null ? 0 : afterId;
+        List<Order> rows = status.isTerminal() && archive.reachesArchive(null)
+                ? history.findByStatus(status, after, size + 1, true)
+                : repository.findByStatusAndIdGreaterThanOrderByIdAsc(status, after, Limit.of(size + 1));
+        return CursorPage.of(rows, size, Order::getId);
+    }
 
-        return repository.save(order);
+    private static void writeCsvRow(Writer w, Order o) throws IOException {
+        w.write(String.valueOf(o.getId()));
+        w.write(',');
+        w.write(String.valueOf(o.getClientId()));
+        w.write(',');
+        w.write(o.getStatus() == null ? "" : o.getStatus().name());
+        w.write(',');
+        w.write(o.getCreatedAt() == null ? "" : o.getCreatedAt().toString());
+        w.write(',');
+        w.write(o.getFinishedAt() == null ? "" : o.getFinishedAt().toString());
+        w.write(',');
+        w.write(o.getTotalCost() == null ? "" : o.getTotalCost().toPlainString());
+        w.write('\n');
     }
 }
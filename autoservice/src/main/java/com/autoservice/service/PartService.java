@@ -0,0 +1,250 @@
+package com.autoservice.service;
+
+import com.autoservice.cache.StockView;
+import com.autoservice.change.ChangeTracker;
+import com.autoservice.change.ChangeType;
+import com.autoservice.change.TrackedTable;
+import com.autoservice.dto.CursorPage;
+import com.autoservice.dto.PartReservation;
+import com.autoservice.dto.StockLevel;
+import com.autoservice.entity.OrderStatus;
+import com.autoservice.entity.Part;
+import com.autoservice.repository.PartRepository;
+import com.autoservice.repository.StockRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Склад запчастей: каталог, остатки и резервы под заказы.
+ *
+ * Резерв не берёт блокировок на строку запчасти заранее: сначала проверка по
+ * остаткам в памяти (StockView), затем один условный UPDATE последним оператором
+ * транзакции — строка популярной запчасти занята только на время коммита.
+ * Резерв снимается сам: заказ DONE — запчасти списываются, CANCELED — возвращаются.
+ * И резерв, и снятие занимают строки запчастей по возрастанию id.
+ */
+@Timed(value = "autoservice.service", histogram = true)
+@Service
+public class PartService {
+
+    public static final int MAX_RESERVATION_LINES = 100;
+
+    private final PartRepository parts;
+    private final StockRepository stock;
+    private final StockView view;
+    private final ChangeTracker changes;
+
+    public PartService(PartRepository parts, StockRepository stock, StockView view, ChangeTracker changes) {
+        this.parts = parts;
+        this.stock = stock;
+        this.view = view;
+        this.changes = changes;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Part> getPartsPage(Integer afterId, Integer limit) {
+        int size = CursorPage.pageSize(limit);
+        int after = afterId == null ? 0 : afterId;
+        return CursorPage.of(parts.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size + 1)), size, Part::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Part> getPartById(Integer id) {
+        return parts.findById(id);
+    }
+
+    @Transactional
+    public Part createPart(String sku, String name, BigDecimal price, Integer onHand) {
+        if (sku == null || sku.isBlank()) {
+            throw new IllegalArgumentException("Артикул (sku) обязателен");
+        }
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Название запчасти обязательно");
+        }
+        int initial = onHand == null ? 0 : onHand;
+        if (initial < 0) {
+            throw new IllegalArgumentException("Начальный остаток не может быть отрицательным");
+        }
+        String normalized = sku.trim();
+        if (parts.existsBySku(normalized)) {
+            throw new ConflictException("Запчасть с артикулом " + normalized + " уже есть");
+        }
+        Part saved = parts.save(new Part(null, normalized, name.trim(), price, initial));
+        publish(List.of(new StockLevel(saved.getId(), initial, 0, 0)), ChangeType.CREATED);
+        return saved;
+    }
+
+    /** Остаток по памяти, без БД. Запчасти, которой ещё нет в памяти (создана другим процессом), — дочитываем. */
+    public StockLevel getStock(int partId) {
+        view.ensureLoaded(stock::findAll);
+        return view.get(partId).or(() -> refreshStock(partId))
+                .orElseThrow(() -> new NoSuchElementException("Запчасть с id=" + partId + " не найдена"));
+    }
+
+    /** Остатки многих запчастей; несуществующие id пропускаются. */
+    public List<StockLevel> getStock(Collection<Integer> partIds) {
+        if (partIds == null || partIds.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны id запчастей");
+        }
+        view.ensureLoaded(stock::findAll);
+        List<StockLevel> result = new ArrayList<>(partIds.size());
+        for (Integer id : partIds) {
+            view.get(id).or(() -> refreshStock(id)).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /** Перечитать все остатки из БД (ServerChangeBridge после пропуска в ленте сервера). */
+    public void reloadStock() {
+        view.reload(stock::findAll);
+    }
+
+    /** Перечитать остаток из БД (изменение сделал другой процесс). */
+    public Optional<StockLevel> refreshStock(int partId) {
+        Optional<StockLevel> level = stock.find(partId);
+        level.ifPresent(view::apply);
+        return level;
+    }
+
+    /** Приход (quantity > 0) или списание (< 0). Списать можно только свободное. */
+    @Transactional
+    public StockLevel adjustStock(Integer partId, Integer quantity) {
+        if (quantity == null || quantity == 0) {
+            throw new IllegalArgumentException("Количество должно быть ненулевым");
+        }
+        StockLevel level = stock.adjust(partId, quantity).orElseThrow(() -> stock.find(partId).isEmpty()
+                ? new NoSuchElementException("Запчасть с id=" + partId + " не найдена")
+                : new ConflictException("Нельзя списать " + -quantity + " шт. запчасти id=" + partId
+                        + ": столько свободных нет"));
+        publish(List.of(level), ChangeType.UPDATED);
+        return level;
+    }
+
+    /**
+     * Резерв запчастей под открытый заказ: всё или ничего. Повторный резерв
+     * той же запчасти добавляется к прежнему. Не хватает -> ConflictException.
+     */
+    @Transactional
+    public List<PartReservation> reserve(Integer orderId, List<PartReservation> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны запчасти для резерва");
+        }
+        if (lines.size() > MAX_RESERVATION_LINES) {
+            throw new IllegalArgumentException("Не больше " + MAX_RESERVATION_LINES + " строк за запрос");
+        }
+        // По возрастанию id: два многострочных резерва берут строки в одном порядке и не
+        // попадают в дедлок
+        Map<Integer, Integer> wanted = new TreeMap<>();
+        for (PartReservation line : lines) {
+            if (line.partId() == null || line.quantity() == null || line.quantity() <= 0) {
+                throw new IllegalArgumentException("В каждой строке нужны partId и quantity > 0");
+            }
+            wanted.merge(line.partId(), line.quantity(), Integer::sum);
+        }
+
+        // Заведомо безнадёжные резервы отсекаем по памяти и не толкаемся за строку в БД
+        view.ensureLoaded(stock::findAll);
+        wanted.forEach((partId, quantity) -> {
+            StockLevel known = view.get(partId).orElse(null);
+            if (known == null || known.available() < quantity) {
+                // память могла отстать (приход через другой процесс) — сверяемся с БД
+                known = refreshStock(partId).orElseThrow(
+                        () -> new IllegalArgumentException("Запчасть с id=" + partId + " не найдена"));
+                if (known.available() < quantity) {
+                    throw notEnough(partId, quantity, known.available());
+                }
+            }
+        });
+
+        OrderStatus status = stock.lockOrder(orderId)
+                .orElseThrow(() -> new NoSuchElementException("Заказ с id=" + orderId + " не найден"));
+        if (status.isTerminal()) {
+            throw new ConflictException("Заказ " + orderId + " уже " + status.title() + ", резерв невозможен");
+        }
+        wanted.forEach((partId, quantity) -> stock.addReservation(orderId, partId, quantity));
+
+        // Условные UPDATE'ы — последними: блокировка строки запчасти живёт до коммита
+        List<StockLevel> levels = new ArrayList<>(wanted.size());
+        wanted.forEach((partId, quantity) -> levels.add(stock.reserve(partId, quantity).orElseThrow(() ->
+                // обогнали между проверкой и UPDATE'ом; откат транзакции снимет и строки резерва
+                notEnough(partId, quantity, stock.find(partId).map(StockLevel::available).orElse(0)))));
+        publish(levels, ChangeType.UPDATED);
+        return stock.findReservations(orderId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PartReservation> getReservations(Integer orderId) {
+        return stock.findReservations(orderId);
+    }
+
+    /** Снять резерв одной запчасти с заказа. */
+    @Transactional
+    public void releaseReservation(Integer orderId, Integer partId) {
+        List<StockLevel> levels = stock.releaseLine(orderId, partId);
+        if (levels.isEmpty()) {
+            throw new NoSuchElementException("У заказа " + orderId + " нет резерва запчасти id=" + partId);
+        }
+        publish(levels, ChangeType.UPDATED);
+    }
+
+    /**
+     * Заказ закрыт: DONE — резервы списываются со склада, CANCELED — освобождаются.
+     * Вызывается в транзакции смены статуса.
+     */
+    @Transactional
+    public void onOrderFinished(int orderId, OrderStatus status) {
+        if (!status.isTerminal()) {
+            return;
+        }
+        List<StockLevel> levels = status == OrderStatus.DONE
+                ? stock.consumeOrder(orderId)
+                : stock.releaseOrders(List.of(orderId));
+        publish(levels, ChangeType.UPDATED);
+    }
+
+    /** Заказы удалены или отменены пакетно (каскад при удалении клиентов). */
+    @Transactional
+    public void releaseOrders(Collection<Integer> orderIds) {
+        if (!orderIds.isEmpty()) {
+            publish(stock.releaseOrders(orderIds), ChangeType.UPDATED);
+        }
+    }
+
+    private static ConflictException notEnough(int partId, int quantity, int available) {
+        return new ConflictException("Не хватает запчасти id=" + partId
+                + ": нужно " + quantity + ", свободно " + available);
+    }
+
+    // Память обновляем только после коммита: откатившийся резерв не должен в неё попасть
+    private void publish(List<StockLevel> levels, ChangeType type) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    levels.forEach(view::apply);
+                }
+            });
+        } else {
+            levels.forEach(view::apply);
+        }
+        for (StockLevel level : levels) {
+            changes.record(TrackedTable.PARTS, type, level.partId());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.autoservice.service;
+
+import com.autoservice.dto.PeriodReport;
+import com.autoservice.dto.RebuildReport;
+import com.autoservice.dto.ReportPeriod;
+import com.autoservice.entity.Order;
+import com.autoservice.entity.OrderStatus;
+import com.autoservice.repository.ClientBulkRepository;
+import com.autoservice.repository.RollupDeltas;
+import com.autoservice.repository.RollupRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отчёты по заказам на основе роллапов: дневные бакеты по статусам и итоги
+ * по клиентам. Транзакция записи заказа только добавляет дельты, в роллапы их
+ * сворачивает фоновая задача (см. RollupRepository).
+ */
+@Service
+public class ReportService {
+
+    public static final int MAX_CLIENTS = 500;
+    private static final int FOLD_BATCH = 5000;
+
+    private final RollupRepository rollups;
+
+    public ReportService(RollupRepository rollups) {
+        this.rollups = rollups;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderCreated(Order order) {
+        rollups.apply(new RollupDeltas().added(order, order.getStatus()));
+    }
+
+    /** Пачка новых заказов: дельты складываются в памяти и пишутся одним батчем. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrdersCreated(Collection<Order> orders) {
+        RollupDeltas deltas = new RollupDeltas();
+        for (Order order : orders) {
+            deltas.added(order, order.getStatus());
+        }
+        rollups.apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStatusChanged(Order order, OrderStatus previous) {
+        rollups.apply(new RollupDeltas().moved(order, previous));
+    }
+
+    /** Каскад при удалении клиентов: заказы удалены (HARD) или отменены (SOFT). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrdersAffected(Collection<ClientBulkRepository.AffectedOrder> affected, boolean deleted) {
+        RollupDeltas deltas = new RollupDeltas();
+        for (ClientBulkRepository.AffectedOrder a : affected) {
+            if (deleted) {
+                deltas.removed(a.order());
+            } else {
+                deltas.moved(a.order(), a.previous());
+            }
+        }
+        rollups.apply(deltas);
+    }
+
+    /** Бакеты за [from, to]; недельные/месячные собираются из дневных. */
+    @Transactional(readOnly = true)
+    public List<PeriodReport> getOrdersReport(ReportPeriod period, LocalDate from, LocalDate to) {
+        Map<LocalDate, Bucket> buckets = new LinkedHashMap<>();
+        for (RollupRepository.BucketRow row : rollups.findBuckets(period.sqlUnit(), from, to)) {
+            Bucket b = buckets.computeIfAbsent(row.periodStart(), d -> new Bucket());
+            b.count += row.orderCount();
+            b.byStatus.merge(row.status(), row.orderCount(), Long::sum);
+            if (row.status() != OrderStatus.CANCELED) {
+                b.paidCount += row.orderCount();
+                b.revenue = b.revenue.add(row.revenue());
+            }
+        }
+
+        List<PeriodReport> result = new ArrayList<>(buckets.size());
+        buckets.forEach((start, b) -> {
+            BigDecimal avg = b.paidCount == 0 ? BigDecimal.ZERO
+                    : b.revenue.divide(BigDecimal.valueOf(b.paidCount), 2, RoundingMode.HALF_UP);
+            result.add(new PeriodReport(start, b.count, b.revenue, avg, b.byStatus));
+        });
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RollupRepository.ClientRow> getTopClients(int limit) {
+        return rollups.findTopClients(Math.max(1, Math.min(limit, MAX_CLIENTS)));
+    }
+
+    /** Заказы по статусам за всю историю, включая архив. */
+    @Transactional(readOnly = true)
+    public Map<OrderStatus, Long> getStatusTotals(Collection<OrderStatus> statuses) {
+        return rollups.countByStatus(statuses);
+    }
+
+    /** Итоги (число заказов, выручка) по клиентам; ключ — client_id. */
+    @Transactional(readOnly = true)
+    public Map<Integer, RollupRepository.ClientRow> getClientTotals(Collection<Integer> clientIds) {
+        Map<Integer, RollupRepository.ClientRow> result = new HashMap<>();
+        for (RollupRepository.ClientRow row : rollups.findClientTotals(clientIds)) {
+            result.put(row.clientId(), row);
+        }
+        return result;
+    }
+
+    /** Сворачивает накопившиеся дельты в роллапы, пачками; каждая пачка — свой оператор. */
+    @Scheduled(fixedDelayString = "${autoservice.reports.rollups.fold-interval:PT1S}")
+    public void foldRollupDeltas() {
+        while (rollups.fold(FOLD_BATCH) == FOLD_BATCH) {
+            // дальше, пока дельты не кончатся
+        }
+    }
+
+    /**
+     * Пересчитывает роллапы по истории заказов и сообщает, сколько бакетов
+     * расходилось — для сверки инкрементального учёта.
+     */
+    @Transactional
+    public RebuildReport rebuildRollups() {
+        long started = System.currentTimeMillis();
+        rollups.lockForRebuild();
+        int days = rollups.countDayMismatches();
+        int clients = rollups.countClientMismatches();
+        rollups.rebuild();
+        return new RebuildReport(days, clients, System.currentTimeMillis() - started);
+    }
+
+    private static final class Bucket {
+        long count;
+        long paidCount;
+        BigDecimal revenue = BigDecimal.ZERO;
+        final Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+    }
+}
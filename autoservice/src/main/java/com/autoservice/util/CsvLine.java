@@ -0,0 +1,64 @@
+package com.autoservice.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор одной строки CSV: кавычки, "" внутри кавычек, разделитель на выбор.
+ * Переносы строк внутри кавычек не поддерживаются — импорт читает построчно.
+ */
+public final class CsvLine {
+
+    private CsvLine() {
+    }
+
+    public static List<String> parse(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    sb.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("незакрытая кавычка");
+        }
+        fields.add(sb.toString());
+        return fields;
+    }
+
+    /** Поле для записи в CSV: в кавычки, только если без них строка разъедется. */
+    public static String quote(String value, char delimiter) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = value.indexOf(delimiter) >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    /** ';' если его в заголовке больше, чем ',' (так сохраняет русский Excel). */
+    public static char detectDelimiter(String header) {
+        long semicolons = header.chars().filter(ch -> ch == ';').count();
+        long commas = header.chars().filter(ch -> ch == ',').count();
+        return semicolons > commas ? ';' : ',';
+    }
+}
@@ -0,0 +1,62 @@
+package com.autoservice.util;
+
+/**
+ * Приведение телефонов к виду E.164 без плюса: только цифры, с кодом страны.
+ * "+7 (912) 345-67-89", "8 912 345 67 89" и "9123456789" -> "79123456789".
+ */
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    /** Только цифры из строки (может вернуть пустую строку). */
+    public static String digits(String raw) {
+        if (raw == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char ch = raw.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Нормализованный номер или null, если цифр в строке нет.
+     */
+    public static String normalize(String raw) {
+        String d = digits(raw);
+        if (d.isEmpty()) {
+            return null;
+        }
+        if (d.startsWith("810") && d.length() > 11) {
+            // Российский выход на межгород/заграницу: 8-10-<номер>
+            d = d.substring(3);
+        } else if (d.startsWith("00") && d.length() > 4) {
+            d = d.substring(2);
+        }
+        if (d.length() == 11 && d.charAt(0) == '8') {
+            return "7" + d.substring(1);
+        }
+        if (d.length() == 10 && d.charAt(0) == '9') {
+            return "7" + d;
+        }
+        return d;
+    }
+
+    /**
+     * Нормализация поискового фрагмента: полный номер приводится к E.164,
+     * кусок номера — просто к цифрам.
+     */
+    public static String normalizeFragment(String raw) {
+        String d = digits(raw);
+        if (d.length() >= 10) {
+            String full = normalize(d);
+            return full == null ? "" : full;
+        }
+        return d;
+    }
+}
@@ -0,0 +1,158 @@
+-- Схема БД autoservice. Скрипт идемпотентный: можно прогонять поверх
+-- существующей базы, он только досоздаёт недостающее.
+--   psql -d autoservice_dev -f src/main/resources/db/schema.sql
+
+CREATE TABLE IF NOT EXISTS clients (
+    id        SERIAL PRIMARY KEY,
+    full_name VARCHAR(255) NOT NULL,
+    phone     VARCHAR(255),
+    email     VARCHAR(255),
+    notes     VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id          SERIAL PRIMARY KEY,
+    client_id   INTEGER        NOT NULL,
+    status      VARCHAR(255)   NOT NULL,
+    created_at  TIMESTAMP      NOT NULL,
+    finished_at TIMESTAMP,
+    total_cost  NUMERIC(12, 2)
+);
+
+-- Нормализованный телефон (E.164 без '+'), см. PhoneNumbers.
+-- Старые строки заполняются через POST /clients/phone-digits/backfill
+ALTER TABLE clients ADD COLUMN IF NOT EXISTS phone_digits VARCHAR(32);
+CREATE INDEX IF NOT EXISTS clients_phone_digits_idx ON clients (phone_digits);
+
+-- Client.id берёт значения пачками по 50 (pooled), шаг последовательности должен совпадать
+ALTER SEQUENCE clients_id_seq INCREMENT BY 50;
+
+-- Доска заказов: WHERE status = ? AND id > ? ORDER BY id и GROUP BY status
+CREATE INDEX IF NOT EXISTS orders_status_id_idx ON orders (status, id);
+
+-- Роллапы заказов для отчётов. Обновляются инкрементально, через order_rollup_deltas,
+-- пересчитываются с нуля через POST /reports/rollups/rebuild
+CREATE TABLE IF NOT EXISTS order_daily_rollup (
+    day         DATE           NOT NULL,
+    status      VARCHAR(32)    NOT NULL,
+    order_count BIGINT         NOT NULL DEFAULT 0,
+    revenue     NUMERIC(16, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, status)
+);
+
+CREATE TABLE IF NOT EXISTS client_order_rollup (
+    client_id   INTEGER        NOT NULL,
+    status      VARCHAR(32)    NOT NULL,
+    order_count BIGINT         NOT NULL DEFAULT 0,
+    revenue     NUMERIC(16, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (client_id, status)
+);
+
+-- Изменения роллапов от записей заказов, ещё не свёрнутые в них (RollupRepository.fold):
+-- запись заказа только добавляет строки и не ждёт горячих строк роллапов
+CREATE TABLE IF NOT EXISTS order_rollup_deltas (
+    id          BIGSERIAL      PRIMARY KEY,
+    day         DATE           NOT NULL,
+    client_id   INTEGER        NOT NULL,
+    status      VARCHAR(32)    NOT NULL,
+    order_count BIGINT         NOT NULL,
+    revenue     NUMERIC(16, 2) NOT NULL
+);
+
+-- Order.id, как и Client.id, берёт значения пачками по 50 (pooled): вставки заказов
+-- уходят JDBC-батчем, без отдельного RETURNING на каждую строку
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+
+-- Клиент-360: последние заказы клиента (WHERE client_id = ? ORDER BY created_at DESC, id DESC LIMIT n)
+CREATE INDEX IF NOT EXISTS orders_client_created_idx ON orders (client_id, created_at DESC, id DESC);
+
+-- Мягкое удаление клиентов (autoservice.clients.delete.mode=soft); Client видит только deleted_at IS NULL
+ALTER TABLE clients ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+-- Выборка заказов по периоду: WHERE created_at >= ? AND created_at < ? AND (created_at, id) > (?, ?)
+CREATE INDEX IF NOT EXISTS orders_created_id_idx ON orders (created_at, id);
+
+-- Архив завершённых заказов (DONE/CANCELED старше autoservice.orders.archive.after).
+-- Строки переносятся из orders как есть, id сохраняются; горячая таблица остаётся маленькой
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id          INTEGER        PRIMARY KEY,
+    client_id   INTEGER        NOT NULL,
+    status      VARCHAR(255)   NOT NULL,
+    created_at  TIMESTAMP      NOT NULL,
+    finished_at TIMESTAMP,
+    total_cost  NUMERIC(12, 2),
+    archived_at TIMESTAMP      NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS orders_archive_created_id_idx ON orders_archive (created_at, id);
+-- Последние заказы клиента (OrderSummaryRepository) и всё остальное по client_id
+CREATE INDEX IF NOT EXISTS orders_archive_client_created_idx ON orders_archive (client_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS orders_archive_client_idx;
+-- GET /orders/board/DONE|CANCELED листает и архив: WHERE status = ? AND id > ? ORDER BY id
+CREATE INDEX IF NOT EXISTS orders_archive_status_id_idx ON orders_archive (status, id);
+
+-- Кандидаты в архив: завершённые заказы по давности
+CREATE INDEX IF NOT EXISTS orders_finished_idx ON orders (finished_at) WHERE status IN ('DONE', 'CANCELED');
+
+-- Склад запчастей. on_hand — физически на складе, reserved — из них обещано
+-- открытым заказам. Меняются только условными UPDATE'ами (см. StockRepository),
+-- version растёт на каждое изменение остатков: по нему кэш остатков в памяти
+-- отличает свежие значения от запоздавших
+CREATE TABLE IF NOT EXISTS parts (
+    id       SERIAL PRIMARY KEY,
+    sku      VARCHAR(64)    NOT NULL UNIQUE,
+    name     VARCHAR(255)   NOT NULL,
+    price    NUMERIC(12, 2),
+    on_hand  INTEGER        NOT NULL DEFAULT 0,
+    reserved INTEGER        NOT NULL DEFAULT 0,
+    version  BIGINT         NOT NULL DEFAULT 0,
+    CONSTRAINT parts_stock_check CHECK (reserved >= 0 AND reserved <= on_hand)
+);
+ALTER SEQUENCE parts_id_seq INCREMENT BY 50;
+
+-- Резерв запчастей под заказ: одна строка на (заказ, запчасть). Без внешнего ключа
+-- на orders: завершённые заказы уезжают в orders_archive, а резерв снимается раньше
+CREATE TABLE IF NOT EXISTS part_reservations (
+    order_id   INTEGER   NOT NULL,
+    part_id    INTEGER   NOT NULL REFERENCES parts (id),
+    quantity   INTEGER   NOT NULL CHECK (quantity > 0),
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (order_id, part_id)
+);
+CREATE INDEX IF NOT EXISTS part_reservations_part_idx ON part_reservations (part_id);
+
+-- Сотрудники. skills — теги навыков через запятую ("electrics,engine"), в нижнем регистре
+CREATE TABLE IF NOT EXISTS employees (
+    id        SERIAL PRIMARY KEY,
+    full_name VARCHAR(255) NOT NULL,
+    skills    VARCHAR(255) NOT NULL DEFAULT '',
+    active    BOOLEAN      NOT NULL DEFAULT true
+);
+ALTER SEQUENCE employees_id_seq INCREMENT BY 50;
+
+-- Исполнитель заказа, нужный навык и оценка трудоёмкости (см. AssignmentService)
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS employee_id INTEGER;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS skill VARCHAR(64);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS estimated_hours NUMERIC(6, 2);
+ALTER TABLE orders_archive ADD COLUMN IF NOT EXISTS employee_id INTEGER;
+ALTER TABLE orders_archive ADD COLUMN IF NOT EXISTS skill VARCHAR(64);
+ALTER TABLE orders_archive ADD COLUMN IF NOT EXISTS estimated_hours NUMERIC(6, 2);
+
+-- Загрузка сотрудников при старте и поиск заказа для перебалансировки: только открытые
+CREATE INDEX IF NOT EXISTS orders_employee_open_idx ON orders (employee_id, created_at)
+    WHERE status IN ('CREATED', 'IN_PROGRESS');
+
+-- Версии таблиц для ETag'ов (TableVersions): писатель прибавляет единицу в своей транзакции,
+-- в случайной из 8 строк таблицы, чтобы параллельные записи не ждали одну строку.
+-- Версия таблицы — сумма по строкам; само значение ничего не значит, важно только, что изменилось
+DROP SEQUENCE IF EXISTS table_version_clients;
+DROP SEQUENCE IF EXISTS table_version_orders;
+DROP SEQUENCE IF EXISTS table_version_parts;
+CREATE TABLE IF NOT EXISTS table_versions (
+    table_name VARCHAR(16) NOT NULL,
+    shard      SMALLINT    NOT NULL,
+    version    BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (table_name, shard)
+);
+INSERT INTO table_versions (table_name, shard)
+SELECT t, s FROM unnest(ARRAY['clients', 'orders', 'parts']) t, generate_series(0, 7) s
+ON CONFLICT DO NOTHING;
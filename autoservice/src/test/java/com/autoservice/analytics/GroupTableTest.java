@@ -0,0 +1,74 @@
+package com.autoservice.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GroupTableTest {
+
+    @Test
+    void growKeepsEveryGroup() {
+        GroupTable table = new GroupTable();
+        Map<Long, List<Long>> expected = new HashMap<>();
+        // Ключ 0 и отрицательные — обычные ключи (NONE, дни до 1970-го)
+        for (long key = -20_000; key < 20_000; key++) {
+            add(table, expected, key, true, key & 0xFF);
+            add(table, expected, key, key % 3 == 0, 7);
+        }
+        add(table, expected, Long.MIN_VALUE, true, 1);
+        add(table, expected, Long.MAX_VALUE, false, 1);
+
+        assertEquals(expected.size(), table.size());
+        assertEquals(expected, toMap(table));
+    }
+
+    @Test
+    void mergeAddsOverlappingAndNewGroups() {
+        Random random = new Random(7);
+        GroupTable left = new GroupTable();
+        GroupTable right = new GroupTable();
+        Map<Long, List<Long>> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            add(left, expected, random.nextInt(5_000), random.nextBoolean(), random.nextInt(1_000));
+            // Пересекаются с left только частично, и right растёт при слиянии
+            add(right, expected, 2_500 + random.nextInt(10_000), random.nextBoolean(), random.nextInt(1_000));
+        }
+
+        left.merge(right);
+
+        assertEquals(expected.size(), left.size());
+        assertEquals(expected, toMap(left));
+    }
+
+    @Test
+    void mergeIntoEmptyCopiesAll() {
+        GroupTable source = new GroupTable();
+        Map<Long, List<Long>> expected = new HashMap<>();
+        for (long key = 0; key < 100; key++) {
+            add(source, expected, key * 1_000_003, true, key);
+        }
+        GroupTable target = new GroupTable();
+
+        target.merge(source);
+
+        assertEquals(expected, toMap(target));
+        assertEquals(expected, toMap(source));
+    }
+
+    private static void add(GroupTable table, Map<Long, List<Long>> expected, long key, boolean paid, long cost) {
+        table.add(key, paid, cost);
+        expected.merge(key, List.of(1L, paid ? 1L : 0L, paid ? cost : 0L),
+                (a, b) -> List.of(a.get(0) + b.get(0), a.get(1) + b.get(1), a.get(2) + b.get(2)));
+    }
+
+    private static Map<Long, List<Long>> toMap(GroupTable table) {
+        Map<Long, List<Long>> result = new HashMap<>();
+        table.forEach((key, orders, paid, revenue) -> result.put(key, List.of(orders, paid, revenue)));
+        return result;
+    }
+}
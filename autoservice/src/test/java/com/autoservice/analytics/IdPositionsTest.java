@@ -0,0 +1,50 @@
+package com.autoservice.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdPositionsTest {
+
+    @Test
+    void growKeepsAllIds() {
+        IdPositions positions = new IdPositions(16);
+        // id подряд и с шагом пачки последовательности (50) — оба случая бывают
+        for (int id = 1; id <= 100_000; id++) {
+            positions.put(id, id - 1);
+        }
+        for (int id = 1_000_000; id < 1_000_000 + 50 * 10_000; id += 50) {
+            positions.put(id, id);
+        }
+
+        assertEquals(110_000, positions.size());
+        for (int id = 1; id <= 100_000; id++) {
+            assertEquals(id - 1, positions.get(id));
+        }
+        for (int id = 1_000_000; id < 1_000_000 + 50 * 10_000; id += 50) {
+            assertEquals(id, positions.get(id));
+            assertEquals(-1, positions.get(id + 1));
+        }
+        assertEquals(-1, positions.get(100_001));
+        assertEquals(-1, positions.get(-5));
+    }
+
+    @Test
+    void putReplacesRowOfKnownId() {
+        IdPositions positions = new IdPositions(4);
+        positions.put(7, 1);
+        positions.put(7, 9);
+
+        assertEquals(1, positions.size());
+        assertEquals(9, positions.get(7));
+    }
+
+    @Test
+    void rejectsFreeMarker() {
+        IdPositions positions = new IdPositions(4);
+
+        assertThrows(IllegalArgumentException.class, () -> positions.put(0, 1));
+        assertEquals(0, positions.size());
+    }
+}
@@ -0,0 +1,143 @@
+package com.autoservice.analytics;
+
+import com.autoservice.entity.OrderStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderSnapshotTest {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    // Больше трёх кусков: и копирование при записи, и параллельный скан
+    private static final int ORDERS = 3 * OrderSnapshot.CHUNK + 1000;
+
+    private static ForkJoinPool pool;
+
+    private record Row(int clientId, int employeeId, OrderStatus status, long createdAt, long cost) {
+    }
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void publishedSnapshotIsNotChangedByLaterEdits() {
+        Random random = new Random(42);
+        TreeMap<Integer, Row> model = new TreeMap<>();
+        OrderSnapshot.Editor editor = OrderSnapshot.empty().edit();
+        for (int id = 1; id <= ORDERS; id++) {
+            put(editor, model, id, random);
+        }
+        OrderSnapshot first = editor.publish(1);
+        Map<Integer, Row> firstModel = new TreeMap<>(model);
+        assertMatches(firstModel, first);
+
+        // Тот же редактор после publish: правки по всем кускам, удаления, дописывание в конец
+        for (int id = 1; id <= ORDERS; id += 7) {
+            put(editor, model, id, random);
+        }
+        for (int id = 3; id <= ORDERS; id += 11) {
+            editor.delete(id);
+            model.remove(id);
+        }
+        for (int id = ORDERS + 1; id <= ORDERS + 1000; id++) {
+            put(editor, model, id, random);
+        }
+        OrderSnapshot second = editor.publish(2);
+        Map<Integer, Row> secondModel = new TreeMap<>(model);
+        assertMatches(firstModel, first);
+        assertMatches(secondModel, second);
+
+        // Новый редактор от второго снимка: удалённый заказ возвращается, правятся свежие строки
+        OrderSnapshot.Editor next = second.edit();
+        put(next, model, 3, random);
+        for (int id = ORDERS - 500; id <= ORDERS + 1000; id += 3) {
+            put(next, model, id, random);
+        }
+        for (int id = ORDERS + 1001; id <= ORDERS + 1100; id++) {
+            put(next, model, id, random);
+        }
+        OrderSnapshot third = next.publish(3);
+        Map<Integer, Row> thirdModel = new TreeMap<>(model);
+        assertMatches(firstModel, first);
+        assertMatches(secondModel, second);
+        assertMatches(thirdModel, third);
+
+        // Ужатый снимок — отдельные куски: его правки не задевают исходный
+        OrderSnapshot compacted = third.compacted();
+        assertEquals(0, compacted.tombstones());
+        assertMatches(thirdModel, compacted);
+        OrderSnapshot.Editor afterCompaction = compacted.edit();
+        for (int id = 1; id <= ORDERS; id += 5) {
+            put(afterCompaction, model, id, random);
+        }
+        afterCompaction.delete(1);
+        model.remove(1);
+        OrderSnapshot fourth = afterCompaction.publish(4);
+        assertMatches(thirdModel, third);
+        assertMatches(thirdModel, compacted);
+        assertMatches(model, fourth);
+        assertEquals(model.size(), fourth.orders());
+    }
+
+    @Test
+    void filterAppliesToPeriodStatusAndClient() {
+        OrderSnapshot.Editor editor = OrderSnapshot.empty().edit();
+        long day = 86_400;
+        editor.put(1, 10, 0, OrderStatus.DONE, 100 * day, 1_000);
+        editor.put(2, 10, 5, OrderStatus.CANCELED, 100 * day + 10, 2_000);
+        editor.put(3, 11, 5, OrderStatus.DONE, 101 * day, OrderSnapshot.NO_COST);
+        editor.put(4, 10, 5, OrderStatus.IN_PROGRESS, 102 * day, 4_000);
+        OrderSnapshot snapshot = editor.publish(1);
+
+        assertEquals(Map.of(10L, List.of(3L, 2L, 5_000L), 11L, List.of(1L, 1L, 0L)),
+                totals(snapshot, OrderFilter.ALL, AnalyticsGroupBy.CLIENT));
+        assertEquals(Map.of(100L, List.of(2L, 1L, 1_000L), 101L, List.of(1L, 1L, 0L)),
+                totals(snapshot, new OrderFilter(100 * day, 102 * day, OrderFilter.ALL.statusMask(), 0, 0),
+                        AnalyticsGroupBy.DAY));
+        assertEquals(Map.of(0L, List.of(1L, 1L, 4_000L)),
+                totals(snapshot, new OrderFilter(Long.MIN_VALUE, Long.MAX_VALUE,
+                        1 << OrderStatus.IN_PROGRESS.ordinal(), 10, 5), AnalyticsGroupBy.NONE));
+    }
+
+    private static void put(OrderSnapshot.Editor editor, Map<Integer, Row> model, int id, Random random) {
+        Row row = new Row(1 + random.nextInt(300), random.nextInt(20), STATUSES[random.nextInt(STATUSES.length)],
+                1_700_000_000L + random.nextInt(100_000_000),
+                random.nextInt(10) == 0 ? OrderSnapshot.NO_COST : random.nextInt(1_000_000));
+        editor.put(id, row.clientId(), row.employeeId(), row.status(), row.createdAt(), row.cost());
+        model.put(id, row);
+    }
+
+    private static void assertMatches(Map<Integer, Row> model, OrderSnapshot snapshot) {
+        assertEquals(model.size(), snapshot.orders());
+        Map<Long, List<Long>> expected = new TreeMap<>();
+        model.values().forEach(row -> {
+            boolean paid = row.status() != OrderStatus.CANCELED;
+            long cost = paid && row.cost() != OrderSnapshot.NO_COST ? row.cost() : 0;
+            expected.merge((long) row.clientId(), List.of(1L, paid ? 1L : 0L, cost),
+                    (a, b) -> List.of(a.get(0) + b.get(0), a.get(1) + b.get(1), a.get(2) + b.get(2)));
+        });
+        assertEquals(expected, totals(snapshot, OrderFilter.ALL, AnalyticsGroupBy.CLIENT));
+    }
+
+    private static Map<Long, List<Long>> totals(OrderSnapshot snapshot, OrderFilter filter, AnalyticsGroupBy groupBy) {
+        Map<Long, List<Long>> result = new TreeMap<>();
+        snapshot.aggregate(filter, groupBy, pool)
+                .forEach((key, orders, paid, revenue) -> result.put(key, List.of(orders, paid, revenue)));
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.autoservice.assignment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkloadQueuesTest {
+
+    private static final List<String> SKILLS = List.of("brakes", "engine", "paint");
+
+    @Test
+    void assignsLeastLoadedWithSkill() {
+        WorkloadQueues queues = new WorkloadQueues();
+        queues.register(1, List.of("brakes"), 3, 300);
+        queues.register(2, List.of("brakes", "engine"), 1, 100);
+        queues.register(3, List.of("engine"), 0, 0);
+
+        assertEquals(OptionalInt.of(2), queues.assign("brakes", 50));
+        assertEquals(OptionalInt.of(3), queues.assign("engine", 50));
+        assertEquals(OptionalInt.of(3), queues.assign(WorkloadQueues.ANY, 50));
+        assertEquals(OptionalInt.empty(), queues.assign("paint", 50));
+
+        assertEquals(new Workload(150, 2, 2), queues.load(2).orElseThrow());
+        assertEquals(new Workload(100, 2, 3), queues.load(3).orElseThrow());
+    }
+
+    @Test
+    void unregisterRemovesFromEveryQueue() {
+        WorkloadQueues queues = new WorkloadQueues();
+        queues.register(1, List.of("brakes", "engine"), 0, 0);
+        queues.register(2, List.of("engine"), 0, 500);
+
+        queues.unregister(1);
+
+        assertEquals(OptionalInt.empty(), queues.assign("brakes", 10));
+        assertEquals(OptionalInt.of(2), queues.assign("engine", 10));
+        assertTrue(queues.load(1).isEmpty());
+        assertEquals(List.of(2), ids(queues.leastLoaded(WorkloadQueues.ANY, 10)));
+    }
+
+    @Test
+    void concurrentAssignAndReleaseKeepOnePositionPerEmployee() throws Exception {
+        int employees = 12;
+        WorkloadQueues queues = new WorkloadQueues();
+        for (int id = 1; id <= employees; id++) {
+            queues.register(id, List.of(SKILLS.get(id % SKILLS.size()), SKILLS.get((id / 3) % SKILLS.size())), 0, 0);
+        }
+
+        // Что должно остаться у каждого: назначенное минус снятое
+        AtomicLongArray centi = new AtomicLongArray(employees + 1);
+        AtomicIntegerArray orders = new AtomicIntegerArray(employees + 1);
+        int threads = 4;
+        int operations = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                done.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operations; i++) {
+                        String skill = random.nextInt(4) == 0 ? WorkloadQueues.ANY : SKILLS.get(random.nextInt(3));
+                        long hours = 1 + random.nextInt(500);
+                        int id = queues.assign(skill, hours).orElseThrow();
+                        assertTrue(skill.isEmpty() || queues.skills(id).contains(skill));
+                        if (random.nextBoolean()) {
+                            queues.release(id, hours);
+                        } else {
+                            centi.addAndGet(id, hours);
+                            orders.incrementAndGet(id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : done) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int id = 1; id <= employees; id++) {
+            assertEquals(new Workload(centi.get(id), orders.get(id), id), queues.load(id).orElseThrow());
+        }
+        for (String skill : List.of(WorkloadQueues.ANY, "brakes", "engine", "paint")) {
+            List<Workload> queue = queues.leastLoaded(skill, 100);
+            Set<Integer> seen = new HashSet<>();
+            for (Workload w : queue) {
+                assertTrue(seen.add(w.employeeId()), "сотрудник " + w.employeeId() + " дважды в очереди " + skill);
+                // В очереди ровно текущая нагрузка, без устаревших позиций
+                assertEquals(queues.load(w.employeeId()).orElseThrow(), w);
+            }
+            for (int id = 1; id <= employees; id++) {
+                assertEquals(queues.skills(id).contains(skill), seen.contains(id), "сотрудник " + id + ", " + skill);
+            }
+        }
+    }
+
+    private static List<Integer> ids(List<Workload> loads) {
+        return loads.stream().map(Workload::employeeId).toList();
+    }
+}
@@ -0,0 +1,37 @@
+package com.autoservice.cache;
+
+import com.autoservice.entity.Client;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ClientCacheTest {
+
+    private final ClientCache cache = new ClientCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void changesToReturnedClientDoNotReachOtherReaders() {
+        Client loaded = new Client(1, "Иванов Иван", "+7 900 000-00-01", "ivanov@example.com", null);
+        loaded.setPhoneDigits("79000000001");
+        cache.get(1, () -> Optional.of(loaded));
+        loaded.setFullName("Петров Пётр");
+
+        Client first = cache.get(1, ClientCacheTest::notLoaded).orElseThrow();
+        first.setPhone("+7 900 000-00-02");
+        Client second = cache.get(1, ClientCacheTest::notLoaded).orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals("Иванов Иван", second.getFullName());
+        assertEquals("+7 900 000-00-01", second.getPhone());
+        assertEquals("79000000001", second.getPhoneDigits());
+    }
+
+    private static Optional<Client> notLoaded() {
+        return fail("клиент должен браться из кэша");
+    }
+}
@@ -0,0 +1,166 @@
+package com.autoservice.change;
+
+import com.autoservice.controller.VersionEtags;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TableVersionsTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final JdbcTemplate primary = mock(JdbcTemplate.class);
+    private final ChangeTracker changes = new ChangeTracker(100);
+    // Без start(): перечитывание вызываем руками, когда нужно
+    private final TableVersions versions = new TableVersions(changes, jdbc, primary, Duration.ZERO);
+    private final VersionEtags etags = new VersionEtags(versions);
+
+    @BeforeEach
+    void setUp() {
+        when(jdbc.update(eq(TableVersions.BUMP_SQL), eq("orders"), anyInt())).thenReturn(1);
+        database(5, 100);
+        versions.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void unchangedTableRevalidates() {
+        String etag = etags.of(TrackedTable.ORDERS, 1);
+
+        assertEquals("O5-" + Integer.toHexString(31 + 1), etag);
+        assertTrue(revalidate(etag, etags.of(TrackedTable.ORDERS, 1)));
+    }
+
+    @Test
+    void committedWriteIsNeverServedAsNotModified() {
+        String before = etags.of(TrackedTable.ORDERS, 1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        changes.record(TrackedTable.ORDERS, ChangeType.CREATED, 42);
+        // Версия сдвигается перед самым коммитом, в транзакции писателя
+        verify(jdbc, never()).update(eq(TableVersions.BUMP_SQL), eq("orders"), anyInt());
+        syncs().forEach(s -> s.beforeCommit(false));
+        verify(jdbc).update(eq(TableVersions.BUMP_SQL), eq("orders"), anyInt());
+
+        // Коммит идёт: версия неизвестна, 304 нет
+        assertNull(etags.of(TrackedTable.ORDERS, 1));
+        assertFalse(revalidate(before, etags.of(TrackedTable.ORDERS, 1)));
+        // Перечитывание, начатое до коммита, видит старую версию и ничего не решает
+        versions.refresh();
+        finish(TransactionSynchronization.STATUS_COMMITTED);
+        assertNull(etags.of(TrackedTable.ORDERS, 1));
+        assertFalse(revalidate(before, etags.of(TrackedTable.ORDERS, 1)));
+
+        database(6, 200);
+        versions.refresh();
+        String after = etags.of(TrackedTable.ORDERS, 1);
+        assertNotNull(after);
+        assertNotEquals(before, after);
+        assertFalse(revalidate(before, after));
+        assertTrue(revalidate(after, etags.of(TrackedTable.ORDERS, 1)));
+        assertEquals(new TableVersions.Version(6, 200), versions.current(TrackedTable.ORDERS).orElseThrow());
+    }
+
+    @Test
+    void rolledBackWriteKeepsVersionKnown() {
+        String before = etags.of(TrackedTable.ORDERS, 1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        changes.record(TrackedTable.ORDERS, ChangeType.CREATED, 42);
+        syncs().forEach(s -> s.beforeCommit(false));
+        finish(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(revalidate(before, etags.of(TrackedTable.ORDERS, 1)));
+        assertTrue(changes.changesSince(0, null).events().isEmpty());
+    }
+
+    @Test
+    void otherTablesStayKnownDuringWrite() {
+        TransactionSynchronizationManager.initSynchronization();
+        changes.record(TrackedTable.ORDERS, ChangeType.CREATED, 42);
+        syncs().forEach(s -> s.beforeCommit(false));
+
+        assertNotNull(etags.of(TrackedTable.CLIENTS, 1));
+        assertNull(etags.of(EnumSet.of(TrackedTable.CLIENTS, TrackedTable.ORDERS), 1));
+    }
+
+    @Test
+    void missingVersionRowFailsTheWrite() {
+        when(jdbc.update(eq(TableVersions.BUMP_SQL), eq("orders"), anyInt())).thenReturn(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        changes.record(TrackedTable.ORDERS, ChangeType.CREATED, 42);
+
+        assertThrows(IllegalStateException.class, () -> syncs().forEach(s -> s.beforeCommit(false)));
+    }
+
+    @Test
+    void replayDoesNotBump() {
+        changes.replay(TrackedTable.ORDERS, ChangeType.CREATED, 42);
+
+        verify(jdbc, never()).update(eq(TableVersions.BUMP_SQL), eq("orders"), anyInt());
+        verify(primary, never()).update(eq(TableVersions.BUMP_SQL), eq("orders"), anyInt());
+        assertNotNull(etags.of(TrackedTable.ORDERS, 1));
+    }
+
+    private void database(long orders, long lsn) {
+        when(primary.queryForList(TableVersions.READ_SQL)).thenReturn(List.of(
+                Map.of("table_name", "clients", "version", 3L, "lsn", lsn),
+                Map.of("table_name", "orders", "version", orders, "lsn", lsn),
+                Map.of("table_name", "parts", "version", 0L, "lsn", lsn)));
+    }
+
+    private static List<TransactionSynchronization> syncs() {
+        return TransactionSynchronizationManager.getSynchronizations();
+    }
+
+    private static void finish(int status) {
+        List<TransactionSynchronization> syncs = syncs();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            syncs.forEach(TransactionSynchronization::afterCommit);
+        }
+        syncs.forEach(s -> s.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    /** true — условный GET с If-None-Match: sent получил бы 304 при текущем ETag current. */
+    private static boolean revalidate(String sent, String current) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        // Клиент возвращает ETag в кавычках, как его выставил checkNotModified
+        request.addHeader("If-None-Match", '"' + sent + '"');
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean notModified = new ServletWebRequest(request, response).checkNotModified(current);
+        assertEquals(notModified ? 304 : 200, response.getStatus());
+        return notModified;
+    }
+}
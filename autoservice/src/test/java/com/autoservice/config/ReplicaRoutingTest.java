@@ -0,0 +1,204 @@
+package com.autoservice.config;
+
+import com.autoservice.cache.ClientCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryCon = mock(Connection.class);
+    private final Connection replicaCon = mock(Connection.class);
+    private final ReplicaLag lag = new ReplicaLag(List.of(replica), Duration.ZERO);
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryCon);
+        when(replica.getConnection()).thenReturn(replicaCon);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), lag, new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lag.destroy();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readsUseReplicaOnlyOnceItsPositionIsKnown() throws SQLException {
+        assertSame(primaryCon, read());
+
+        lag.update(0, 10);
+        assertSame(replicaCon, read());
+
+        lag.update(0, ReplicaLag.UNKNOWN);
+        assertSame(primaryCon, read());
+    }
+
+    @Test
+    void readAfterOwnWriteWaitsForReplicaToApplyTheCommit() throws SQLException {
+        lag.update(0, 50);
+        commitLsn(100);
+        try (ReadRouting.Scope session = ReadRouting.open(0)) {
+            assertSame(primaryCon, write());
+            commit();
+            assertEquals(100, ReadRouting.commitLsn());
+
+            assertSame(primaryCon, read());
+            lag.update(0, 100);
+            assertSame(replicaCon, read());
+        }
+    }
+
+    @Test
+    void writesOfOtherSessionsDoNotPinReadsToPrimary() throws SQLException {
+        lag.update(0, 50);
+        commitLsn(100);
+        try (ReadRouting.Scope writer = ReadRouting.open(0)) {
+            write();
+            commit();
+        }
+        // Сессия закрыта: требование не утекает в следующие чтения потока
+        assertEquals(0, ReadRouting.requiredLsn());
+        assertSame(replicaCon, read());
+        try (ReadRouting.Scope other = ReadRouting.open(0)) {
+            assertSame(replicaCon, read());
+        }
+    }
+
+    @Test
+    void sessionRequirementComesFromCookieAndEtag() throws SQLException {
+        lag.update(0, 150);
+        try (ReadRouting.Scope session = ReadRouting.open(120)) {
+            assertSame(replicaCon, read());
+            ReadRouting.requireLsn(200);
+            assertSame(primaryCon, read());
+            // withMinLsn действует только внутри и не снижает требование сессии
+            assertSame(replicaCon, ReadRouting.withMinLsn(0, () -> {
+                lag.update(0, 250);
+                return readUnchecked();
+            }));
+            lag.update(0, 150);
+            assertSame(primaryCon, read());
+        }
+    }
+
+    @Test
+    void lostCommitPositionFallsBackToFreshConnection() throws SQLException {
+        lag.update(0, 50);
+        when(primaryCon.createStatement()).thenThrow(new SQLException("connection closed"));
+        Connection fresh = connectionAt(300);
+        when(primary.getConnection()).thenReturn(primaryCon, fresh);
+        try (ReadRouting.Scope session = ReadRouting.open(0)) {
+            write();
+            commit();
+            assertEquals(300, ReadRouting.commitLsn());
+        }
+    }
+
+    @Test
+    void cacheLoadAfterInvalidateIsNotOlderThanTheWrite() throws SQLException {
+        ClientCache cache = new ClientCache(100, Duration.ofMinutes(5));
+        lag.update(0, 1_000);
+        commitLsn(1_000_000);
+        write();
+        commit();
+        cache.invalidate(1);
+
+        AtomicReference<Connection> used = new AtomicReference<>();
+        cache.get(1, () -> {
+            used.set(readUnchecked());
+            return Optional.empty();
+        });
+        assertSame(primaryCon, used.get());
+
+        lag.update(0, 1_000_000);
+        cache.get(1, () -> {
+            used.set(readUnchecked());
+            return Optional.empty();
+        });
+        assertSame(replicaCon, used.get());
+    }
+
+    private void commitLsn(long lsn) throws SQLException {
+        Statement st = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(primaryCon.createStatement()).thenReturn(st);
+        when(st.executeQuery(anyString())).thenReturn(rs);
+        when(rs.getLong(1)).thenReturn(lsn);
+    }
+
+    private static Connection connectionAt(long lsn) throws SQLException {
+        Connection con = mock(Connection.class);
+        Statement st = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(con.createStatement()).thenReturn(st);
+        when(st.executeQuery(anyString())).thenReturn(rs);
+        when(rs.getLong(1)).thenReturn(lsn);
+        return con;
+    }
+
+    /** Соединение читающей транзакции (readOnly = true), сразу завершённой. */
+    private Connection read() throws SQLException {
+        begin(true);
+        Connection con = routing.getConnection();
+        commit();
+        return con;
+    }
+
+    private Connection readUnchecked() {
+        try {
+            return read();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Соединение пишущей транзакции; коммит — commit(). */
+    private Connection write() throws SQLException {
+        begin(false);
+        return routing.getConnection();
+    }
+
+    private static void begin(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        syncs.forEach(TransactionSynchronization::afterCommit);
+        syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+}
@@ -0,0 +1,53 @@
+package com.autoservice.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlStatementCounterTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final Connection con = mock(Connection.class);
+    private final SqlStatementCounter counter = new SqlStatementCounter(target);
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementCounter.end();
+    }
+
+    @Test
+    void countsJdbcTemplateStatementsWithinRequest() throws SQLException {
+        when(target.getConnection()).thenReturn(con);
+        Statement st = mock(Statement.class);
+        DatabaseMetaData meta = mock(DatabaseMetaData.class);
+        when(con.createStatement()).thenReturn(st);
+        when(st.getConnection()).thenReturn(con);
+        when(con.getMetaData()).thenReturn(meta);
+        when(meta.supportsBatchUpdates()).thenReturn(true);
+        when(st.executeBatch()).thenReturn(new int[]{1, 1});
+        when(con.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        JdbcTemplate jdbc = new JdbcTemplate(counter);
+
+        SqlStatementCounter.begin();
+        jdbc.execute("SELECT 1");
+        jdbc.update("UPDATE clients SET notes = ? WHERE id = ?", "x", 1);
+        jdbc.batchUpdate("DELETE FROM clients WHERE id = 1", "DELETE FROM clients WHERE id = 2");
+        assertEquals(3, SqlStatementCounter.end());
+
+        // Вне запроса не считаем
+        jdbc.execute("SELECT 1");
+        assertEquals(0, SqlStatementCounter.end());
+    }
+}